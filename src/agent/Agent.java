@@ -3,11 +3,28 @@ package agent;
 import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 /** Base class for simple agents */
 public abstract class Agent {
 	Semaphore stateChange = new Semaphore(1,true);//binary semaphore, fair
 	private AgentThread agentThread;
+	private volatile PooledRunner pooledRunner;
+
+	/** How agent schedulers (and their timers) are run.
+	 * platformThreads: one OS thread and one Timer thread per agent (default).
+	 * virtualThreads: each scheduler loop runs on a virtual thread and all
+	 * agents share a single timer thread.
+	 * pooled: stateChanged() queues the agent on the AgentExecutor's
+	 * fixed work-stealing pool; all agents share a single timer thread. */
+	public enum RuntimeMode {
+		platformThreads, virtualThreads, pooled
+	};
+
+	private static volatile RuntimeMode runtimeMode = RuntimeMode.platformThreads;
+	private static Timer sharedTimer; // used by all agents unless platformThreads
+	private Timer timer; // this agent's own timer in platformThreads mode
+	private boolean simBusy; // counted as busy by a discrete-event clock, guarded by stateChange
 
 	protected Agent() {
 	}
@@ -15,7 +32,53 @@ public abstract class Agent {
 	/** This should be called whenever state has changed that might cause
 	 * the agent to do something. */
 	protected void stateChanged() {
-		stateChange.release(); 
+		SimulationClock clock = SimulationClock.getClock();
+		if (clock.isRealTime()) {
+			wakeUp();
+			return;
+		}
+		// the clock must not advance while this agent has work pending, so
+		// mark it busy in the same step as the wakeup
+		synchronized (stateChange) {
+			markBusy(clock);
+			wakeUp();
+		}
+	}
+
+	/** Count this agent as busy on a discrete-event clock.  Caller holds
+	 * stateChange. */
+	private void markBusy(SimulationClock clock) {
+		if (!simBusy) {
+			simBusy = true;
+			clock.agentBusy();
+		}
+	}
+
+	private void wakeUp() {
+		PooledRunner runner = pooledRunner;
+		if (runner != null) {
+			runner.signal();
+		} else {
+			stateChange.release(); 
+		}
+	}
+
+	/** Called when the scheduler has nothing left to do.  Tells a
+	 * discrete-event clock this agent is idle unless a wakeup is pending. */
+	private void schedulerIdle() {
+		SimulationClock clock = SimulationClock.getClock();
+		if (clock.isRealTime()) {
+			return;
+		}
+		synchronized (stateChange) {
+			PooledRunner runner = pooledRunner;
+			boolean pending = (runner != null) ? runner.signalled.get()
+					: stateChange.availablePermits() > 0;
+			if (simBusy && !pending) {
+				simBusy = false;
+				clock.agentIdle();
+			}
+		}
 	}
 
 	/** Agents must implement this scheduler to perform any actions appropriate for the
@@ -54,9 +117,61 @@ public abstract class Agent {
 		System.out.print(sb.toString());
 	}
 
+	/** Select the runtime used by agents whose thread is started after this
+	 * call.  Should be called once at init time, before any startThread(). */
+	public static void setRuntimeMode(RuntimeMode mode) {
+		runtimeMode = mode;
+	}
+
+	public static RuntimeMode getRuntimeMode() {
+		return runtimeMode;
+	}
+
+	/** Schedule a simulation timer task (cooking, eating, breaks...) to run
+	 * once after delay milliseconds of simulation time.  The task should
+	 * only message the agent. */
+	protected void schedule(TimerTask task, long delay) {
+		SimulationClock clock = SimulationClock.getClock();
+		if (clock.isRealTime()) {
+			timer().schedule(task, delay);
+		} else {
+			clock.schedule(task, delay);
+		}
+	}
+
+	/** The timer to schedule on.  Created lazily so agents that never use
+	 * a timer never pay for its thread. */
+	private Timer timer() {
+		if (runtimeMode != RuntimeMode.platformThreads) {
+			synchronized (Agent.class) {
+				if (sharedTimer == null) {
+					sharedTimer = new Timer("agent timer", true);
+				}
+				return sharedTimer;
+			}
+		}
+		synchronized (this) {
+			if (timer == null) {
+				timer = new Timer(getName() + " timer");
+			}
+			return timer;
+		}
+	}
+
 	/** Start agent scheduler thread.  Should be called once at init time. */
 	public synchronized void startThread() {
-		if (agentThread == null) {
+		SimulationClock clock = SimulationClock.getClock();
+		if (!clock.isRealTime()) {
+			synchronized (stateChange) {
+				markBusy(clock); // the first scheduler pass is work for the clock
+			}
+		}
+		if (runtimeMode == RuntimeMode.pooled) {
+			if (pooledRunner == null) {
+				pooledRunner = new PooledRunner();
+				pooledRunner.signal(); // run the scheduler once, like the thread does
+			}
+		} else if (agentThread == null) {
 			agentThread = new AgentThread(getName());
 			agentThread.start(); // causes the run method to execute in the AgentThread below
 		} else {
@@ -68,6 +183,10 @@ public abstract class Agent {
 	//In this implementation, nothing calls stopThread().
 	//When we have a user interface to agents, this can be called.
 	public void stopThread() {
+		if (pooledRunner != null) {
+			pooledRunner.stopAgent();
+			pooledRunner = null;
+		}
 		if (agentThread != null) {
 			agentThread.stopAgent();
 			agentThread = null;
@@ -75,14 +194,36 @@ public abstract class Agent {
 	}
 
 	/** Agent scheduler thread, calls respondToStateChange() whenever a state
-	 * change has been signalled. */
+	 * change has been signalled.  Depending on the runtime mode the loop runs
+	 * either on this platform thread or on a virtual thread it starts. */
 	private class AgentThread extends Thread {
 		private volatile boolean goOn = false;
+		private Thread virtualThread; // carrier of run() in virtualThreads mode
 
 		private AgentThread(String name) {
 			super(name);
 		}
 
+		public synchronized void start() {
+			if (runtimeMode == RuntimeMode.virtualThreads) {
+				virtualThread = VirtualThreads.unstarted(getName(), this);
+				if (virtualThread != null) {
+					virtualThread.start();
+					return;
+				}
+				print("Virtual threads not supported by this JVM, using a platform thread");
+			}
+			super.start();
+		}
+
+		public void interrupt() {
+			if (virtualThread != null) {
+				virtualThread.interrupt();
+			} else {
+				super.interrupt();
+			}
+		}
+
 		public void run() {
 			goOn = true;
 
@@ -91,6 +232,7 @@ public abstract class Agent {
 					// The agent sleeps here until someone calls, stateChanged(),
 					// which causes a call to stateChange.give(), which wakes up agent.
 					stateChange.acquire();
+					SimulationClock.setCounted(true);
 					//The next while clause is the key to the control flow.
 					//When the agent wakes up it will call respondToStateChange()
 					//repeatedly until it returns FALSE.
@@ -101,6 +243,8 @@ public abstract class Agent {
 				} catch (Exception e) {
 					print("Unexpected exception caught in Agent thread:", e);
 				}
+				SimulationClock.setCounted(false);
+				schedulerIdle();
 			}
 		}
 
@@ -109,5 +253,44 @@ public abstract class Agent {
 			this.interrupt();
 		}
 	}
+
+	/** Runs the scheduler as a task on the AgentExecutor pool.  At most one
+	 * task per agent is queued or running at a time, so the same agent is
+	 * never run on two workers at once. */
+	private class PooledRunner implements Runnable {
+		// true from the time a task is submitted until it finishes
+		private final AtomicBoolean queued = new AtomicBoolean(false);
+		// set by stateChanged(), cleared when the scheduler starts a pass
+		private final AtomicBoolean signalled = new AtomicBoolean(false);
+		private volatile boolean goOn = true;
+
+		private void signal() {
+			signalled.set(true);
+			if (goOn && queued.compareAndSet(false, true)) {
+				AgentExecutor.execute(this);
+			}
+		}
+
+		public void run() {
+			do {
+				signalled.set(false);
+				SimulationClock.setCounted(true);
+				try {
+					while (goOn && pickAndExecuteAnAction());
+				} catch (Exception e) {
+					print("Unexpected exception caught in Agent task:", e);
+				}
+				SimulationClock.setCounted(false);
+				schedulerIdle();
+				queued.set(false);
+				// a stateChanged() that raced with the end of the pass, and
+				// lost the race to submit a new task, is picked up here
+			} while (goOn && signalled.get() && queued.compareAndSet(false, true));
+		}
+
+		private void stopAgent() {
+			goOn = false;
+		}
+	}
 }
 
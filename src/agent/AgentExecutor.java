@@ -0,0 +1,47 @@
+package agent;
+
+import java.util.concurrent.*;
+
+/**
+ * The shared pool that runs agent schedulers in the pooled runtime mode.
+ * A fixed number of work-stealing workers (one per core by default) pick
+ * agents off the run queue and call pickAndExecuteAnAction() until it
+ * returns false.  Agent actions that block (sleeps, semaphores) hold a
+ * worker while they block, so size the pool up if many agents animate.
+ */
+public class AgentExecutor {
+	private static int parallelism = Runtime.getRuntime().availableProcessors();
+	private static ForkJoinPool pool;
+
+	/** Don't construct. */
+	private AgentExecutor() {
+	}
+
+	/** Set the number of workers.  Must be called before any pooled agent
+	 * is started. */
+	public static synchronized void setParallelism(int n) {
+		if (pool != null) {
+			throw new IllegalStateException("agent pool already started");
+		}
+		parallelism = n;
+	}
+
+	/** @return the number of workers in the pool */
+	public static synchronized int getParallelism() {
+		return parallelism;
+	}
+
+	/** Queue an agent task on the pool, creating the pool on first use. */
+	static void execute(Runnable task) {
+		pool().execute(task);
+	}
+
+	private static synchronized ForkJoinPool pool() {
+		if (pool == null) {
+			// asyncMode: tasks that are never joined run in FIFO order
+			pool = new ForkJoinPool(parallelism,
+					ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true);
+		}
+		return pool;
+	}
+}
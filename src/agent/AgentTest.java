@@ -0,0 +1,141 @@
+package agent;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+/**
+ * Tests for agents run on the AgentExecutor pool: stateChanged() from many
+ * threads at once never runs an agent's scheduler on two workers at once,
+ * and never loses a wakeup.  In package agent, to call stateChanged().
+ */
+public class AgentTest extends TestCase {
+
+	/** Counts the work it is given, and whether its scheduler overlapped */
+	private static class CountingAgent extends Agent {
+		final AtomicInteger work = new AtomicInteger(); // given, not done yet
+		final AtomicInteger done = new AtomicInteger();
+		final AtomicInteger running = new AtomicInteger();
+		volatile boolean overlapped;
+
+		void giveWork() {
+			work.incrementAndGet();
+			stateChanged();
+		}
+
+		protected boolean pickAndExecuteAnAction() {
+			if (running.incrementAndGet() > 1) overlapped = true;
+			try {
+				if (work.get() == 0) {
+					Thread.yield(); // let more work come before the pass ends
+					return false;
+				}
+				work.decrementAndGet();
+				done.incrementAndGet();
+				Thread.yield(); // give another worker the chance to overlap
+				return true;
+			} finally {
+				running.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * 8 threads each give 4 pooled agents work 5000 times.  Every piece of
+	 * work gets done, so no wakeup was lost, and no agent's scheduler ever
+	 * ran on two workers at once.
+	 */
+	@Test
+	public void testManyThreadsStateChanged() throws InterruptedException {
+		final int threads = 8, agents = 4, each = 5000;
+		Agent.RuntimeMode mode = Agent.getRuntimeMode();
+		Agent.setRuntimeMode(Agent.RuntimeMode.pooled);
+		try {
+			try {
+				AgentExecutor.setParallelism(4); // overlap even on one core
+			} catch (IllegalStateException e) {
+				// the pool is already running, use it as it is
+			}
+			final CountingAgent[] counting = new CountingAgent[agents];
+			for (int a = 0; a < agents; a++) {
+				counting[a] = new CountingAgent();
+				counting[a].startThread();
+			}
+
+			Thread[] giving = new Thread[threads];
+			for (int t = 0; t < threads; t++) {
+				giving[t] = new Thread(new Runnable() {
+					public void run() {
+						for (int i = 0; i < each; i++)
+							counting[i % agents].giveWork();
+					}
+				});
+				giving[t].start();
+			}
+			for (Thread t : giving) t.join();
+
+			long giveUp = System.currentTimeMillis() + 10000;
+			for (CountingAgent a : counting) {
+				while (a.done.get() < threads*each/agents && System.currentTimeMillis() < giveUp)
+					Thread.sleep(10);
+				assertEquals("Every piece of work should be done, or a wakeup was lost",
+						threads*each/agents, a.done.get());
+				assertFalse("The scheduler should never run on two workers at once", a.overlapped);
+				a.stopThread();
+			}
+		} finally {
+			Agent.setRuntimeMode(mode);
+		}
+	}
+
+	/**
+	 * Work given just as the scheduler finishes its pass, over and over:
+	 * each piece is given once the last is done, so the wakeup races with
+	 * the end of the pass that did it.  None may be lost.
+	 */
+	@Test
+	public void testWakeupAtEndOfPass() throws InterruptedException {
+		final int agents = 4, rounds = 20000;
+		Agent.RuntimeMode mode = Agent.getRuntimeMode();
+		Agent.setRuntimeMode(Agent.RuntimeMode.pooled);
+		try {
+			final CountingAgent[] counting = new CountingAgent[agents];
+			final boolean[] lost = new boolean[agents];
+			Thread[] giving = new Thread[agents];
+			for (int a = 0; a < agents; a++) {
+				final CountingAgent agent = counting[a] = new CountingAgent();
+				final int index = a;
+				agent.startThread();
+				giving[a] = new Thread(new Runnable() {
+					public void run() {
+						for (int i = 1; i <= rounds; i++) {
+							agent.giveWork();
+							long giveUp = System.currentTimeMillis() + 5000;
+							while (agent.done.get() < i) {
+								if (System.currentTimeMillis() > giveUp) {
+									lost[index] = true;
+									return;
+								}
+								Thread.yield();
+							}
+						}
+					}
+				});
+				giving[a].start();
+			}
+			for (int a = 0; a < agents; a++) {
+				giving[a].join();
+				assertFalse("Agent " + a + " should get every wakeup", lost[a]);
+				assertEquals(rounds, counting[a].done.get());
+				assertFalse(counting[a].overlapped);
+				counting[a].stopThread();
+			}
+		} finally {
+			Agent.setRuntimeMode(mode);
+		}
+	}
+}
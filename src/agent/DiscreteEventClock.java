@@ -0,0 +1,251 @@
+package agent;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Discrete-event simulation clock.  Time only moves when runUntil() is
+ * driving it, and then only once every agent is idle (or sleeping on this
+ * clock): the clock jumps straight to the next scheduled event and fires
+ * it.  Events at the same time fire in the order they were scheduled, so
+ * a run is repeatable up to the interleaving of agent threads.  A task
+ * cancelled before its time is skipped, as on a java.util.Timer.
+ */
+public class DiscreteEventClock extends SimulationClock {
+
+	/** A scheduled timer task or sleeping agent */
+	private static class Event {
+		long time;
+		long seq; // tie breaker: scheduling order
+		TimerTask task; // null for a sleep wakeup
+		boolean fired;
+
+		Event(long time, long seq, TimerTask task) {
+			this.time = time;
+			this.seq = seq;
+			this.task = task;
+		}
+	}
+
+	private final PriorityQueue<Event> events = new PriorityQueue<Event>(64,
+			new Comparator<Event>() {
+				public int compare(Event a, Event b) {
+					if (a.time != b.time) {
+						return a.time < b.time ? -1 : 1;
+					}
+					return a.seq < b.seq ? -1 : (a.seq == b.seq ? 0 : 1);
+				}
+			});
+	private long now;
+	private long seq;
+	private int busy; // agents with work at the current time
+	private long eventsFired;
+	private ExecutorService taskRunner; // created on first task
+	private Timer parked; // holds scheduled tasks, never runs them (see schedule())
+
+	/** Create a clock starting at time 0 */
+	public DiscreteEventClock() {
+		this(0);
+	}
+
+	/** Create a clock starting at the given time */
+	public DiscreteEventClock(long startTime) {
+		now = startTime;
+	}
+
+	public synchronized long currentTimeMillis() {
+		return now;
+	}
+
+	public synchronized void schedule(TimerTask task, long delay) {
+		// a TimerTask only knows it was cancelled once a Timer has it, so
+		// give it to one that never runs it.  The driver takes it back with
+		// cancel() when it is due, which fails if the owner got there first.
+		if (parked == null) {
+			parked = new Timer("clock parked tasks", true);
+		}
+		parked.schedule(task, new Date(Long.MAX_VALUE));
+		events.add(new Event(now + Math.max(delay, 0), seq++, task));
+		notifyAll();
+	}
+
+	/** Sleep in simulation time.  Called from an agent's scheduler or a
+	 * timer task, the caller stops counting as busy until the wakeup fires.
+	 * Any other thread just waits for the wakeup.  On a pool worker the
+	 * pool is told it is blocked, so it can run other agents. */
+	public void sleep(long millis) throws InterruptedException {
+		final boolean counted = isCounted();
+		final Event wakeup;
+		synchronized (this) {
+			wakeup = new Event(now + Math.max(millis, 0), seq++, null);
+			events.add(wakeup);
+			if (counted) {
+				busy--;
+				notifyAll();
+			}
+		}
+		try {
+			ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+				public boolean block() throws InterruptedException {
+					synchronized (DiscreteEventClock.this) {
+						while (!wakeup.fired) {
+							DiscreteEventClock.this.wait();
+						}
+					}
+					return true;
+				}
+
+				public boolean isReleasable() {
+					synchronized (DiscreteEventClock.this) {
+						return wakeup.fired;
+					}
+				}
+			});
+		} finally {
+			synchronized (this) {
+				if (!wakeup.fired) { // interrupted
+					events.remove(wakeup);
+					if (counted) {
+						busy++;
+					}
+				} else if (!counted) {
+					// the driver counted the wakeup as busy, but nothing
+					// will tell it this thread went idle again
+					busy--;
+					notifyAll();
+				}
+			}
+		}
+	}
+
+	/** Acquire s, counting the caller as idle while it is blocked.  The
+	 * caller may resume a little after the release in simulation time if
+	 * the holder goes idle before the caller is scheduled.  A thread that
+	 * is not counted busy (see sleep()) just waits. */
+	public void acquire(final Semaphore s) throws InterruptedException {
+		// timed tryAcquire honours a fair semaphore's queue, which the
+		// agents rely on to take turns
+		if (s.tryAcquire(0, TimeUnit.MILLISECONDS)) {
+			return;
+		}
+		if (!isCounted()) {
+			s.acquire();
+			return;
+		}
+		agentIdle();
+		try {
+			ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+				private boolean acquired;
+
+				public boolean block() throws InterruptedException {
+					if (!acquired) {
+						s.acquire();
+						acquired = true;
+					}
+					return true;
+				}
+
+				public boolean isReleasable() {
+					if (!acquired) {
+						try {
+							acquired = s.tryAcquire(0, TimeUnit.MILLISECONDS);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt(); // block() will throw
+						}
+					}
+					return acquired;
+				}
+			});
+		} finally {
+			agentBusy();
+		}
+	}
+
+	protected synchronized void agentBusy() {
+		busy++;
+	}
+
+	protected synchronized void agentIdle() {
+		busy--;
+		notifyAll();
+	}
+
+	/**
+	 * Drive the simulation until the given time, or until nothing is left to
+	 * happen.  Waits for all agents to go idle before each jump.
+	 *
+	 * @param endTime
+	 *            simulation time to stop at
+	 * @return the simulation time when the run stopped
+	 */
+	public long runUntil(long endTime) throws InterruptedException {
+		while (true) {
+			Event next;
+			synchronized (this) {
+				while (busy > 0) {
+					wait();
+				}
+				next = events.peek();
+				if (next == null || next.time > endTime) {
+					if (next != null) {
+						now = endTime;
+					}
+					return now;
+				}
+				events.poll();
+				if (next.task != null) {
+					if (!next.task.cancel()) {
+						continue; // cancelled by its owner
+					}
+					parked.purge();
+				}
+				now = next.time;
+				eventsFired++;
+				busy++; // the woken agent or the task, until it goes idle
+				if (next.task == null) {
+					next.fired = true;
+					notifyAll();
+					continue;
+				}
+			}
+			runTask(next.task);
+		}
+	}
+
+	/** Tasks get their own thread, like a Timer's: they may sleep on this
+	 * clock (animation) and must not hold up the driver meanwhile. */
+	private void runTask(final TimerTask task) {
+		synchronized (this) {
+			if (taskRunner == null) {
+				taskRunner = Executors.newCachedThreadPool(new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "clock task");
+						t.setDaemon(true);
+						return t;
+					}
+				});
+			}
+		}
+		taskRunner.execute(new Runnable() {
+			public void run() {
+				setCounted(true);
+				try {
+					task.run();
+				} finally {
+					setCounted(false);
+					agentIdle();
+				}
+			}
+		});
+	}
+
+	/** @return the number of events fired so far */
+	public synchronized long getEventsFired() {
+		return eventsFired;
+	}
+
+	/** @return the number of timer tasks and sleeps still pending */
+	public synchronized int getPendingEvents() {
+		return events.size();
+	}
+}
@@ -0,0 +1,138 @@
+package agent;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimerTask;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+/**
+ * Tests for DiscreteEventClock: the order events fire in, time only moving
+ * once every agent is idle, cancelled tasks, and sleeping from a thread
+ * that is not an agent.  In package agent, to stand in for an agent with
+ * agentBusy() and agentIdle().
+ */
+public class DiscreteEventClockTest extends TestCase {
+
+	private DiscreteEventClock clock = new DiscreteEventClock();
+	private List<String> fired = new ArrayList<String>();
+
+	/** A task that notes its name and the time it ran at */
+	private TimerTask note(final String name) {
+		return new TimerTask() {
+			public void run() {
+				synchronized (fired) {
+					fired.add(name + "@" + clock.currentTimeMillis());
+				}
+			}
+		};
+	}
+
+	/** Start clock.runUntil(endTime) on its own thread */
+	private Thread drive(final long endTime) {
+		Thread driver = new Thread(new Runnable() {
+			public void run() {
+				try {
+					clock.runUntil(endTime);
+				} catch (InterruptedException e) {
+				}
+			}
+		});
+		driver.start();
+		return driver;
+	}
+
+	/**
+	 * Events fire in time order, those at the same time in the order they
+	 * were scheduled, and a task sleeping on the clock wakes in order too.
+	 */
+	@Test
+	public void testEventOrder() throws InterruptedException {
+		clock.schedule(note("c"), 30);
+		clock.schedule(note("a"), 10);
+		clock.schedule(note("b"), 10);
+		clock.schedule(new TimerTask() {
+			public void run() {
+				try {
+					clock.sleep(15);
+				} catch (InterruptedException e) {
+				}
+				note("slept").run();
+			}
+		}, 20);
+
+		assertEquals("The run should stop at the last event", 35, clock.runUntil(100));
+		assertEquals("[a@10, b@10, c@30, slept@35]", fired.toString());
+		assertEquals("Four tasks and a wakeup", 5, clock.getEventsFired());
+		assertEquals(0, clock.getPendingEvents());
+	}
+
+	/** While an agent is busy the clock waits, however long that takes. */
+	@Test
+	public void testTimeWaitsForBusyAgents() throws InterruptedException {
+		clock.schedule(note("a"), 10);
+		clock.agentBusy();
+		Thread driver = drive(100);
+		Thread.sleep(200);
+		assertEquals("Time shouldn't move while an agent is busy", 0, clock.currentTimeMillis());
+		assertTrue("Nothing should have fired", fired.isEmpty());
+
+		clock.agentIdle();
+		driver.join(5000);
+		assertFalse("The run should finish once the agent is idle", driver.isAlive());
+		assertEquals("[a@10]", fired.toString());
+		assertEquals(10, clock.currentTimeMillis());
+	}
+
+	/**
+	 * A task cancelled before its time doesn't run; one that has run can't
+	 * be cancelled.
+	 */
+	@Test
+	public void testCancel() throws InterruptedException {
+		TimerTask a = note("a");
+		TimerTask b = note("b");
+		clock.schedule(a, 10);
+		clock.schedule(b, 20);
+		assertTrue("Cancelling a task that hasn't run should say so", a.cancel());
+
+		clock.runUntil(100);
+		assertEquals("Only b should run", "[b@20]", fired.toString());
+		assertEquals(1, clock.getEventsFired());
+		assertFalse("b has run already", b.cancel());
+	}
+
+	/**
+	 * A thread that is not an agent can sleep on the clock without taking
+	 * a busy agent's place: time still waits for the agent, and the run
+	 * finishes once both are done.
+	 */
+	@Test
+	public void testSleepFromOutside() throws InterruptedException {
+		clock.agentBusy();
+		Thread driver = drive(100);
+		Thread sleeper = new Thread(new Runnable() {
+			public void run() {
+				try {
+					clock.sleep(10);
+				} catch (InterruptedException e) {
+				}
+				note("woke").run();
+			}
+		});
+		sleeper.start();
+		Thread.sleep(200);
+		assertEquals("Time shouldn't move while the agent is busy", 0, clock.currentTimeMillis());
+
+		clock.agentIdle();
+		sleeper.join(5000);
+		driver.join(5000);
+		assertEquals("[woke@10]", fired.toString());
+		assertFalse("The run should finish", driver.isAlive());
+		assertEquals(10, clock.currentTimeMillis());
+	}
+}
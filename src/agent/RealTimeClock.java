@@ -0,0 +1,41 @@
+package agent;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/** Simulation time is wall time.  This is the default clock. */
+public class RealTimeClock extends SimulationClock {
+	private Timer timer; // created on first schedule()
+
+	public long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	public synchronized void schedule(TimerTask task, long delay) {
+		if (timer == null) {
+			timer = new Timer("clock timer", true);
+		}
+		timer.schedule(task, delay);
+	}
+
+	public void sleep(final long millis) throws InterruptedException {
+		// on a pool worker, let the pool run other agents meanwhile
+		ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+			private boolean done;
+
+			public boolean block() throws InterruptedException {
+				Thread.sleep(millis);
+				done = true;
+				return true;
+			}
+
+			public boolean isReleasable() {
+				return done;
+			}
+		});
+	}
+
+	public boolean isRealTime() {
+		return true;
+	}
+}
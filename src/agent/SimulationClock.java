@@ -0,0 +1,74 @@
+package agent;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * The clock all simulated delays go through: agent timers (cooking,
+ * eating, breaks), waiter retry waits and animation delays.  The default
+ * RealTimeClock uses wall time.  A DiscreteEventClock runs the same
+ * simulation in virtual time, jumping straight to the next event whenever
+ * every agent is idle.
+ */
+public abstract class SimulationClock {
+	private static volatile SimulationClock clock = new RealTimeClock();
+	// set while the thread runs an agent's scheduler pass or a clock task,
+	// the work a discrete-event clock counts as busy
+	private static final ThreadLocal<Boolean> counted = new ThreadLocal<Boolean>() {
+		protected Boolean initialValue() {
+			return false;
+		}
+	};
+
+	/** @return the clock in use */
+	public static SimulationClock getClock() {
+		return clock;
+	}
+
+	/** Install a clock.  Should be called once at init time, before any
+	 * agent is started. */
+	public static void setClock(SimulationClock c) {
+		clock = c;
+	}
+
+	/** @return the current simulation time in milliseconds */
+	public abstract long currentTimeMillis();
+
+	/** Run task once after delay milliseconds of simulation time. */
+	public abstract void schedule(TimerTask task, long delay);
+
+	/** Block the calling agent for millis of simulation time. */
+	public abstract void sleep(long millis) throws InterruptedException;
+
+	/** Acquire a semaphore another agent may hold across a sleep.  On a
+	 * discrete-event clock the caller stops counting as busy while it is
+	 * blocked, so the holder's sleep can end. */
+	public void acquire(Semaphore s) throws InterruptedException {
+		s.acquire();
+	}
+
+	/** @return true if simulation time is wall time.  Agents skip all busy
+	 * and idle bookkeeping on a real-time clock. */
+	public boolean isRealTime() {
+		return false;
+	}
+
+	/** Mark the calling thread as doing counted work, or done with it. */
+	static void setCounted(boolean isCounted) {
+		counted.set(isCounted);
+	}
+
+	/** @return true if the calling thread is running an agent's scheduler
+	 * or a clock task, and so is counted busy while it does */
+	static boolean isCounted() {
+		return counted.get();
+	}
+
+	/** An agent has work to do at the current time. */
+	protected void agentBusy() {
+	}
+
+	/** An agent has finished all work it had at the current time. */
+	protected void agentIdle() {
+	}
+}
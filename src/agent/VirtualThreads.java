@@ -0,0 +1,49 @@
+package agent;
+
+import java.lang.reflect.*;
+
+/**
+ * Creates virtual threads when the running JVM has them (Java 21+).  Looked
+ * up reflectively so the agent package still builds on older JDKs.
+ */
+class VirtualThreads {
+	private static final Object builder; // Thread.Builder.OfVirtual, or null
+	private static Method name;
+	private static Method unstarted;
+
+	static {
+		Object b = null;
+		try {
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			b = Thread.class.getMethod("ofVirtual").invoke(null);
+			name = builderClass.getMethod("name", String.class);
+			unstarted = builderClass.getMethod("unstarted", Runnable.class);
+		} catch (Exception e) {
+			b = null; // not supported, callers fall back to platform threads
+		}
+		builder = b;
+	}
+
+	/** Don't construct. */
+	private VirtualThreads() {
+	}
+
+	/**
+	 * Create (but don't start) a virtual thread.
+	 *
+	 * @return the thread, or null if virtual threads are not supported
+	 */
+	static Thread unstarted(String threadName, Runnable task) {
+		if (builder == null) {
+			return null;
+		}
+		try {
+			synchronized (builder) { // builders are not thread safe
+				name.invoke(builder, threadName);
+				return (Thread) unstarted.invoke(builder, task);
+			}
+		} catch (Exception e) {
+			return null;
+		}
+	}
+}
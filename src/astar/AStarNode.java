@@ -6,7 +6,8 @@ public class AStarNode implements Node
 	private Position pos; //last position in path ; redundant
 	private double distTravelled;
 	private double approxTotalDist;
-	private List<Position> path; 
+	private AStarNode parent; //previous node in path, null at the start
+	private List<Position> path; //built from parent links on demand
 
 	public AStarNode(Position pos){
 	    if (pos==null) System.out.println("AStarNode constructor, pos is null?");
@@ -17,7 +18,7 @@ public class AStarNode implements Node
 	}
 	public String toString(){
 	    String t = "";
-	    for (Position p : path) t = t + p.toString();
+	    for (Position p : getPath()) t = t + p.toString();
 	    return "("+ approxTotalDist +","+distTravelled+",("+t+")";		    
 	}
 	public double getDistTravelled() {
@@ -33,8 +34,21 @@ public class AStarNode implements Node
 		//distCity is the straight line distance to B
 		approxTotalDist =  newApprox;
 	}
+	public AStarNode getParent() {
+		return parent;
+	}
+	public void setParent(AStarNode parent) {
+		this.parent = parent;
+	}
+	/** The path from the start to this node.  Walks the parent links
+	 *  the first time it is asked for, so only the goal pays for it. */
 	public List<Position> getPath() {
-		return path;
+	    if (path == null) {
+		LinkedList<Position> p = new LinkedList<Position>();
+		for (AStarNode n = this; n != null; n = n.parent) p.addFirst(n.pos);
+		path = new ArrayList<Position>(p);
+	    }
+	    return path;
 	}
 	public void setPath(List<Position> path) {
 	    this.path=path;
@@ -52,7 +66,7 @@ public class AStarNode implements Node
 	}
 	public String printPath() {
 	    String pp = "(";
-	    for (Position p:path) pp = pp + p;
+	    for (Position p:getPath()) pp = pp + p;
 	    return pp+")";
 	}
 
@@ -4,13 +4,98 @@ import java.util.concurrent.*;
 
 public class AStarTraversal extends GraphTraversal
 {
-    private Semaphore[][] grid;
+    static final double SQRT2 = Math.sqrt(2);
 
-    public AStarTraversal(Semaphore[][] grid){
+    /** How generalSearch finds paths.  aStar expands every open cell;
+     *  jumpPoint skips along straight and diagonal runs of open cells and
+     *  only stops where the path might have to turn; bidirectional
+     *  searches from both ends and stops where they meet.  All find
+     *  shortest paths of the same shape. */
+    public enum SearchMode {aStar, jumpPoint, bidirectional};
+
+    private OccupancyGrid grid;
+    private int cols;
+    private SearchMode searchMode = SearchMode.aStar;
+    private JumpPointSearch jumpPoint;
+    private BidirectionalSearch bidirectional;
+    private PathCache cache; //tried first, and fed what the hierarchy and search find
+    private FlowFields flowFields; //tried next, if set
+    private PathHierarchy hierarchy; //tried next, if set
+    private ReservationTable reservations; //for cooperativeSearch
+    private CooperativeSearch cooperative;
+    private int nodesExpanded; //by the last generalSearch
+
+    /** Work arrays for one search at a time, indexed by cell (see
+     *  index()).  A cell's entries only count if its mark is the current
+     *  search, so starting a search does not clear anything. */
+    static class Scratch {
+	int search;        //id of the current search
+	int start, goal;   //cells the current search is from and to
+	int[] mark;        //id of the last search that reached the cell
+	boolean[] closed;  //expanded
+	double[] dist;     //shortest distance travelled to the cell so far
+	double[] approx;   //dist + heuristic, the open list's key
+	int[] parent;      //cell we got here from, -1 at the start
+	IntHeap open;
+	int expanded;      //cells taken off the open list
+	private Scratch reverse; //for the backward half of a bidirectional search
+
+	Scratch(int cells){
+	    mark = new int[cells];
+	    closed = new boolean[cells];
+	    dist = new double[cells];
+	    approx = new double[cells];
+	    parent = new int[cells];
+	    open = new IntHeap(cells, approx);
+	}
+	/** Start a new search from cell start */
+	void begin(int start, double approxTotal){
+	    if (++search == Integer.MAX_VALUE) {
+		Arrays.fill(mark, 0);
+		search = 1;
+	    }
+	    open.clear();
+	    expanded = 0;
+	    this.start = start;
+	    reach(start, 0, approxTotal, -1);
+	    open.offer(start);
+	}
+	boolean reached(int cell) {return mark[cell] == search;}
+	/** A second set of arrays the same size, for searching the other way */
+	Scratch reverse(){
+	    if (reverse == null || reverse.mark.length < mark.length)
+		reverse = new Scratch(mark.length);
+	    return reverse;
+	}
+	void reach(int cell, double d, double approxTotal, int from){
+	    if (mark[cell] != search) {
+		mark[cell] = search;
+		closed[cell] = false;
+	    }
+	    dist[cell] = d;
+	    approx[cell] = approxTotal;
+	    parent[cell] = from;
+	}
+	//one set of work arrays per thread, grown to the largest grid seen
+	private static final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>();
+
+	/** The calling thread's scratch, with room for cells cells */
+	static Scratch forThread(int cells){
+	    Scratch s = scratch.get();
+	    if (s == null || s.mark.length < cells) {
+		s = new Scratch(cells);
+		scratch.set(s);
+	    }
+	    return s;
+	}
+    }
+
+    public AStarTraversal(OccupancyGrid grid){
 	super();
-	this.grid = grid; 
+	this.grid = grid;
+	cols = grid.getHeight();
 	//grid = new Object[1000][2000];
-	System.out.println("grid rows="+grid.length+",grid cols="+grid[0].length);
+	System.out.println("grid rows="+grid.getWidth()+",grid cols="+grid.getHeight());
 	nodes = new PriorityQueue<Node>(6, new Comparator<Node>()
 	{
 	    public int compare(Node a, Node b)
@@ -26,25 +111,240 @@ public class AStarTraversal extends GraphTraversal
 	}
 	);
     }
+    public AStarTraversal(OccupancyGrid grid, SearchMode searchMode){
+	this(grid);
+	setSearchMode(searchMode);
+    }
+    public SearchMode getSearchMode() {return searchMode;}
+    public void setSearchMode(SearchMode searchMode){
+	if (searchMode == SearchMode.jumpPoint && jumpPoint == null)
+	    jumpPoint = new JumpPointSearch(grid);
+	if (searchMode == SearchMode.bidirectional && bidirectional == null)
+	    bidirectional = new BidirectionalSearch(grid);
+	this.searchMode = searchMode;
+    }
+    /** Share the flow fields for this grid.  generalSearch then walks
+     *  down a field when it can and only searches when it can't. */
+    public void setFlowFields(FlowFields flowFields){
+	this.flowFields = flowFields;
+    }
+    public FlowFields getFlowFields() {return flowFields;}
+    /** Share a path cache with the other traversals on this grid.
+     *  generalSearch then hands out paths the hierarchy or a search has
+     *  found before, when they are clear, instead of planning again. */
+    public void setPathCache(PathCache cache){
+	this.cache = cache;
+    }
+    public PathCache getPathCache() {return cache;}
+    /** Share the cluster hierarchy for this grid.  generalSearch then
+     *  plans long trips over clusters when the flow fields can't help,
+     *  and searches cell by cell for short ones or when that fails. */
+    public void setPathHierarchy(PathHierarchy hierarchy){
+	this.hierarchy = hierarchy;
+    }
+    public PathHierarchy getPathHierarchy() {return hierarchy;}
+    /** Share a reservation table with the other traversals on this grid,
+     *  so their owners can plan round each other with cooperativeSearch */
+    public void setReservationTable(ReservationTable reservations){
+	if (reservations != null && cooperative == null)
+	    cooperative = new CooperativeSearch(grid);
+	this.reservations = reservations;
+    }
+    public ReservationTable getReservationTable() {return reservations;}
+    /**
+     * Plan owner's next moves from start towards end, avoiding what the
+     * others have reserved, and reserve them.  The plan starts at tick
+     * and runs to end or for the table's window, whichever comes first.
+     * Returns a node whose path has the cell to be in at each tick (the
+     * same cell twice means wait), or null if owner can't even stay put.
+     */
+    public AStarNode cooperativeSearch(Position from, Position to, long tick, int owner){
+	int[] cells;
+	//plans go in one at a time, each round the ones before it
+	synchronized (reservations) {
+	    cells = cooperative.search(reservations, flowFields,
+				       index(from.getX(), from.getY()),
+				       index(to.getX(), to.getY()), tick, owner);
+	    if (cells == null) return null;
+	    reservations.reserve(owner, cells, tick);
+	}
+	List<Position> path = new ArrayList<Position>(cells.length);
+	for (int c : cells) path.add(new Position(c / cols, c % cols));
+	AStarNode n = new AStarNode(path.get(path.size()-1));
+	n.setPath(path);
+	return n;
+    }
+    /** @return the number of cells the last generalSearch expanded */
+    public int getNodesExpanded() {return nodesExpanded;}
+    /**
+     * Search from start to end.  Returns an AStarNode for end whose path
+     * lists every cell from start to end, or null if there is no path.
+     */
+    public Node generalSearch(Object start, Object end) {
+	startingState = start;
+	endingState = end;
+	AStarNode n = findPath((Position) start, (Position) end);
+	nodesExpanded = Scratch.forThread(grid.getWidth()*cols).expanded;
+	return n;
+    }
+    /**
+     * generalSearch without keeping anything in the traversal: the work
+     * is done in the calling thread's Scratch and the shared helpers are
+     * thread safe, so any number of threads can share one traversal and
+     * call this at once.
+     */
+    public AStarNode findPath(Position from, Position to) {
+	Scratch s = Scratch.forThread(grid.getWidth()*cols);
+	s.expanded = 0;
+	if (cache != null) {
+	    List<Position> path = cache.get(from, to);
+	    if (path != null) return pathNode(path);
+	}
+	if (flowFields != null) {
+	    List<Position> path = flowFields.path(from, to);
+	    if (path != null) return pathNode(path);
+	}
+	if (hierarchy != null && hierarchy.isFar(from, to)) {
+	    List<Position> path = hierarchy.path(from, to);
+	    if (path != null) {
+		if (cache != null) cache.put(from, to, path);
+		return pathNode(path);
+	    }
+	}
+	int goal;
+	if (searchMode == SearchMode.jumpPoint) {
+	    goal = jumpPoint.search(s, from, to);
+	} else if (searchMode == SearchMode.bidirectional) {
+	    goal = bidirectional.search(s, from, to);
+	} else {
+	    goal = search(s, from, to);
+	}
+	if (goal == -1) {
+	    printMessage("Failed to find a path from " + from +
+			 " to " + to + ", sorry.", null);
+	    return null;
+	}
+	AStarNode n = goalNode(s, goal);
+	if (cache != null) cache.put(from, to, n.getPath());
+	return n;
+    }
+    /** The node generalSearch returns for a path found some other way */
+    private AStarNode pathNode(List<Position> path){
+	double d = 0;
+	for (int i = 1; i < path.size(); i++)
+	    d += path.get(i-1).distance(path.get(i));
+	AStarNode n = new AStarNode(path.get(path.size()-1));
+	n.setDistTravelled(d);
+	n.setApproxTotalDist(d);
+	n.setPath(path);
+	return n;
+    }
+    /**
+     * A* over cell ids: an IntHeap for the open list and the calling
+     * thread's Scratch arrays for everything else, so nothing is
+     * allocated.  Returns the goal's cell, or -1.
+     */
+    private int search(Scratch s, Position from, Position to){
+	int goalX = to.getX();
+	int goalY = to.getY();
+	int goal = index(goalX, goalY);
+	s.begin(index(from.getX(), from.getY()),
+		octile(from.getX(), from.getY(), goalX, goalY));
+	int rows = grid.getWidth();
+	while (!s.open.isEmpty()) {
+	    int cell = s.open.poll();
+	    if (cell == goal) return goal;
+	    s.closed[cell] = true;
+	    s.expanded++;
+	    int x = cell / cols;
+	    int y = cell - x*cols;
+	    for(int i = -1; i <= 1; i++) {
+		int nextX = x+i;
+		if (nextX < 0 || nextX >= rows) continue;
+		for (int j = -1; j <= 1; j++) {
+		    int nextY = y+j;
+		    if (nextY < 0 || nextY >= cols) continue;
+		    int next = cell + i*cols + j;
+		    if (s.reached(next) && s.closed[next]) continue;
+		    if (!grid.isFree(nextX, nextY)) continue;
+		    double d = s.dist[cell] + (i != 0 && j != 0 ? SQRT2 : 1);
+		    if (s.reached(next) && d >= s.dist[next]) continue;
+		    s.reach(next, d, d + octile(nextX, nextY, goalX, goalY), cell);
+		    s.open.offer(next);
+		}
+	    }
+	}
+	return -1;
+    }
+    /** Builds the goal node.  Consecutive parents may be a straight or
+     *  diagonal jump apart (jump point search); the cells in between are
+     *  filled in so the path always moves one cell at a time. */
+    private AStarNode goalNode(Scratch s, int goal){
+	int length = 1;
+	for (int c = goal; s.parent[c] != -1; c = s.parent[c])
+	    length += steps(c, s.parent[c]);
+	Position[] path = new Position[length];
+	int c = goal;
+	int x = c / cols;
+	int y = c % cols;
+	path[--length] = new Position(x, y);
+	while (s.parent[c] != -1) {
+	    int p = s.parent[c];
+	    int px = p / cols;
+	    int py = p % cols;
+	    int dx = Integer.signum(px - x);
+	    int dy = Integer.signum(py - y);
+	    while (x != px || y != py) {
+		x += dx;
+		y += dy;
+		path[--length] = new Position(x, y);
+	    }
+	    c = p;
+	}
+	AStarNode n = new AStarNode(path[path.length-1]);
+	n.setDistTravelled(s.dist[goal]);
+	n.setApproxTotalDist(s.dist[goal]);
+	n.setPath(new ArrayList<Position>(Arrays.asList(path)));
+	return n;
+    }
+    private int steps(int a, int b){
+	return Math.max(Math.abs(a / cols - b / cols), Math.abs(a % cols - b % cols));
+    }
+    /** Octile distance: the exact length of the shortest 8-way path with
+     *  no obstacles, when straight steps cost 1 and diagonals sqrt(2). */
+    static double octile(int x, int y, int toX, int toY){
+	int dx = Math.abs(toX - x);
+	int dy = Math.abs(toY - y);
+	return dx > dy ? dx + (SQRT2-1)*dy : dy + (SQRT2-1)*dx;
+    }
+    private double octile(Position p, Position to){
+	return octile(p.getX(), p.getY(), to.getX(), to.getY());
+    }
+
+    //The node based steps below drive GraphTraversal's generic search
+    //loop.  generalSearch above does the same search without them.
     public AStarNode createStartNode(Object state){
 	Position p = (Position) state;
 	AStarNode n = new AStarNode(p);
 	n.setDistTravelled(0);
-	n.setApproxTotalDist(p.distance((Position)getEndingState()));
-	List<Position> path = new ArrayList<Position>();
-	path.add(p);
-	n.setPath(path);
+	n.setApproxTotalDist(octile(p, (Position)getEndingState()));
+	//new search: forget the last one
+	Scratch.forThread(grid.getWidth()*cols).begin(index(p.getX(), p.getY()), n.getApproxTotalDist());
 	//System.out.print("createStartNode"); n.printNode();
 	return n;
     }
     public List<Node> expandFunc(Node n) {
 	AStarNode node = (AStarNode) n;
+	Scratch s = Scratch.forThread(grid.getWidth()*cols);
 	//loop computes the positions you can get to from node
 	List<Node> expandedNodes = new ArrayList<Node>();
-	List<Position> path = node.getPath();
 	Position pos = node.getPosition();
 	int x = pos.getX();
 	int y = pos.getY();
+	//a cell can be queued more than once, the first one off the queue
+	//is the shortest and the rest are stale
+	if (s.closed[index(x,y)]) return expandedNodes;
+	s.closed[index(x,y)] = true;
 	//this next pair of loops will create all the possible moves
 	//from pos.
 	for(int i = -1; i <= 1; i++) {//increment for x direction
@@ -53,34 +353,38 @@ public class AStarTraversal extends GraphTraversal
 		int nextX=x+i;
 		int nextY=y+j;
 		//make sure next point is on the grid
-		if ((nextX+1>grid.length || nextY+1>grid[0].length) ||
+		if ((nextX+1>grid.getWidth() || nextY+1>grid.getHeight()) ||
 		      (nextX<0 || nextY<0)) continue;
+		int cell = index(nextX,nextY);
+		if (s.reached(cell) && s.closed[cell]) continue;
 		Position next = new Position(nextX,nextY);
 		//System.out.println("considering"+next);
-		if (inPath(next,path) || !next.open(grid) ) continue;
+		if (!next.open(grid) ) continue;
+		//only queue next if this is the shortest way there yet
+		double distTravelled = node.getDistTravelled()+pos.distance(next);
+		if (s.reached(cell) && distTravelled >= s.dist[cell]) continue;
 		//printCurrentList();
 		//System.out.println("available"+next);
 		AStarNode nodeTemp = new AStarNode(next);
 
 		//update distance travelled
-		nodeTemp.setDistTravelled(
-                        node.getDistTravelled()+pos.distance(next));
+		nodeTemp.setDistTravelled(distTravelled);
 		//update approximate total distance to destination
-		//note that we are computing the straight-line
+		//note that we are computing the octile
 		//heuristic on the fly right here from next to endingState
 		nodeTemp.setApproxTotalDist(
-			nodeTemp.getDistTravelled() + next.distance((Position)endingState));	
-		//update internal path
-		nodeTemp.updatePath(path);
+			nodeTemp.getDistTravelled() + octile(next, (Position)endingState));
+		s.reach(cell, distTravelled, nodeTemp.getApproxTotalDist(), index(x,y));
+		//link back to node; the path is built once we reach the goal
+		nodeTemp.setParent(node);
 		expandedNodes.add(nodeTemp);//could have just added
-					    //them directly to nodelist 
+					    //them directly to nodelist
 	    }
 	}
 	return expandedNodes;
     }//end expandFunc
-    private boolean inPath (Position pos, List<Position> path){
-	for (Position n:path) {if (pos.equals(n)) return true;};
-	return false;
+    private int index(int x, int y){
+	return x*cols + y;
     }
     public void printCurrentList() {
 	PriorityQueue<Node> pq = new PriorityQueue<Node>(nodes);
@@ -97,5 +401,5 @@ public class AStarTraversal extends GraphTraversal
 	    old.offer((AStarNode)m);
 	}
     }
-    public Semaphore[][] getGrid(){return grid;}
+    public OccupancyGrid getGrid(){return grid;}
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+package astar;
+
+/**
+ * Bidirectional A*, the AStarTraversal.SearchMode.bidirectional engine.
+ * One search goes forward from the start and one back from the goal,
+ * always growing whichever has the smaller open list (so a goal tucked
+ * away behind the counter fills its corner instead of the start filling
+ * the floor), and every time one reaches a cell the other already has,
+ * that is a way through.  Both use the same potential, half the
+ * difference of the octile distances to the goal and from the start
+ * (Goldberg and Harrelson's average potential), so they can stop as soon
+ * as the two smallest keys add up to the best way through found: nothing
+ * left open can beat it.
+ */
+class BidirectionalSearch
+{
+    private OccupancyGrid grid;
+    private int rows, cols;
+
+    BidirectionalSearch(OccupancyGrid grid){
+	this.grid = grid;
+	rows = grid.getWidth();
+	cols = grid.getHeight();
+    }
+    /**
+     * Search with the thread's scratch arrays, forward in s and backward
+     * in s.reverse().  When it finds a path, the cells the backward search
+     * took are linked into s, so parents in s run from the goal to the
+     * start.  Returns the goal's cell, or -1.
+     */
+    int search(AStarTraversal.Scratch s, Position from, Position to){
+	int start = from.getX()*cols + from.getY();
+	int goal = to.getX()*cols + to.getY();
+	s.goal = goal;
+	if (!grid.isFree(to.getX(), to.getY()) && start != goal) {
+	    s.expanded = 0;
+	    return -1;
+	}
+	AStarTraversal.Scratch b = s.reverse();
+	b.goal = start;
+	s.begin(start, potential(start, start, goal));
+	b.begin(goal, -potential(goal, start, goal));
+	double best = start == goal ? 0 : Double.POSITIVE_INFINITY;
+	int meet = start;
+	while (!s.open.isEmpty() && !b.open.isEmpty()) {
+	    int top = s.open.get(0);
+	    int bottom = b.open.get(0);
+	    if (s.approx[top] + b.approx[bottom] >= best) break;
+	    boolean forward = s.open.size() <= b.open.size();
+	    AStarTraversal.Scratch here = forward ? s : b;
+	    AStarTraversal.Scratch there = forward ? b : s;
+	    int cell = here.open.poll();
+	    here.closed[cell] = true;
+	    here.expanded++;
+	    int x = cell / cols;
+	    int y = cell - x*cols;
+	    for (int i = -1; i <= 1; i++) {
+		int nextX = x+i;
+		if (nextX < 0 || nextX >= rows) continue;
+		for (int j = -1; j <= 1; j++) {
+		    int nextY = y+j;
+		    if (nextY < 0 || nextY >= cols) continue;
+		    int next = cell + i*cols + j;
+		    if (next == cell) continue;
+		    if (here.reached(next) && here.closed[next]) continue;
+		    //going back we may step onto the start, where the searcher stands
+		    if (next != start && !grid.isFree(nextX, nextY)) continue;
+		    double d = here.dist[cell] + (i != 0 && j != 0 ? AStarTraversal.SQRT2 : 1);
+		    if (here.reached(next) && d >= here.dist[next]) continue;
+		    double p = potential(next, start, goal);
+		    here.reach(next, d, d + (forward ? p : -p), cell);
+		    here.open.offer(next);
+		    if (there.reached(next) && d + there.dist[next] < best) {
+			best = d + there.dist[next];
+			meet = next;
+		    }
+		}
+	    }
+	}
+	s.expanded += b.expanded;
+	if (best == Double.POSITIVE_INFINITY) return -1;
+	//hang the backward half off the forward one
+	int prev = meet;
+	for (int c = b.parent[meet]; c != -1; c = b.parent[c]) {
+	    double d = s.dist[prev] + b.dist[prev] - b.dist[c];
+	    s.reach(c, d, d, prev);
+	    prev = c;
+	}
+	return goal;
+    }
+    /** The forward search's potential at cell; the backward one's is minus this */
+    private double potential(int cell, int start, int goal){
+	int x = cell / cols;
+	int y = cell - x*cols;
+	return (AStarTraversal.octile(x, y, goal / cols, goal % cols) -
+		AStarTraversal.octile(x, y, start / cols, start % cols)) / 2;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,115 @@
+package astar;
+import java.util.*;
+
+/**
+ * Windowed space-time A* (WHCA*), the engine behind
+ * AStarTraversal.cooperativeSearch.  States are (cell, tick); from each
+ * one you can step to a neighbour or wait where you are, as long as the
+ * ReservationTable says the cell is free at the next tick and nobody is
+ * swapping places with you.  The search stops at the goal, or at the end
+ * of the window with the best partial plan.  The heuristic is the true
+ * distance over the layout when flow fields are shared, else octile.
+ */
+class CooperativeSearch
+{
+    /** A cell at a tick of the plan */
+    private static class State {
+	int cell;
+	int t;          //ticks from the start of the plan
+	double g, f;
+	State parent;
+
+	State(int cell, int t, double g, double f, State parent){
+	    this.cell = cell;
+	    this.t = t;
+	    this.g = g;
+	    this.f = f;
+	    this.parent = parent;
+	}
+    }
+
+    private OccupancyGrid grid;
+    private int rows, cols, cells;
+
+    CooperativeSearch(OccupancyGrid grid){
+	this.grid = grid;
+	rows = grid.getWidth();
+	cols = grid.getHeight();
+	cells = rows*cols;
+    }
+    /**
+     * Plan for owner from start towards goal, starting at tick.
+     * @return the cell to be in at each tick from tick on (a repeat means
+     *         wait), or null if owner can't even stay put
+     */
+    int[] search(ReservationTable table, FlowFields flowFields,
+		 int start, int goal, long tick, int owner){
+	int window = table.getWindow();
+	int goalX = goal / cols;
+	int goalY = goal % cols;
+	Map<Long, State> best = new HashMap<Long, State>();
+	PriorityQueue<State> open = new PriorityQueue<State>(64, new Comparator<State>()
+	{
+	    public int compare(State a, State b)
+	    {
+		if (a.f != b.f) return a.f < b.f ? -1 : 1;
+		//same estimate: the one further along first
+		return a.g > b.g ? -1 : (a.g < b.g ? 1 : 0);
+	    }
+	});
+	State first = new State(start, 0, 0, heuristic(flowFields, start, goalX, goalY), null);
+	best.put((long) start, first);
+	open.add(first);
+	while (!open.isEmpty()) {
+	    State s = open.poll();
+	    if (best.get((long) s.t*cells + s.cell) != s) continue; //stale
+	    if (s.cell == goal || s.t == window) return path(s);
+	    int x = s.cell / cols;
+	    int y = s.cell - x*cols;
+	    for (int i = -1; i <= 1; i++) {
+		int nextX = x+i;
+		if (nextX < 0 || nextX >= rows) continue;
+		for (int j = -1; j <= 1; j++) {
+		    int nextY = y+j;
+		    if (nextY < 0 || nextY >= cols) continue;
+		    int next = s.cell + i*cols + j;
+		    if (next != s.cell && !passable(table, nextX, nextY, owner)) continue;
+		    if (!table.canMove(s.cell, next, tick + s.t, owner)) continue;
+		    //waiting costs a tick, like a straight step
+		    double g = s.g + (i != 0 && j != 0 ? AStarTraversal.SQRT2 : 1);
+		    long key = (long) (s.t+1)*cells + next;
+		    State old = best.get(key);
+		    if (old != null && old.g <= g) continue;
+		    double h = heuristic(flowFields, next, goalX, goalY);
+		    if (h == Double.POSITIVE_INFINITY) continue;
+		    State n = new State(next, s.t+1, g, g + h, s);
+		    best.put(key, n);
+		    open.add(n);
+		}
+	    }
+	}
+	return null;
+    }
+    /** Free, or held by someone who plans with the table (they will be
+     *  where their reservations say) */
+    private boolean passable(ReservationTable table, int x, int y, int owner){
+	if (grid.isFree(x, y)) return true;
+	int who = grid.getOwner(x, y);
+	return who == owner ||
+	    (who != OccupancyGrid.NO_OWNER && table.isPlanning(who));
+    }
+    private double heuristic(FlowFields flowFields, int cell, int goalX, int goalY){
+	int x = cell / cols;
+	int y = cell - x*cols;
+	if (flowFields != null) {
+	    double d = flowFields.distance(x, y, goalX, goalY);
+	    if (d >= 0) return d;
+	}
+	return AStarTraversal.octile(x, y, goalX, goalY);
+    }
+    private int[] path(State end){
+	int[] path = new int[end.t + 1];
+	for (State s = end; s != null; s = s.parent) path[s.t] = s.cell;
+	return path;
+    }
+}
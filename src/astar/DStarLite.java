@@ -0,0 +1,313 @@
+package astar;
+import java.util.*;
+
+/**
+ * Incremental replanner (D* Lite, Koenig and Likhachev) for one walker
+ * on an OccupancyGrid.  It searches back from the goal and keeps its g
+ * and rhs values between calls, so when the walker finds its way
+ * blocked, plan() to the same goal only repairs the part of the search
+ * the change touches instead of searching again.  A new goal starts a
+ * fresh search.
+ *
+ * The planner works on its own view of which cells are blocked: the
+ * grid as it was when the search started, cells reported by
+ * setBlocked(), and whatever it sees changed within one cell of the
+ * walker each time plan() is called.  After rescan() it also looks again
+ * at the cells it last saw another walker on (claimed with an owner id)
+ * and the cells of its last path, not the whole grid; a table taken away
+ * meanwhile is only seen when the next goal starts a fresh search.  The
+ * walker's own cell always counts as free.
+ *
+ * Its arrays (about 34 bytes a cell) are only made the first time it
+ * plans, so a walker that is never blocked never pays for them.
+ */
+public class DStarLite
+{
+    private static final double INF = Double.POSITIVE_INFINITY;
+    private static final int SENSE = 1; //look this far round the walker
+    //keys are sums of diagonals, so equal keys can come out a hair apart
+    private static final double EPSILON = 1e-9;
+
+    /** A queued cell and the key it was queued with */
+    private static class Entry {
+	double k1, k2;
+	int cell;
+
+	Entry(double k1, double k2, int cell){
+	    this.k1 = k1;
+	    this.k2 = k2;
+	    this.cell = cell;
+	}
+    }
+
+    private OccupancyGrid grid;
+    private int rows, cols;
+    private double[] g, rhs;
+    private double[] key1, key2;  //key each open cell was queued with
+    private boolean[] open;
+    private boolean[] blocked;    //the planner's view of the floor
+    private PriorityQueue<Entry> queue;
+    private List<Integer> reported = new ArrayList<Integer>(); //by setBlocked
+    private boolean rescan;       //look again at taken and lastPath on the next plan()
+    private List<Integer> taken = new ArrayList<Integer>(); //blocked by a walker, or reported
+    private boolean[] watched;    //in taken
+    private int[] lastPath = new int[0];
+    private int start, goal = -1, lastStart;
+    private double km;            //heuristic offset as the walker moves
+    private int expanded;
+
+    public DStarLite(OccupancyGrid grid){
+	this.grid = grid;
+	rows = grid.getWidth();
+	cols = grid.getHeight();
+	queue = new PriorityQueue<Entry>(64, new Comparator<Entry>()
+	{
+	    public int compare(Entry a, Entry b)
+	    {
+		if (less(a.k1, a.k2, b.k1, b.k2)) return -1;
+		return less(b.k1, b.k2, a.k1, a.k2) ? 1 : 0;
+	    }
+	});
+    }
+
+    /**
+     * The shortest path from from to to, as generalSearch would return it,
+     * or null if there is none as far as the planner knows.  Reuses the
+     * last search if to is the same goal.
+     */
+    public List<Position> plan(Position from, Position to){
+	int s = from.getX()*cols + from.getY();
+	int t = to.getX()*cols + to.getY();
+	expanded = 0;
+	if (t != goal) {
+	    start(s, t);
+	} else {
+	    km += h(lastStart, s);
+	    lastStart = s;
+	    start = s;
+	    for (int c : reported) change(c, true);
+	    reported.clear();
+	    if (rescan) recheck();
+	    sense();
+	}
+	rescan = false;
+	computeShortestPath();
+	if (g[start] == INF) return null;
+	return path();
+    }
+    /** Tell the planner (x,y) is blocked; it takes effect on the next plan() */
+    public void setBlocked(int x, int y){
+	reported.add(x*cols + y);
+    }
+    /**
+     * Have the next plan() to the same goal look again at the cells it
+     * last saw someone on and the cells of its last path, not just those
+     * round the walker, for when the walker has been away or waiting.
+     * It still only repairs the search where something changed.
+     */
+    public void rescan(){
+	rescan = true;
+    }
+    /** Forget everything; the next plan() searches from scratch */
+    public void reset(){
+	goal = -1;
+	reported.clear();
+    }
+    /** @return the number of cells the last plan() expanded */
+    public int getNodesExpanded() {return expanded;}
+
+    private void start(int s, int t){
+	if (g == null) {
+	    int cells = rows*cols;
+	    g = new double[cells];
+	    rhs = new double[cells];
+	    key1 = new double[cells];
+	    key2 = new double[cells];
+	    open = new boolean[cells];
+	    blocked = new boolean[cells];
+	    watched = new boolean[cells];
+	}
+	start = lastStart = s;
+	goal = t;
+	km = 0;
+	for (int c : taken) watched[c] = false;
+	taken.clear();
+	for (int x = 0; x < rows; x++)
+	    for (int y = 0; y < cols; y++) {
+		int c = x*cols + y;
+		blocked[c] = !grid.isFree(x, y);
+		if (blocked[c] && grid.getOwner(x, y) != OccupancyGrid.NO_OWNER) watch(c);
+	    }
+	blocked[start] = false;
+	for (int c : reported) {
+	    blocked[c] = true;
+	    watch(c);
+	}
+	reported.clear();
+	Arrays.fill(g, INF);
+	Arrays.fill(rhs, INF);
+	Arrays.fill(open, false);
+	queue.clear();
+	rhs[goal] = 0;
+	insert(goal);
+    }
+    /** Pick up changes round the walker */
+    private void sense(){
+	int x = start / cols;
+	int y = start % cols;
+	sense(Math.max(0, x-SENSE), Math.min(rows-1, x+SENSE),
+	      Math.max(0, y-SENSE), Math.min(cols-1, y+SENSE));
+    }
+    /** Pick up changes in rows x0..x1, columns y0..y1 */
+    private void sense(int x0, int x1, int y0, int y1){
+	for (int i = x0; i <= x1; i++)
+	    for (int j = y0; j <= y1; j++) {
+		int c = i*cols + j;
+		boolean now = c != start && !grid.isFree(i, j);
+		if (now != blocked[c]) change(c, now);
+	    }
+    }
+    /** Look again at the cells in taken and on the last path */
+    private void recheck(){
+	List<Integer> cells = new ArrayList<Integer>(taken);
+	for (int c : taken) watched[c] = false;
+	taken.clear();
+	for (int c : cells) look(c);
+	for (int c : lastPath) look(c);
+    }
+    private void look(int c){
+	boolean now = c != start && !grid.isFree(c / cols, c % cols);
+	if (now != blocked[c]) change(c, now);
+	else if (now) watch(c);
+    }
+    private void watch(int c){
+	if (watched[c]) return;
+	watched[c] = true;
+	taken.add(c);
+    }
+    /** c is now blocked (or free): every edge in and out of it changed */
+    private void change(int c, boolean isBlocked){
+	if (isBlocked) watch(c);
+	if (blocked[c] == isBlocked) return;
+	blocked[c] = isBlocked;
+	updateVertex(c);
+	int x = c / cols;
+	int y = c % cols;
+	for (int i = -1; i <= 1; i++)
+	    for (int j = -1; j <= 1; j++) {
+		int n = neighbour(x, y, i, j);
+		if (n != -1 && n != c) updateVertex(n);
+	    }
+    }
+    private void computeShortestPath(){
+	while (true) {
+	    Entry top = top();
+	    double s1 = Math.min(g[start], rhs[start]) + km;
+	    double s2 = Math.min(g[start], rhs[start]);
+	    boolean startBehind = top != null && less(top.k1, top.k2, s1, s2);
+	    if (!startBehind && rhs[start] == g[start]) return;
+	    if (top == null) return;
+	    queue.poll();
+	    int u = top.cell;
+	    open[u] = false;
+	    expanded++;
+	    double k1 = Math.min(g[u], rhs[u]) + h(start, u) + km;
+	    double k2 = Math.min(g[u], rhs[u]);
+	    if (less(top.k1, top.k2, k1, k2)) {
+		insert(u);
+	    } else if (g[u] > rhs[u]) {
+		g[u] = rhs[u];
+		updateNeighbours(u);
+	    } else {
+		g[u] = INF;
+		updateVertex(u);
+		updateNeighbours(u);
+	    }
+	}
+    }
+    private void updateNeighbours(int u){
+	int x = u / cols;
+	int y = u % cols;
+	for (int i = -1; i <= 1; i++)
+	    for (int j = -1; j <= 1; j++) {
+		int n = neighbour(x, y, i, j);
+		if (n != -1 && n != u) updateVertex(n);
+	    }
+    }
+    private void updateVertex(int u){
+	if (u != goal) {
+	    double best = INF;
+	    int x = u / cols;
+	    int y = u % cols;
+	    for (int i = -1; i <= 1; i++)
+		for (int j = -1; j <= 1; j++) {
+		    int n = neighbour(x, y, i, j);
+		    if (n == -1 || n == u) continue;
+		    best = Math.min(best, cost(u, n, i, j) + g[n]);
+		}
+	    rhs[u] = best;
+	}
+	open[u] = false; //any queued entry is now stale
+	if (g[u] != rhs[u]) insert(u);
+    }
+    private void insert(int u){
+	key2[u] = Math.min(g[u], rhs[u]);
+	key1[u] = key2[u] + h(start, u) + km;
+	open[u] = true;
+	queue.add(new Entry(key1[u], key2[u], u));
+    }
+    /** The smallest live entry, dropping stale ones */
+    private Entry top(){
+	Entry e;
+	while ((e = queue.peek()) != null &&
+	       (!open[e.cell] || e.k1 != key1[e.cell] || e.k2 != key2[e.cell]))
+	    queue.poll();
+	return e;
+    }
+    /** Walk down g from the start */
+    private List<Position> path(){
+	List<Position> path = new ArrayList<Position>();
+	int c = start;
+	path.add(new Position(c / cols, c % cols));
+	while (c != goal && path.size() <= rows*cols) {
+	    int x = c / cols;
+	    int y = c % cols;
+	    int next = -1;
+	    double best = INF;
+	    for (int i = -1; i <= 1; i++)
+		for (int j = -1; j <= 1; j++) {
+		    int n = neighbour(x, y, i, j);
+		    if (n == -1 || n == c) continue;
+		    double d = cost(c, n, i, j) + g[n];
+		    if (d < best) {
+			best = d;
+			next = n;
+		    }
+		}
+	    if (next == -1) return null;
+	    c = next;
+	    path.add(new Position(c / cols, c % cols));
+	}
+	lastPath = new int[path.size()];
+	for (int i = 0; i < lastPath.length; i++)
+	    lastPath[i] = path.get(i).getX()*cols + path.get(i).getY();
+	return path;
+    }
+    private int neighbour(int x, int y, int i, int j){
+	int nx = x+i;
+	int ny = y+j;
+	if (nx < 0 || ny < 0 || nx >= rows || ny >= cols) return -1;
+	return nx*cols + ny;
+    }
+    private double cost(int u, int v, int i, int j){
+	if (blocked[u] || blocked[v]) return INF;
+	return i != 0 && j != 0 ? AStarTraversal.SQRT2 : 1;
+    }
+    private double h(int a, int b){
+	return AStarTraversal.octile(a / cols, a % cols, b / cols, b % cols);
+    }
+    private static boolean less(double a1, double a2, double b1, double b2){
+	if (Math.abs(a1 - b1) > EPSILON) return a1 < b1;
+	return a2 < b2 - EPSILON;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,178 @@
+package astar;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Distance fields to the fixed destinations that are searched for over
+ * and over (tables, counter, wait area, a waiter's home cell), each added
+ * with addDestination(); a search to anywhere else gets no help here.
+ * The first search to a destination runs one reverse Dijkstra from it
+ * over the layout, the cells that were blocked when this was made, plus
+ * or minus whatever layoutChanged() has been told since.  After that the
+ * next step from any cell is a single lookup.
+ *
+ * A field is built outside the lock, so searches to other destinations
+ * carry on meanwhile; searches to the same one wait for it.  Fields are
+ * kept for as many destinations as fit in MAX_CELLS cells in all, the
+ * least recently used going first.
+ *
+ * A field ignores who is standing where.  path() checks the cells on the
+ * way are free right now and gives up if not, and the caller falls back
+ * to a search that routes round them.  Shared by all the traversals on
+ * one grid.
+ */
+public class FlowFields implements LayoutListener
+{
+    //fields for at most this many cells in all (12 bytes each), least
+    //recently used go
+    private static final int MAX_CELLS = 1 << 22;
+
+    /** Next step towards one destination from every cell */
+    private static class Field {
+	int[] next;     //cell to step to, -1 if the destination is unreachable
+	double[] dist;  //distance left to the destination
+    }
+
+    private OccupancyGrid grid;
+    private int rows, cols;
+    private boolean[] blocked; //the layout; copied, not changed, once a build may have it
+    private Set<Integer> destinations = new HashSet<Integer>();
+    private Map<Integer, FutureTask<Field>> fields;
+    private int fieldsBuilt;
+
+    /** Takes the layout from the cells blocked in grid now, so make it
+     *  once the floor is built and before anyone moves about on it. */
+    public FlowFields(OccupancyGrid grid){
+	this.grid = grid;
+	rows = grid.getWidth();
+	cols = grid.getHeight();
+	final int maxFields = Math.max(1, MAX_CELLS / (rows*cols));
+	fields = new LinkedHashMap<Integer, FutureTask<Field>>(16, 0.75f, true) {
+	    protected boolean removeEldestEntry(Map.Entry<Integer, FutureTask<Field>> e) {
+		return size() > maxFields;
+	    }
+	};
+	blocked = new boolean[rows*cols];
+	for (int x = 0; x < rows; x++)
+	    for (int y = 0; y < cols; y++)
+		blocked[x*cols + y] = !grid.isFree(x, y);
+    }
+    /** The size x size square at (x,y) was blocked (a table was put
+     *  there) or freed.  Drops every field. */
+    public synchronized void layoutChanged(int x, int y, int size, boolean isBlocked){
+	blocked = blocked.clone();
+	for (int i = x; i < x + size && i < rows; i++)
+	    for (int j = y; j < y + size && j < cols; j++)
+		blocked[i*cols + j] = isBlocked;
+	fields.clear();
+    }
+    /** Keep a field for searches to (x,y) */
+    public synchronized void addDestination(int x, int y){
+	destinations.add(x*cols + y);
+    }
+    public void addDestination(Position p){
+	addDestination(p.getX(), p.getY());
+    }
+    /**
+     * The path from from to to down the field, as the list of cells
+     * generalSearch returns, or null if to isn't a destination, the layout
+     * has no way there or a cell on the way (not counting from) is taken
+     * right now.
+     */
+    public List<Position> path(Position from, Position to){
+	int start = from.getX()*cols + from.getY();
+	int goal = to.getX()*cols + to.getY();
+	Field f = field(goal);
+	if (f == null || (start != goal && f.next[start] == -1)) return null;
+	List<Position> path = new ArrayList<Position>();
+	path.add(from);
+	for (int c = start; c != goal; ) {
+	    c = f.next[c];
+	    int x = c / cols;
+	    int y = c - x*cols;
+	    if (!grid.isFree(x, y)) return null;
+	    path.add(new Position(x, y));
+	}
+	return path;
+    }
+    /** @return the distance from (x,y) to (toX,toY) over the layout,
+     *  infinity if there is no way, or -1 if (toX,toY) has no field */
+    public double distance(int x, int y, int toX, int toY){
+	int goal = toX*cols + toY;
+	Field f = field(goal);
+	int c = x*cols + y;
+	if (f == null) return blocked(goal) ? Double.POSITIVE_INFINITY : -1;
+	if (f.next[c] == -1 && c != goal)
+	    return Double.POSITIVE_INFINITY;
+	return f.dist[c];
+    }
+    /** @return how many fields have been built, for tuning */
+    public synchronized int getFieldsBuilt() {return fieldsBuilt;}
+
+    private synchronized boolean blocked(int goal){
+	return destinations.contains(goal) && blocked[goal];
+    }
+    /** @return goal's field, built now if need be, or null if goal isn't a
+     *  destination or is blocked */
+    private Field field(final int goal){
+	FutureTask<Field> task;
+	synchronized (this) {
+	    if (!destinations.contains(goal)) return null;
+	    task = fields.get(goal);
+	    if (task == null) {
+		if (blocked[goal]) return null;
+		final boolean[] layout = blocked;
+		task = new FutureTask<Field>(new Callable<Field>() {
+			public Field call() {return build(goal, layout);}
+		    });
+		fields.put(goal, task);
+		fieldsBuilt++;
+	    }
+	}
+	task.run(); //does nothing if it is built, or being built
+	try {
+	    return task.get();
+	} catch (InterruptedException e) {
+	    Thread.currentThread().interrupt();
+	    return null;
+	} catch (ExecutionException e) {
+	    throw new IllegalStateException(e.getCause());
+	}
+    }
+    /** Reverse Dijkstra from goal over blocked.  Moves are the same both
+     *  ways (8-way, straight 1, diagonal sqrt(2)), so it gives forward
+     *  distances. */
+    private Field build(int goal, boolean[] blocked){
+	Field f = new Field();
+	f.next = new int[rows*cols];
+	f.dist = new double[rows*cols];
+	Arrays.fill(f.next, -1);
+	Arrays.fill(f.dist, Double.POSITIVE_INFINITY);
+	boolean[] done = new boolean[rows*cols];
+	IntHeap open = new IntHeap(rows*cols, f.dist);
+	f.dist[goal] = 0;
+	open.offer(goal);
+	while (!open.isEmpty()) {
+	    int cell = open.poll();
+	    done[cell] = true;
+	    int x = cell / cols;
+	    int y = cell - x*cols;
+	    for (int i = -1; i <= 1; i++) {
+		int prevX = x+i;
+		if (prevX < 0 || prevX >= rows) continue;
+		for (int j = -1; j <= 1; j++) {
+		    int prevY = y+j;
+		    if (prevY < 0 || prevY >= cols) continue;
+		    int prev = cell + i*cols + j;
+		    if (done[prev] || blocked[prev]) continue;
+		    double d = f.dist[cell] + (i != 0 && j != 0 ? AStarTraversal.SQRT2 : 1);
+		    if (d >= f.dist[prev]) continue;
+		    f.dist[prev] = d;
+		    f.next[prev] = cell;
+		    open.offer(prev);
+		}
+	    }
+	}
+	return f;
+    }
+}
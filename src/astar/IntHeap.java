@@ -0,0 +1,87 @@
+package astar;
+
+/**
+ * Binary min-heap of cell ids, ordered by a key array the caller owns
+ * (the approximate total distance of each cell).  No boxing and no
+ * allocation once it has grown to the grid size.  The position array is
+ * never cleared: a cell is in the heap only if the slot it points to
+ * holds it, so clear() is O(1).
+ */
+class IntHeap
+{
+    private int[] heap;
+    private int[] pos; //pos[cell] = index of cell in heap, if it is there
+    private int size;
+    private double[] key;
+
+    IntHeap(int cells, double[] key){
+	heap = new int[cells];
+	pos = new int[cells];
+	this.key = key;
+    }
+    public void clear() {size = 0;}
+    public boolean isEmpty() {return size == 0;}
+    public int size() {return size;}
+    public boolean contains(int cell){
+	int i = pos[cell];
+	return i < size && heap[i] == cell;
+    }
+    /** Add cell, or move it up if it is already in and its key dropped */
+    public void offer(int cell){
+	if (contains(cell)) {
+	    siftUp(pos[cell]);
+	    return;
+	}
+	heap[size] = cell;
+	pos[cell] = size;
+	siftUp(size++);
+    }
+    /** Remove and return the cell with the smallest key */
+    public int poll(){
+	int top = heap[0];
+	int last = heap[--size];
+	if (size > 0) {
+	    heap[0] = last;
+	    pos[last] = 0;
+	    siftDown(0);
+	}
+	return top;
+    }
+    /** Cell at index i, for printing */
+    public int get(int i) {return heap[i];}
+
+    private void siftUp(int i){
+	int cell = heap[i];
+	double k = key[cell];
+	while (i > 0) {
+	    int parent = (i - 1) >>> 1;
+	    int p = heap[parent];
+	    if (key[p] <= k) break;
+	    heap[i] = p;
+	    pos[p] = i;
+	    i = parent;
+	}
+	heap[i] = cell;
+	pos[cell] = i;
+    }
+    private void siftDown(int i){
+	int cell = heap[i];
+	double k = key[cell];
+	int half = size >>> 1;
+	while (i < half) {
+	    int child = 2*i + 1;
+	    int c = heap[child];
+	    int right = child + 1;
+	    if (right < size && key[heap[right]] < key[c]) {
+		child = right;
+		c = heap[child];
+	    }
+	    if (k <= key[c]) break;
+	    heap[i] = c;
+	    pos[c] = i;
+	    i = child;
+	}
+	heap[i] = cell;
+	pos[cell] = i;
+    }
+}
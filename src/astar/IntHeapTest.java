@@ -0,0 +1,127 @@
+package astar;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+/**
+ * Tests for the int open list and the per-thread Scratch arrays A* runs
+ * on: the heap polls in key order through decreases and clears, and a
+ * thread's scratch gives the same paths across grids of different sizes
+ * and across its search id wrapping round.  In package astar, as both are
+ * package-private.
+ */
+public class IntHeapTest extends TestCase
+{
+    /** An n x n grid with about density percent of its cells blocked */
+    private OccupancyGrid randomGrid(Random random, int n, int density){
+	OccupancyGrid grid = new OccupancyGrid(n, n);
+	for (int x = 0; x < n; x++)
+	    for (int y = 0; y < n; y++)
+		if (random.nextInt(100) < density) grid.claim(x, y);
+	return grid;
+    }
+    /**
+     * Cells offered with random keys, some lowered while in the heap, come
+     * out smallest key first, the same as sorting them.
+     */
+    @Test
+    public void testPollsInKeyOrder(){
+	Random random = new Random(1);
+	int cells = 500;
+	double[] key = new double[cells];
+	IntHeap heap = new IntHeap(cells, key);
+	for (int round = 0; round < 20; round++) {
+	    heap.clear();
+	    assertTrue("A cleared heap should be empty", heap.isEmpty());
+	    List<Integer> in = new ArrayList<Integer>();
+	    for (int cell = 0; cell < cells; cell++) {
+		if (random.nextInt(3) != 0) continue;
+		key[cell] = random.nextDouble()*100;
+		heap.offer(cell);
+		in.add(cell);
+	    }
+	    //lower some keys, as A* does when it finds a shorter way
+	    for (int cell : in) {
+		if (random.nextInt(4) != 0) continue;
+		key[cell] -= random.nextDouble()*50;
+		heap.offer(cell);
+	    }
+	    assertEquals("Offering a cell again shouldn't add it twice", in.size(), heap.size());
+	    for (int cell = 0; cell < cells; cell++)
+		assertEquals("Cell " + cell + " should be in the heap only if offered",
+			     in.contains(cell), heap.contains(cell));
+
+	    double last = Double.NEGATIVE_INFINITY;
+	    while (!heap.isEmpty()) {
+		int cell = heap.poll();
+		assertTrue("Cells should come out smallest key first", key[cell] >= last);
+		assertFalse("A polled cell should be gone", heap.contains(cell));
+		last = key[cell];
+		in.remove(Integer.valueOf(cell));
+	    }
+	    assertTrue("Every cell offered should come out", in.isEmpty());
+	}
+    }
+    /**
+     * One thread's scratch, grown for a big grid and then used for a small
+     * one and back, gives the same paths each time.
+     */
+    @Test
+    public void testScratchAcrossGrids(){
+	Random random = new Random(2);
+	OccupancyGrid small = randomGrid(random, 15, 20);
+	OccupancyGrid big = randomGrid(random, 60, 20);
+	AStarTraversal onSmall = new AStarTraversal(small);
+	AStarTraversal onBig = new AStarTraversal(big);
+	Position[] smallTrip = {new Position(0, 0), new Position(14, 14)};
+	Position[] bigTrip = {new Position(0, 0), new Position(59, 59)};
+	small.release(0, 0);
+	small.release(14, 14);
+	big.release(0, 0);
+	big.release(59, 59);
+
+	AStarNode first = onSmall.findPath(smallTrip[0], smallTrip[1]);
+	AStarNode firstBig = onBig.findPath(bigTrip[0], bigTrip[1]);
+	for (int i = 0; i < 5; i++) {
+	    AStarNode again = onSmall.findPath(smallTrip[0], smallTrip[1]);
+	    AStarNode againBig = onBig.findPath(bigTrip[0], bigTrip[1]);
+	    assertEquals("The small grid's path shouldn't change",
+			 first == null ? -1 : first.getDistTravelled(),
+			 again == null ? -1 : again.getDistTravelled(), 1e-9);
+	    assertEquals("Nor the big grid's",
+			 firstBig == null ? -1 : firstBig.getDistTravelled(),
+			 againBig == null ? -1 : againBig.getDistTravelled(), 1e-9);
+	}
+    }
+    /**
+     * When the search id wraps round, the marks are cleared: no cell
+     * reached by an old search counts for a new one.
+     */
+    @Test
+    public void testSearchIdWraps(){
+	OccupancyGrid grid = randomGrid(new Random(3), 30, 25);
+	grid.release(0, 0);
+	grid.release(29, 29);
+	AStarTraversal traversal = new AStarTraversal(grid);
+	Position from = new Position(0, 0), to = new Position(29, 29);
+	AStarNode before = traversal.findPath(from, to);
+	AStarNode toMiddle = traversal.findPath(from, new Position(15, 15));
+
+	AStarTraversal.Scratch s = AStarTraversal.Scratch.forThread(30*30);
+	s.search = Integer.MAX_VALUE - 3;
+	for (int i = 0; i < 6; i++) {
+	    AStarNode n = traversal.findPath(from, to);
+	    assertEquals("Search " + i + " round the wrap should find the same path",
+			 before == null ? -1 : before.getDistTravelled(),
+			 n == null ? -1 : n.getDistTravelled(), 1e-9);
+	    AStarNode m = traversal.findPath(from, new Position(15, 15));
+	    assertEquals(toMiddle == null, m == null);
+	}
+	assertTrue("The id should have wrapped", s.search < 100);
+    }
+}
@@ -0,0 +1,114 @@
+package astar;
+
+/**
+ * Jump point search (Harabor and Grastien) on the 8-way occupancy grid,
+ * the AStarTraversal.SearchMode.jumpPoint engine.  Moves cost the same
+ * everywhere and diagonals may pass blocked corners, as in A* here, so
+ * from each cell only the "natural" and "forced" neighbours need looking
+ * at, and a run of cells with neither can be jumped over in one step.
+ * Only the jump points go on the open list; AStarTraversal fills in the
+ * cells between them.
+ */
+class JumpPointSearch
+{
+    private OccupancyGrid grid;
+    private int rows, cols; //the current start and goal are in the Scratch
+
+    JumpPointSearch(OccupancyGrid grid){
+	this.grid = grid;
+	rows = grid.getWidth();
+	cols = grid.getHeight();
+    }
+    /** Search with the thread's scratch arrays.  Parents in s link jump
+     *  points.  Returns the goal's cell, or -1. */
+    int search(AStarTraversal.Scratch s, Position from, Position to){
+	int goal = to.getX()*cols + to.getY();
+	s.goal = goal;
+	s.begin(from.getX()*cols + from.getY(),
+		AStarTraversal.octile(from.getX(), from.getY(), to.getX(), to.getY()));
+	while (!s.open.isEmpty()) {
+	    int cell = s.open.poll();
+	    if (cell == goal) return goal;
+	    s.closed[cell] = true;
+	    s.expanded++;
+	    int x = cell / cols;
+	    int y = cell - x*cols;
+	    int parent = s.parent[cell];
+	    if (parent == -1) {
+		//the start: every direction
+		for (int dx = -1; dx <= 1; dx++)
+		    for (int dy = -1; dy <= 1; dy++)
+			if (dx != 0 || dy != 0) jumpFrom(s, cell, x, y, dx, dy);
+		continue;
+	    }
+	    int dx = Integer.signum(x - parent / cols);
+	    int dy = Integer.signum(y - parent % cols);
+	    if (dx != 0 && dy != 0) {
+		//diagonal: keep going, or along either axis
+		jumpFrom(s, cell, x, y, dx, dy);
+		jumpFrom(s, cell, x, y, dx, 0);
+		jumpFrom(s, cell, x, y, 0, dy);
+		//forced: turn back round a blocked cell behind us
+		if (!open(s, x-dx, y)) jumpFrom(s, cell, x, y, -dx, dy);
+		if (!open(s, x, y-dy)) jumpFrom(s, cell, x, y, dx, -dy);
+	    } else if (dx != 0) {
+		jumpFrom(s, cell, x, y, dx, 0);
+		if (!open(s, x, y+1)) jumpFrom(s, cell, x, y, dx, 1);
+		if (!open(s, x, y-1)) jumpFrom(s, cell, x, y, dx, -1);
+	    } else {
+		jumpFrom(s, cell, x, y, 0, dy);
+		if (!open(s, x+1, y)) jumpFrom(s, cell, x, y, 1, dy);
+		if (!open(s, x-1, y)) jumpFrom(s, cell, x, y, -1, dy);
+	    }
+	}
+	return -1;
+    }
+    /** Jump from cell in direction (dx,dy) and queue the jump point found */
+    private void jumpFrom(AStarTraversal.Scratch s, int cell, int x, int y,
+			  int dx, int dy){
+	int next = jump(s, x, y, dx, dy);
+	if (next == -1) return;
+	if (s.reached(next) && s.closed[next]) return;
+	int nextX = next / cols;
+	int nextY = next - nextX*cols;
+	double d = s.dist[cell] + AStarTraversal.octile(x, y, nextX, nextY);
+	if (s.reached(next) && d >= s.dist[next]) return;
+	s.reach(next, d, d + AStarTraversal.octile(nextX, nextY, s.goal / cols, s.goal % cols), cell);
+	s.open.offer(next);
+    }
+    /**
+     * Step from (x,y) in direction (dx,dy) until reaching the goal, a cell
+     * with a forced neighbour, or (going diagonally) a cell from which a
+     * straight jump finds one.  Returns that cell, or -1 at a wall.
+     */
+    private int jump(AStarTraversal.Scratch s, int x, int y, int dx, int dy){
+	while (true) {
+	    x += dx;
+	    y += dy;
+	    if (!open(s, x, y)) return -1;
+	    int cell = x*cols + y;
+	    if (cell == s.goal) return cell;
+	    if (dx != 0 && dy != 0) {
+		if ((open(s, x-dx, y+dy) && !open(s, x-dx, y)) ||
+		    (open(s, x+dx, y-dy) && !open(s, x, y-dy)))
+		    return cell;
+		if (jump(s, x, y, dx, 0) != -1 || jump(s, x, y, 0, dy) != -1)
+		    return cell;
+	    } else if (dx != 0) {
+		if ((open(s, x+dx, y+1) && !open(s, x, y+1)) ||
+		    (open(s, x+dx, y-1) && !open(s, x, y-1)))
+		    return cell;
+	    } else {
+		if ((open(s, x+1, y+dy) && !open(s, x+1, y)) ||
+		    (open(s, x-1, y+dy) && !open(s, x-1, y)))
+		    return cell;
+	    }
+	}
+    }
+    /** On the grid and free.  The start counts as free: the searcher is
+     *  usually standing on it, holding its permit. */
+    private boolean open(AStarTraversal.Scratch s, int x, int y){
+	if (x < 0 || y < 0 || x >= rows || y >= cols) return false;
+	return x*cols + y == s.start || grid.isFree(x, y);
+    }
+}
@@ -0,0 +1,13 @@
+package astar;
+
+/**
+ * Something that keeps its own picture of a floor's layout (where the
+ * tables are, not who is standing where) and needs telling when it
+ * changes.  Layouts call this when a table is put down or taken away.
+ */
+public interface LayoutListener
+{
+    /** The size x size square at (x,y) was blocked (a table was put
+     *  there) or freed */
+    public void layoutChanged(int x, int y, int size, boolean isBlocked);
+}
\ No newline at end of file
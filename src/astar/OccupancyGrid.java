@@ -0,0 +1,120 @@
+package astar;
+import java.util.BitSet;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Who is standing on each cell of a floor, addressed (x,y) from 0 like
+ * the Semaphore[x][y] grid it replaces.  One bit per cell in an
+ * AtomicLongArray says whether the cell is taken, and claiming or
+ * releasing it is a compare-and-set on its word, so it keeps the
+ * tryAcquire/release/availablePermits behaviour of a one-permit
+ * semaphore without a semaphore per cell.  Whoever claimed a cell can
+ * leave an owner id on it.  A 1000x1000 floor takes about 4.1MB.
+ *
+ * An owner is put on a cell before its bit is set and taken off after
+ * its bit is cleared, so a taken cell with no owner is always one that
+ * was claimed without an id (the layout), never a walker half way
+ * through claiming or leaving it.
+ */
+public class OccupancyGrid
+{
+    /** Owner of cells claimed without an id: walls, tables and so on */
+    public static final int NO_OWNER = 0;
+
+    private final int width, height;
+    private final AtomicLongArray taken;   //bit (x*height+y) set if taken
+    private final AtomicIntegerArray owners;
+    private final AtomicInteger lastOwner = new AtomicInteger(NO_OWNER);
+
+    /** A floor of width x height free cells */
+    public OccupancyGrid(int width, int height){
+	this.width = width;
+	this.height = height;
+	taken = new AtomicLongArray((width*height + 63) >>> 6);
+	owners = new AtomicIntegerArray(width*height);
+    }
+    public int getWidth() {return width;}
+    public int getHeight() {return height;}
+
+    /** @return a new owner id for claim(x, y, owner), never NO_OWNER */
+    public int newOwner(){
+	return lastOwner.incrementAndGet();
+    }
+    /** @return true if the cell is free */
+    public boolean isFree(int x, int y){
+	int cell = x*height + y;
+	return (taken.get(cell >>> 6) & (1L << cell)) == 0;
+    }
+    /** Take the cell if it is free.  Never blocks.
+     *  @return true if we got it */
+    public boolean claim(int x, int y){
+	return claim(x, y, NO_OWNER);
+    }
+    /** Take the cell for owner if it is free.  Never blocks: if someone
+     *  else is claiming or leaving the cell right now it counts as taken.
+     *  @return true if we got it */
+    public boolean claim(int x, int y, int owner){
+	int cell = x*height + y;
+	if (owner != NO_OWNER) {
+	    if (!isFree(x, y) || !owners.compareAndSet(cell, NO_OWNER, owner))
+		return false;
+	}
+	int i = cell >>> 6;
+	long bit = 1L << cell;
+	long word;
+	do {
+	    word = taken.get(i);
+	    if ((word & bit) != 0) {
+		//the layout got it first
+		if (owner != NO_OWNER) owners.compareAndSet(cell, owner, NO_OWNER);
+		return false;
+	    }
+	} while (!taken.compareAndSet(i, word, word | bit));
+	return true;
+    }
+    /** Take every cell set in cells, numbered x*height + y, without an
+     *  owner: a word of 64 cells at a time, for laying out a whole floor.
+     *  Cells someone already has are left to them. */
+    public void claimAll(BitSet cells){
+	if (cells.length() > width*height)
+	    throw new IllegalArgumentException("cell " + (cells.length()-1) + " is off the floor");
+	long[] words = cells.toLongArray();
+	for (int i = 0; i < words.length; i++) {
+	    if (words[i] == 0) continue;
+	    long word;
+	    do {
+		word = taken.get(i);
+	    } while (!taken.compareAndSet(i, word, word | words[i]));
+	}
+    }
+    /** Free the cell, whoever has it */
+    public void release(int x, int y){
+	int cell = x*height + y;
+	clear(cell);
+	owners.set(cell, NO_OWNER);
+    }
+    /** Free the cell if owner has it.  Cells claimed without an owner
+     *  can't be freed this way.
+     *  @return true if it was owner's */
+    public boolean release(int x, int y, int owner){
+	int cell = x*height + y;
+	if (owner == NO_OWNER || isFree(x, y) || owners.get(cell) != owner) return false;
+	clear(cell);
+	owners.compareAndSet(cell, owner, NO_OWNER);
+	return true;
+    }
+    /** @return the id the cell was claimed with, NO_OWNER if it was
+     *  claimed without one; only meaningful while the cell is taken */
+    public int getOwner(int x, int y){
+	return owners.get(x*height + y);
+    }
+    private void clear(int cell){
+	int i = cell >>> 6;
+	long bit = 1L << cell;
+	long word;
+	do {
+	    word = taken.get(i);
+	    if ((word & bit) == 0) return;
+	} while (!taken.compareAndSet(i, word, word & ~bit));
+    }
+}
@@ -0,0 +1,94 @@
+package astar;
+import java.util.*;
+
+/**
+ * The last paths found, by start cell, goal cell and layout version, for
+ * the trips waiters make over and over (home to a table, a table to the
+ * counter).  At most capacity paths are kept, the least recently used
+ * going first.  The version goes up whenever a table is put down or taken
+ * away, so nothing found on an older layout is handed out again.
+ *
+ * A path is only handed out if every cell on it (not counting the start)
+ * is free right now; otherwise it counts as a miss and stays, as it is
+ * still good for the layout.  Shared by all the traversals on one grid.
+ */
+public class PathCache implements LayoutListener
+{
+    /** Start cell, goal cell, layout version */
+    private static class Key {
+	final int from, to;
+	final long version;
+
+	Key(int from, int to, long version){
+	    this.from = from;
+	    this.to = to;
+	    this.version = version;
+	}
+	public boolean equals(Object o){
+	    if (!(o instanceof Key)) return false;
+	    Key k = (Key) o;
+	    return from == k.from && to == k.to && version == k.version;
+	}
+	public int hashCode(){
+	    return (from*31 + to)*31 + (int) version;
+	}
+    }
+
+    private OccupancyGrid grid;
+    private int cols;
+    private long version;
+    private Map<Key, List<Position>> paths;
+    private int hits, misses;
+
+    /** @param capacity how many paths to keep */
+    public PathCache(OccupancyGrid grid, final int capacity){
+	this.grid = grid;
+	cols = grid.getHeight();
+	paths = new LinkedHashMap<Key, List<Position>>(16, 0.75f, true) {
+	    protected boolean removeEldestEntry(Map.Entry<Key, List<Position>> e) {
+		return size() > capacity;
+	    }
+	};
+    }
+    /** A table was put down or taken away: everything kept is out of date */
+    public synchronized void layoutChanged(int x, int y, int size, boolean isBlocked){
+	version++;
+	paths.clear();
+    }
+    /**
+     * The path kept from from to to, as generalSearch returned it, or
+     * null if there is none for this layout or a cell on it is taken
+     * right now.
+     */
+    public synchronized List<Position> get(Position from, Position to){
+	List<Position> path = paths.get(key(from, to));
+	if (path == null || !isClear(path)) {
+	    misses++;
+	    return null;
+	}
+	hits++;
+	return new ArrayList<Position>(path);
+    }
+    /** Keep path, the way from from to to on the layout as it is now */
+    public synchronized void put(Position from, Position to, List<Position> path){
+	paths.put(key(from, to), new ArrayList<Position>(path));
+    }
+    /** @return how many get()s found a path they could hand out */
+    public synchronized int getHits() {return hits;}
+    /** @return how many get()s didn't */
+    public synchronized int getMisses() {return misses;}
+    /** @return how many paths are kept */
+    public synchronized int size() {return paths.size();}
+    public synchronized long getLayoutVersion() {return version;}
+
+    private Key key(Position from, Position to){
+	return new Key(from.getX()*cols + from.getY(), to.getX()*cols + to.getY(), version);
+    }
+    private boolean isClear(List<Position> path){
+	for (int i = 1; i < path.size(); i++) {
+	    Position p = path.get(i);
+	    if (!grid.isFree(p.getX(), p.getY())) return false;
+	}
+	return true;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,497 @@
+package astar;
+import java.util.*;
+
+/**
+ * Hierarchical pathfinding (HPA*, Botea, Mueller and Schaeffer) for big
+ * floors: many dining rooms, a bar, a patio.  The floor is cut into
+ * square clusters.  Wherever two neighbouring clusters can be crossed
+ * between, an entrance puts a node on each side, and the shortest way
+ * between every two nodes of a cluster is found once, ahead of time, and
+ * kept with its cells.  A query only searches inside its first and last
+ * clusters, to get onto and off the nodes, and runs A* over the nodes in
+ * between; the cells for the middle come from the stored ways.
+ *
+ * Like FlowFields it goes by the layout, the cells blocked when it was
+ * made plus whatever layoutChanged() has been told since, and only the
+ * clusters a change touches (and their neighbours, whose entrances may
+ * have moved) are worked out again.  Paths are close to the shortest,
+ * not always the shortest: a path is smoothed before it is handed out,
+ * cutting corners wherever a straight run is shorter, but the entrances
+ * still pull short trips out of their way, so only use it for trips
+ * isFar() says are long.  Shared by all the traversals on one grid.
+ */
+public class PathHierarchy implements LayoutListener
+{
+    private static final double INF = Double.POSITIVE_INFINITY;
+    //straight runs of crossable cells this long get an entrance at each
+    //end, shorter ones one in the middle
+    private static final int LONG_ENTRANCE = 6;
+    //trips this many clusters across or fewer are better searched cell by cell
+    private static final int NEAR_CLUSTERS = 2;
+
+    /** A cell next to a cluster border: a node of the abstract graph */
+    private static class Node {
+	int cell;
+	List<Edge> edges = new ArrayList<Edge>();
+	int crossings;  //edges over a border; the node goes when there are none
+	//the last path() to reach this node, and where it got to
+	int search;
+	boolean closed;
+	double g;
+	Node parent;
+	Edge via;
+
+	Node(int cell){
+	    this.cell = cell;
+	}
+    }
+    /** A way to another node: one step over a border, or through a cluster */
+    private static class Edge {
+	Node to;
+	double cost;
+	int[] cells;    //after the node we start at, up to to; null over a border
+
+	Edge(Node to, double cost, int[] cells){
+	    this.to = to;
+	    this.cost = cost;
+	    this.cells = cells;
+	}
+    }
+    /** A node on the open list; stale if the node was closed since */
+    private static class Open {
+	Node node;
+	double f;
+
+	Open(Node node, double f){
+	    this.node = node;
+	    this.f = f;
+	}
+    }
+    /** Shortest ways out from one cell, without leaving its cluster */
+    private class Local {
+	int x0, y0, width, height;
+	double[] dist;
+	int[] parent;   //local index we got here from, -1 at the origin
+
+	int index(int cell) {return (cell / cols - x0)*height + cell % cols - y0;}
+	int cell(int i) {return (x0 + i / height)*cols + y0 + i % height;}
+	double dist(int cell) {return dist[index(cell)];}
+	/** Cells from the origin (not counted) to cell */
+	int[] pathTo(int cell){
+	    int n = 0;
+	    for (int i = index(cell); parent[i] != -1; i = parent[i]) n++;
+	    int[] path = new int[n];
+	    for (int i = index(cell); parent[i] != -1; i = parent[i]) path[--n] = cell(i);
+	    return path;
+	}
+	/** Cells from cell (not counted) back to the origin */
+	int[] pathBack(int cell){
+	    int n = 0;
+	    for (int i = index(cell); parent[i] != -1; i = parent[i]) n++;
+	    int[] path = new int[n];
+	    n = 0;
+	    for (int i = index(cell); parent[i] != -1; i = parent[i]) path[n++] = cell(parent[i]);
+	    return path;
+	}
+    }
+
+    private OccupancyGrid grid;
+    private int rows, cols, size;
+    private int clustersX, clustersY;
+    private boolean[] blocked; //the layout
+    private Map<Integer, Node> nodes = new HashMap<Integer, Node>(); //by cell
+    private List<List<Node>> clusterNodes = new ArrayList<List<Node>>();
+    //border (cluster*4 + direction) -> the pairs of cells crossing it
+    private Map<Integer, List<int[]>> entrances = new HashMap<Integer, List<int[]>>();
+    private int search;        //id of the current path()
+    private int nodesExpanded;
+    private int clustersBuilt;
+
+    /** Takes the layout from the cells blocked in grid now, so make it
+     *  once the floor is built.
+     *  @param clusterSize the side of a cluster, in cells */
+    public PathHierarchy(OccupancyGrid grid, int clusterSize){
+	this.grid = grid;
+	rows = grid.getWidth();
+	cols = grid.getHeight();
+	size = clusterSize;
+	clustersX = (rows + size - 1) / size;
+	clustersY = (cols + size - 1) / size;
+	blocked = new boolean[rows*cols];
+	for (int x = 0; x < rows; x++)
+	    for (int y = 0; y < cols; y++)
+		blocked[x*cols + y] = !grid.isFree(x, y);
+	for (int c = 0; c < clustersX*clustersY; c++)
+	    clusterNodes.add(new ArrayList<Node>());
+	for (int c = 0; c < clustersX*clustersY; c++)
+	    for (int direction = 0; direction < 4; direction++)
+		buildBorder(c*4 + direction);
+	for (int c = 0; c < clustersX*clustersY; c++)
+	    buildCluster(c);
+    }
+    public synchronized void layoutChanged(int x, int y, int size, boolean isBlocked){
+	if (x >= rows || y >= cols) return;
+	int lastX = Math.min(x + size, rows) - 1;
+	int lastY = Math.min(y + size, cols) - 1;
+	for (int i = x; i <= lastX; i++)
+	    for (int j = y; j <= lastY; j++)
+		blocked[i*cols + j] = isBlocked;
+	int cx0 = x / this.size, cx1 = lastX / this.size;
+	int cy0 = y / this.size, cy1 = lastY / this.size;
+	//every border of a cluster the square touches
+	Set<Integer> borders = new TreeSet<Integer>();
+	for (int cx = cx0; cx <= cx1; cx++)
+	    for (int cy = cy0; cy <= cy1; cy++) {
+		for (int direction = 0; direction < 4; direction++)
+		    borders.add(cluster(cx, cy)*4 + direction);
+		if (cx > 0) borders.add(cluster(cx-1, cy)*4);
+		if (cy > 0) borders.add(cluster(cx, cy-1)*4 + 1);
+		if (cx > 0 && cy > 0) borders.add(cluster(cx-1, cy-1)*4 + 2);
+		if (cx > 0 && cy+1 < clustersY) borders.add(cluster(cx-1, cy+1)*4 + 3);
+	    }
+	for (int b : borders) clearBorder(b);
+	for (int b : borders) buildBorder(b);
+	for (int cx = Math.max(0, cx0-1); cx <= Math.min(clustersX-1, cx1+1); cx++)
+	    for (int cy = Math.max(0, cy0-1); cy <= Math.min(clustersY-1, cy1+1); cy++)
+		buildCluster(cluster(cx, cy));
+    }
+    /**
+     * Whether the trip from from to to is long enough to plan over
+     * clusters.  Shorter ones are as quick to search cell by cell, and
+     * the way through the entrances can be several times the shortest.
+     */
+    public boolean isFar(Position from, Position to){
+	int d = Math.max(Math.abs(from.getX() - to.getX()), Math.abs(from.getY() - to.getY()));
+	return d > NEAR_CLUSTERS*size;
+    }
+    /**
+     * A path from from to to, as the list of cells generalSearch returns,
+     * or null if the layout has no way there or a cell on the way (not
+     * counting from) is taken right now.
+     */
+    public synchronized List<Position> path(Position from, Position to){
+	int start = from.getX()*cols + from.getY();
+	int goal = to.getX()*cols + to.getY();
+	nodesExpanded = 0;
+	if (blocked[goal]) return null;
+	int startCluster = clusterOf(start);
+	int goalCluster = clusterOf(goal);
+	Local out = local(startCluster, start);
+	Local in = local(goalCluster, goal);
+
+	//staying in one cluster may be best
+	double best = INF;
+	if (startCluster == goalCluster) best = out.dist(goal);
+
+	//A* over the nodes, getting on in the first cluster, off in the last
+	search++;
+	PriorityQueue<Open> open = new PriorityQueue<Open>(64, new Comparator<Open>()
+	{
+	    public int compare(Open a, Open b)
+	    {
+		return Double.compare(a.f, b.f);
+	    }
+	});
+	for (Node n : clusterNodes.get(startCluster)) {
+	    double d = out.dist(n.cell);
+	    if (d == INF) continue;
+	    reach(n, d, null, null);
+	    open.add(new Open(n, d + heuristic(n.cell, goal)));
+	}
+	Node last = null;
+	while (!open.isEmpty()) {
+	    Open top = open.poll();
+	    Node n = top.node;
+	    if (top.f >= best) break;
+	    if (n.closed) continue;
+	    n.closed = true;
+	    nodesExpanded++;
+	    if (clusterOf(n.cell) == goalCluster) {
+		double d = n.g + in.dist(n.cell);
+		if (d < best) {
+		    best = d;
+		    last = n;
+		}
+	    }
+	    for (Edge e : n.edges) {
+		double d = n.g + e.cost;
+		if (e.to.search == search && (e.to.closed || e.to.g <= d)) continue;
+		reach(e.to, d, n, e);
+		open.add(new Open(e.to, d + heuristic(e.to.cell, goal)));
+	    }
+	}
+	if (best == INF) return null;
+
+	List<Position> path = new ArrayList<Position>();
+	path.add(from);
+	if (last == null) {
+	    if (!add(path, out.pathTo(goal))) return null;
+	    return path;
+	}
+	LinkedList<Node> route = new LinkedList<Node>();
+	for (Node n = last; n != null; n = n.parent) route.addFirst(n);
+	if (!add(path, out.pathTo(route.getFirst().cell))) return null;
+	for (Node n : route.subList(1, route.size())) {
+	    Edge e = n.via;
+	    if (!add(path, e.cells != null ? e.cells : new int[] {n.cell})) return null;
+	}
+	if (!add(path, in.pathBack(last.cell))) return null;
+	return smooth(path);
+    }
+    /** @return how many abstract nodes the last path() expanded */
+    public synchronized int getNodesExpanded() {return nodesExpanded;}
+    /** @return how many clusters have had their ways worked out, for tuning */
+    public synchronized int getClustersBuilt() {return clustersBuilt;}
+
+    private void reach(Node n, double g, Node parent, Edge via){
+	if (n.search != search) {
+	    n.search = search;
+	    n.closed = false;
+	}
+	n.g = g;
+	n.parent = parent;
+	n.via = via;
+    }
+    /** Appends cells to path, unless one is taken right now */
+    private boolean add(List<Position> path, int[] cells){
+	for (int c : cells) {
+	    int x = c / cols;
+	    int y = c - x*cols;
+	    if (!grid.isFree(x, y)) return false;
+	    path.add(new Position(x, y));
+	}
+	return true;
+    }
+    /**
+     * Cuts the corners of path: from each cell, looks up to two clusters'
+     * worth of cells ahead for the furthest one a straight run reaches
+     * for less than the path takes, and goes that way instead.
+     */
+    private List<Position> smooth(List<Position> path){
+	int n = path.size();
+	double[] cost = new double[n]; //along path, from its start
+	for (int i = 1; i < n; i++)
+	    cost[i] = cost[i-1] + path.get(i-1).distance(path.get(i));
+	List<Position> smooth = new ArrayList<Position>(n);
+	smooth.add(path.get(0));
+	int window = NEAR_CLUSTERS*size;
+	for (int i = 0; i < n-1; ) {
+	    Position a = path.get(i);
+	    int next = i+1;
+	    int[] run = null;
+	    for (int j = Math.min(n-1, i + window); j > i+1 && run == null; j--) {
+		Position b = path.get(j);
+		double d = AStarTraversal.octile(a.getX(), a.getY(), b.getX(), b.getY());
+		if (d >= cost[j] - cost[i] - 1e-9) continue;
+		run = straight(a, b, true);
+		if (run == null) run = straight(a, b, false);
+		if (run != null) next = j;
+	    }
+	    if (run == null) {
+		smooth.add(path.get(next));
+	    } else {
+		for (int c : run) smooth.add(new Position(c / cols, c % cols));
+	    }
+	    i = next;
+	}
+	return smooth;
+    }
+    /**
+     * The cells after a on a shortest straight run to b, diagonal steps
+     * first or last, or null if one is blocked or taken right now.
+     */
+    private int[] straight(Position a, Position b, boolean diagonalFirst){
+	int dx = b.getX() - a.getX();
+	int dy = b.getY() - a.getY();
+	int diagonal = Math.min(Math.abs(dx), Math.abs(dy));
+	int steps = Math.max(Math.abs(dx), Math.abs(dy));
+	int[] cells = new int[steps];
+	int x = a.getX(), y = a.getY();
+	for (int i = 0; i < steps; i++) {
+	    boolean diagonalStep = diagonalFirst ? i < diagonal : i >= steps - diagonal;
+	    if (diagonalStep || Math.abs(dx) > Math.abs(dy)) x += Integer.signum(dx);
+	    if (diagonalStep || Math.abs(dy) > Math.abs(dx)) y += Integer.signum(dy);
+	    int c = x*cols + y;
+	    if (blocked[c] || !grid.isFree(x, y)) return null;
+	    cells[i] = c;
+	}
+	return cells;
+    }
+    private int cluster(int cx, int cy) {return cx*clustersY + cy;}
+    private int clusterOf(int cell) {return cluster(cell / cols / size, cell % cols / size);}
+    private double heuristic(int cell, int goal){
+	return AStarTraversal.octile(cell / cols, cell % cols, goal / cols, goal % cols);
+    }
+    /**
+     * Finds the crossings of one border.  Direction 0 is to the cluster
+     * at cx+1, 1 to cy+1, 2 the corner to (cx+1,cy+1) and 3 the corner to
+     * (cx+1,cy-1).  A straight run of crossable cells gets one or two
+     * entrances; a diagonal step or a corner only counts where nothing
+     * straight is next to it, as it is the only way over there.
+     */
+    private void buildBorder(int border){
+	int c = border / 4;
+	int cx = c / clustersY;
+	int cy = c % clustersY;
+	int x0 = cx*size;
+	int y0 = cy*size;
+	int direction = border % 4;
+	if (cx+1 >= clustersX && direction != 1) return;
+	if (direction == 1 && cy+1 >= clustersY) return;
+	if (direction == 2 && cy+1 >= clustersY) return;
+	if (direction == 3 && cy == 0) return;
+	if (direction >= 2) {
+	    int xa = x0 + size - 1;
+	    int ya = direction == 2 ? y0 + size - 1 : y0;
+	    int yb = direction == 2 ? ya + 1 : ya - 1;
+	    int a = xa*cols + ya;
+	    int b = (xa+1)*cols + yb;
+	    if (!blocked[a] && !blocked[b] &&
+		blocked[(xa+1)*cols + ya] && blocked[xa*cols + yb])
+		addEntrance(border, a, b, AStarTraversal.SQRT2);
+	    return;
+	}
+	//cells either side of the border, i along it
+	int length = direction == 0 ? Math.min(size, cols - y0) : Math.min(size, rows - x0);
+	int[] a = new int[length];
+	int[] b = new int[length];
+	for (int i = 0; i < length; i++) {
+	    if (direction == 0) {
+		a[i] = (x0 + size - 1)*cols + y0 + i;
+		b[i] = a[i] + cols;
+	    } else {
+		a[i] = (x0 + i)*cols + y0 + size - 1;
+		b[i] = a[i] + 1;
+	    }
+	}
+	boolean[] straight = new boolean[length];
+	for (int i = 0; i < length; i++)
+	    straight[i] = !blocked[a[i]] && !blocked[b[i]];
+	for (int i = 0; i < length; ) {
+	    if (!straight[i]) {
+		i++;
+		continue;
+	    }
+	    int end = i;
+	    while (end < length && straight[end]) end++;
+	    if (end - i >= LONG_ENTRANCE) {
+		addEntrance(border, a[i], b[i], 1);
+		addEntrance(border, a[end-1], b[end-1], 1);
+	    } else {
+		int mid = (i + end - 1) / 2;
+		addEntrance(border, a[mid], b[mid], 1);
+	    }
+	    i = end;
+	}
+	for (int i = 0; i+1 < length; i++) {
+	    if (straight[i] || straight[i+1]) continue;
+	    if (!blocked[a[i]] && !blocked[b[i+1]])
+		addEntrance(border, a[i], b[i+1], AStarTraversal.SQRT2);
+	    if (!blocked[a[i+1]] && !blocked[b[i]])
+		addEntrance(border, a[i+1], b[i], AStarTraversal.SQRT2);
+	}
+    }
+    private void addEntrance(int border, int a, int b, double cost){
+	Node na = node(a);
+	Node nb = node(b);
+	na.edges.add(new Edge(nb, cost, null));
+	nb.edges.add(new Edge(na, cost, null));
+	na.crossings++;
+	nb.crossings++;
+	List<int[]> pairs = entrances.get(border);
+	if (pairs == null) {
+	    pairs = new ArrayList<int[]>();
+	    entrances.put(border, pairs);
+	}
+	pairs.add(new int[] {a, b});
+    }
+    private Node node(int cell){
+	Node n = nodes.get(cell);
+	if (n == null) {
+	    n = new Node(cell);
+	    nodes.put(cell, n);
+	    clusterNodes.get(clusterOf(cell)).add(n);
+	}
+	return n;
+    }
+    private void clearBorder(int border){
+	List<int[]> pairs = entrances.remove(border);
+	if (pairs == null) return;
+	for (int[] pair : pairs) {
+	    Node a = nodes.get(pair[0]);
+	    Node b = nodes.get(pair[1]);
+	    uncross(a, b);
+	    uncross(b, a);
+	}
+    }
+    /** Drops the border step from a to b, and a if that was its last */
+    private void uncross(Node a, Node b){
+	for (Iterator<Edge> i = a.edges.iterator(); i.hasNext(); ) {
+	    Edge e = i.next();
+	    if (e.to == b && e.cells == null) {
+		i.remove();
+		break;
+	    }
+	}
+	if (--a.crossings == 0) {
+	    nodes.remove(a.cell);
+	    clusterNodes.get(clusterOf(a.cell)).remove(a);
+	}
+    }
+    /** Works out the ways between the nodes of one cluster */
+    private void buildCluster(int c){
+	List<Node> inside = clusterNodes.get(c);
+	for (Node n : inside)
+	    for (Iterator<Edge> i = n.edges.iterator(); i.hasNext(); )
+		if (i.next().cells != null) i.remove();
+	for (Node n : inside) {
+	    Local l = local(c, n.cell);
+	    for (Node m : inside) {
+		if (m == n) continue;
+		double d = l.dist(m.cell);
+		if (d != INF) n.edges.add(new Edge(m, d, l.pathTo(m.cell)));
+	    }
+	}
+	clustersBuilt++;
+    }
+    /** Dijkstra from origin over the layout, staying inside cluster c */
+    private Local local(int c, int origin){
+	Local l = new Local();
+	l.x0 = c / clustersY * size;
+	l.y0 = c % clustersY * size;
+	l.width = Math.min(size, rows - l.x0);
+	l.height = Math.min(size, cols - l.y0);
+	int cells = l.width*l.height;
+	l.dist = new double[cells];
+	l.parent = new int[cells];
+	Arrays.fill(l.dist, INF);
+	boolean[] done = new boolean[cells];
+	IntHeap open = new IntHeap(cells, l.dist);
+	int first = l.index(origin);
+	l.dist[first] = 0;
+	l.parent[first] = -1;
+	open.offer(first);
+	while (!open.isEmpty()) {
+	    int i = open.poll();
+	    done[i] = true;
+	    int x = i / l.height;
+	    int y = i - x*l.height;
+	    for (int dx = -1; dx <= 1; dx++) {
+		int nextX = x+dx;
+		if (nextX < 0 || nextX >= l.width) continue;
+		for (int dy = -1; dy <= 1; dy++) {
+		    int nextY = y+dy;
+		    if (nextY < 0 || nextY >= l.height) continue;
+		    int next = nextX*l.height + nextY;
+		    if (done[next] || blocked[l.cell(next)]) continue;
+		    double d = l.dist[i] + (dx != 0 && dy != 0 ? AStarTraversal.SQRT2 : 1);
+		    if (d >= l.dist[next]) continue;
+		    l.dist[next] = d;
+		    l.parent[next] = i;
+		    open.offer(next);
+		}
+	    }
+	}
+	return l;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package astar;
+
+/** One path wanted from a PathService: from where, to where */
+public class PathQuery
+{
+    private final Position from, to;
+
+    public PathQuery(Position from, Position to){
+	this.from = from;
+	this.to = to;
+    }
+    public Position getFrom() {return from;}
+    public Position getTo() {return to;}
+    public String toString() {return from + "->" + to;}
+}
\ No newline at end of file
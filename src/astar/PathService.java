@@ -0,0 +1,72 @@
+package astar;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Paths for any number of callers from one traversal.  Each query runs
+ * AStarTraversal.findPath, which works in the calling thread's Scratch,
+ * so the traversal (and the flow fields, cache and hierarchy it shares)
+ * is never copied per caller.  findPaths() answers a batch in parallel
+ * on a fork-join pool.
+ */
+public class PathService
+{
+    //below this many queries a task answers them itself
+    private static final int BATCH = 4;
+
+    private final AStarTraversal planner;
+    private final ForkJoinPool pool;
+
+    /** Answers batches on the common fork-join pool */
+    public PathService(AStarTraversal planner){
+	this(planner, ForkJoinPool.commonPool());
+    }
+    public PathService(AStarTraversal planner, ForkJoinPool pool){
+	this.planner = planner;
+	this.pool = pool;
+    }
+    public AStarTraversal getPlanner() {return planner;}
+
+    /** One path, in the calling thread.  Null if there is none. */
+    public AStarNode findPath(Position from, Position to){
+	return planner.findPath(from, to);
+    }
+    /**
+     * A path for every query, in the same order, null where there is
+     * none.  The queries are split between the pool's threads.
+     */
+    public List<AStarNode> findPaths(List<PathQuery> queries){
+	AStarNode[] found = new AStarNode[queries.size()];
+	pool.invoke(new Batch(planner, queries, found, 0, found.length));
+	return Arrays.asList(found);
+    }
+
+    /** Answers queries from up to to, splitting in half while it's big */
+    private static class Batch extends RecursiveAction {
+	private static final long serialVersionUID = 1L;
+	private final AStarTraversal planner;
+	private final List<PathQuery> queries;
+	private final AStarNode[] found;
+	private final int from, to;
+
+	Batch(AStarTraversal planner, List<PathQuery> queries, AStarNode[] found, int from, int to){
+	    this.planner = planner;
+	    this.queries = queries;
+	    this.found = found;
+	    this.from = from;
+	    this.to = to;
+	}
+	protected void compute(){
+	    if (to - from <= BATCH) {
+		for (int i = from; i < to; i++) {
+		    PathQuery q = queries.get(i);
+		    found[i] = planner.findPath(q.getFrom(), q.getTo());
+		}
+		return;
+	    }
+	    int mid = (from + to) >>> 1;
+	    invokeAll(new Batch(planner, queries, found, from, mid),
+		      new Batch(planner, queries, found, mid, to));
+	}
+    }
+}
\ No newline at end of file
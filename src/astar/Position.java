@@ -20,9 +20,9 @@ public class Position {
     public int getY() {return y;}
     
     public double distance(Position destination){
-	return Math.sqrt(
-		Math.pow(destination.getX()-x,2) +
-		Math.pow(destination.getY()-y,2));
+	int dx = destination.getX()-x;
+	int dy = destination.getY()-y;
+	return Math.sqrt(dx*dx + dy*dy);
     }
     public String toString(){
 	return "{"+x+" "+y+"}";
@@ -30,17 +30,23 @@ public class Position {
     public boolean equals(Position p){
 	return (p.getX()==x && p.getY()==y);
     }
-    public boolean open(Semaphore[][] grid){
+    public boolean open(OccupancyGrid grid){
 	//right now this just tests if grid is available. I
 	//suspect this is where the locking done. What's in the grid is
 	//supposed to be taken care of by the gui.
-	return grid[x][y].availablePermits()>0;
+	return grid.isFree(x,y);
     }
-    public boolean moveInto(Semaphore[][] grid){
-	//System.out.println("moveInto"+this+ " permits="+grid[x][y].availablePermits());
-	return grid[x][y].tryAcquire();
+    public boolean moveInto(OccupancyGrid grid){
+	//System.out.println("moveInto"+this+ " free="+grid.isFree(x,y));
+	return grid.claim(x,y);
     }
-    public void release(Semaphore[][] grid){
-	grid[x][y].release();
+    public boolean moveInto(OccupancyGrid grid, int owner){
+	return grid.claim(x,y,owner);
+    }
+    public void release(OccupancyGrid grid){
+	grid.release(x,y);
+    }
+    public void release(OccupancyGrid grid, int owner){
+	grid.release(x,y,owner);
     }
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package astar;
+import java.util.*;
+
+/**
+ * Space-time reservations for cooperative pathfinding (WHCA*).  Time is
+ * in ticks, one tick per step.  A traversal planning with this table
+ * reserves the cell it will be in at each tick of its plan, up to window
+ * ticks ahead, and stays on the last cell ("parked") until it plans
+ * again.  Others plan round those reservations instead of walking into
+ * each other.  Cells are ids x*height+y on the grid given.
+ */
+public class ReservationTable
+{
+    private final int cells;
+    private final int window;
+    private final long tickMillis;
+    //tick*cells+cell -> owner
+    private final Map<Long, Integer> reserved = new HashMap<Long, Integer>();
+    private final Map<Integer, List<Long>> keysOf = new HashMap<Integer, List<Long>>();
+    //cell -> {owner, first tick}; owner -> cell
+    private final Map<Integer, long[]> parked = new HashMap<Integer, long[]>();
+    private final Map<Integer, Integer> parkedCell = new HashMap<Integer, Integer>();
+
+    /**
+     * @param grid       the floor
+     * @param window     how many ticks ahead plans reserve
+     * @param tickMillis how long one step takes, in simulation time
+     */
+    public ReservationTable(OccupancyGrid grid, int window, long tickMillis){
+	this.cells = grid.getWidth()*grid.getHeight();
+	this.window = window;
+	this.tickMillis = tickMillis;
+    }
+    public int getWindow() {return window;}
+    public long getTickMillis() {return tickMillis;}
+
+    /** @return true if nobody but owner has cell at tick */
+    public synchronized boolean isFree(int cell, long tick, int owner){
+	Integer who = reserved.get(tick*cells + cell);
+	if (who != null && who != owner) return false;
+	long[] park = parked.get(cell);
+	return park == null || park[0] == owner || park[1] > tick;
+    }
+    /** @return true if owner can step from cell from at tick to cell to
+     *  at tick+1: to is free then, and nobody is coming the other way */
+    public synchronized boolean canMove(int from, int to, long tick, int owner){
+	if (!isFree(to, tick+1, owner)) return false;
+	if (from == to) return true;
+	Integer a = reserved.get(tick*cells + to);
+	Integer b = reserved.get((tick+1)*cells + from);
+	return a == null || b == null || !a.equals(b) || a == owner;
+    }
+    /** @return true if owner has a plan or is parked, i.e. whoever else
+     *  is planning should go by the table rather than where owner stands */
+    public synchronized boolean isPlanning(int owner){
+	return keysOf.containsKey(owner) || parkedCell.containsKey(owner);
+    }
+    /** Replace owner's reservations with path, cells[i] at startTick+i,
+     *  and park owner on the last cell from then on. */
+    public synchronized void reserve(int owner, int[] path, long startTick){
+	release(owner);
+	List<Long> keys = new ArrayList<Long>(path.length);
+	for (int i = 0; i < path.length; i++) {
+	    long key = (startTick+i)*cells + path[i];
+	    reserved.put(key, owner);
+	    keys.add(key);
+	}
+	keysOf.put(owner, keys);
+	int last = path[path.length-1];
+	parked.put(last, new long[] {owner, startTick + path.length - 1});
+	parkedCell.put(owner, last);
+    }
+    /** Drop all of owner's reservations */
+    public synchronized void release(int owner){
+	List<Long> keys = keysOf.remove(owner);
+	if (keys != null)
+	    for (Long key : keys) reserved.remove(key);
+	Integer cell = parkedCell.remove(owner);
+	if (cell != null) {
+	    long[] park = parked.get(cell);
+	    if (park != null && park[0] == owner) parked.remove(cell);
+	}
+    }
+}
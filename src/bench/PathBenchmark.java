@@ -0,0 +1,376 @@
+package bench;
+
+import astar.*;
+
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+/**
+ * Throughput benchmarks for AStarTraversal.generalSearch, run the way JMH
+ * runs them but with nothing but the JDK, so they work offline on any box
+ * with the classes compiled.  Each benchmark is one grid size, obstacle
+ * density, start/goal distribution and search engine.  It gets warmup
+ * iterations, then measured ones, each a fixed time of searches over the
+ * same 256 reachable queries, by default in a fresh JVM so one engine's
+ * JIT profile doesn't slow down the next.
+ *
+ * For each benchmark it reports searches per second (the mean over the
+ * measured iterations, +- their standard deviation), bytes allocated per
+ * search and per second (what JMH's gc profiler calls gc.alloc.rate.norm
+ * and gc.alloc.rate), the collections and cells expanded per search.
+ * Results can be written as CSV and a later run compared against them.
+ *
+ * <pre>
+ * java -cp classes bench.PathBenchmark [options]
+ *   -size 100,300,1000      grid width and height
+ *   -density 0,20           percent of cells blocked at random
+ *   -dist uniform,cross,near  queries anywhere, from the left tenth of the
+ *                           grid to the right tenth, or within 10 cells
+ *   -mode aStar,jumpPoint,bidirectional,hierarchy
+ *                           the SearchModes, or hierarchy for A* behind
+ *                           a PathHierarchy of 10 x 10 clusters
+ *   -wi 3 -i 5 -t 1000      warmup iterations, measured iterations, ms each
+ *   -f 1                    JVMs per benchmark; 0 runs them all in this one
+ *   -o results.csv          write the results
+ *   -baseline results.csv   show the change from an earlier run
+ * </pre>
+ */
+public class PathBenchmark {
+	static final int QUERIES = 256;
+	static final int NEAR = 10; // cells, for -dist near
+	static final String MODES = "aStar,jumpPoint,bidirectional,hierarchy";
+
+	static volatile double sink; // keeps the searches from being optimised away
+
+	/** One benchmark */
+	static class Config {
+		int size, density;
+		String dist, mode;
+
+		Config(int size, int density, String dist, String mode) {
+			this.size = size;
+			this.density = density;
+			this.dist = dist;
+			this.mode = mode;
+		}
+		String key() {
+			return size + "," + density + "," + dist + "," + mode;
+		}
+	}
+
+	/** What one benchmark measured */
+	static class Result {
+		Config config;
+		double opsPerSec, sd, bytesPerOp, allocPerSec, expandedPerOp;
+		long gcCount, gcMillis;
+
+		String csv() {
+			return config.key() + "," + opsPerSec + "," + sd + "," + bytesPerOp + ","
+					+ allocPerSec + "," + expandedPerOp + "," + gcCount + "," + gcMillis;
+		}
+		static Result parse(String line) {
+			String[] f = line.split(",");
+			Result r = new Result();
+			r.config = new Config(Integer.parseInt(f[0]), Integer.parseInt(f[1]), f[2], f[3]);
+			r.opsPerSec = Double.parseDouble(f[4]);
+			r.sd = Double.parseDouble(f[5]);
+			r.bytesPerOp = Double.parseDouble(f[6]);
+			r.allocPerSec = Double.parseDouble(f[7]);
+			r.expandedPerOp = Double.parseDouble(f[8]);
+			r.gcCount = Long.parseLong(f[9]);
+			r.gcMillis = Long.parseLong(f[10]);
+			return r;
+		}
+	}
+	static final String CSV_HEADER = "size,density,dist,mode,ops_per_s,sd,bytes_per_op,"
+			+ "alloc_bytes_per_s,expanded_per_op,gc_count,gc_ms";
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> opts = new HashMap<String, String>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (!args[i].startsWith("-")) usage("don't know " + args[i]);
+			opts.put(args[i].substring(1), args[i+1]);
+		}
+		if (args.length % 2 != 0) usage("no value for " + args[args.length-1]);
+		int wi = Integer.parseInt(get(opts, "wi", "3"));
+		int iters = Integer.parseInt(get(opts, "i", "5"));
+		long millis = Long.parseLong(get(opts, "t", "1000"));
+
+		if (opts.containsKey("child")) { // one benchmark, forked by the parent
+			String[] c = opts.get("child").split(",");
+			Result r = run(new Config(Integer.parseInt(c[0]), Integer.parseInt(c[1]), c[2], c[3]),
+					wi, iters, millis);
+			System.out.println("RESULT " + r.csv());
+			return;
+		}
+
+		int forks = Integer.parseInt(get(opts, "f", "1"));
+		Map<String, Result> baseline = new HashMap<String, Result>();
+		if (opts.containsKey("baseline")) baseline = readCsv(opts.get("baseline"));
+		List<Config> configs = new ArrayList<Config>();
+		for (String size : get(opts, "size", "100,300,1000").split(","))
+			for (String density : get(opts, "density", "0,20").split(","))
+				for (String dist : get(opts, "dist", "uniform,cross,near").split(","))
+					for (String mode : get(opts, "mode", MODES).split(","))
+						configs.add(new Config(Integer.parseInt(size), Integer.parseInt(density), dist, mode));
+		for (Config c : configs) check(c);
+
+		System.out.printf("%-6s %-7s %-8s %-14s %12s %10s %10s %12s %11s %4s %6s%s%n",
+				"size", "density", "dist", "mode", "ops/s", "+-", "B/op", "MB/s alloc",
+				"expanded/op", "gc", "gc ms", baseline.isEmpty() ? "" : "   vs baseline");
+		List<Result> results = new ArrayList<Result>();
+		for (Config c : configs) {
+			Result r = forks == 0 ? run(c, wi, iters, millis) : fork(c, forks, wi, iters, millis);
+			results.add(r);
+			Result b = baseline.get(c.key());
+			System.out.printf("%-6d %-7d %-8s %-14s %12.1f %10.1f %10.1f %12.1f %11.1f %4d %6d%s%n",
+					c.size, c.density, c.dist, c.mode, r.opsPerSec, r.sd, r.bytesPerOp,
+					r.allocPerSec / (1 << 20), r.expandedPerOp, r.gcCount, r.gcMillis,
+					b == null ? "" : String.format("   %+.1f%%", 100*(r.opsPerSec / b.opsPerSec - 1)));
+		}
+		if (opts.containsKey("o")) {
+			PrintWriter out = new PrintWriter(new FileWriter(opts.get("o")));
+			try {
+				out.println(CSV_HEADER);
+				for (Result r : results) out.println(r.csv());
+			} finally {
+				out.close();
+			}
+		}
+	}
+
+	/** Run c in forks fresh JVMs and pool their measured iterations */
+	static Result fork(Config c, int forks, int wi, int iters, long millis) throws Exception {
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<Result> runs = new ArrayList<Result>();
+		for (int f = 0; f < forks; f++) {
+			ProcessBuilder pb = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+					PathBenchmark.class.getName(), "-child", c.key(),
+					"-wi", "" + wi, "-i", "" + iters, "-t", "" + millis);
+			pb.redirectError(ProcessBuilder.Redirect.INHERIT);
+			Process p = pb.start();
+			BufferedReader in = new BufferedReader(new InputStreamReader(p.getInputStream()));
+			Result r = null;
+			String line;
+			while ((line = in.readLine()) != null)
+				if (line.startsWith("RESULT ")) r = Result.parse(line.substring(7));
+			if (p.waitFor() != 0 || r == null)
+				throw new IOException("benchmark " + c.key() + " failed");
+			runs.add(r);
+		}
+		if (runs.size() == 1) return runs.get(0);
+		// pool: the mean of the means, and the spread of the iterations
+		// round the pooled mean
+		Result pooled = new Result();
+		pooled.config = c;
+		double var = 0;
+		for (Result r : runs) {
+			pooled.opsPerSec += r.opsPerSec / forks;
+			pooled.bytesPerOp += r.bytesPerOp / forks;
+			pooled.allocPerSec += r.allocPerSec / forks;
+			pooled.expandedPerOp += r.expandedPerOp / forks;
+			pooled.gcCount += r.gcCount;
+			pooled.gcMillis += r.gcMillis;
+		}
+		for (Result r : runs)
+			var += (r.sd*r.sd + Math.pow(r.opsPerSec - pooled.opsPerSec, 2)) / forks;
+		pooled.sd = Math.sqrt(var);
+		return pooled;
+	}
+
+	/** Run c in this JVM */
+	static Result run(Config c, int wi, int iters, long millis) {
+		OccupancyGrid grid = grid(c.size, c.density);
+		Position[][] queries = queries(grid, c.dist);
+		AStarTraversal t;
+		PathHierarchy hierarchy = null;
+		if (c.mode.equals("hierarchy")) {
+			t = new AStarTraversal(grid);
+			hierarchy = new PathHierarchy(grid, 10);
+			t.setPathHierarchy(hierarchy);
+		} else {
+			t = new AStarTraversal(grid, AStarTraversal.SearchMode.valueOf(c.mode));
+		}
+
+		com.sun.management.ThreadMXBean threads = allocationCounter();
+		long thread = Thread.currentThread().getId();
+		double[] scores = new double[iters];
+		long ops = 0, expanded = 0, bytes = 0, nanos = 0, gcCount = 0, gcMillis = 0;
+		int q = 0;
+		for (int i = -wi; i < iters; i++) {
+			long gc0 = gcCount(), gcTime0 = gcMillis();
+			long bytes0 = threads == null ? 0 : threads.getThreadAllocatedBytes(thread);
+			long n = 0, cells = 0;
+			double d = 0;
+			long start = System.nanoTime();
+			long end = start + millis * 1000000L;
+			long now;
+			do {
+				Position[] query = queries[q];
+				if (++q == queries.length) q = 0;
+				AStarNode node = (AStarNode) t.generalSearch(query[0], query[1]);
+				d += node.getDistTravelled();
+				cells += hierarchy != null ? hierarchy.getNodesExpanded() : t.getNodesExpanded();
+				n++;
+			} while ((now = System.nanoTime()) < end);
+			long bytes1 = threads == null ? 0 : threads.getThreadAllocatedBytes(thread);
+			sink += d;
+			if (i < 0) continue;
+			scores[i] = n * 1e9 / (now - start);
+			ops += n;
+			expanded += cells;
+			bytes += bytes1 - bytes0;
+			nanos += now - start;
+			gcCount += gcCount() - gc0;
+			gcMillis += gcMillis() - gcTime0;
+		}
+
+		Result r = new Result();
+		r.config = c;
+		for (double s : scores) r.opsPerSec += s / iters;
+		for (double s : scores) r.sd += (s - r.opsPerSec)*(s - r.opsPerSec);
+		r.sd = iters > 1 ? Math.sqrt(r.sd / (iters - 1)) : 0;
+		r.bytesPerOp = threads == null ? Double.NaN : (double) bytes / ops;
+		r.allocPerSec = threads == null ? Double.NaN : bytes * 1e9 / nanos;
+		r.expandedPerOp = (double) expanded / ops;
+		r.gcCount = gcCount;
+		r.gcMillis = gcMillis;
+		return r;
+	}
+
+	/** size x size with density percent of the cells blocked, the same
+	 *  every run */
+	static OccupancyGrid grid(int size, int density) {
+		OccupancyGrid grid = new OccupancyGrid(size, size);
+		Random rand = new Random(size * 1000L + density);
+		BitSet blocked = new BitSet(size*size);
+		for (int cell = 0; cell < size*size; cell++)
+			if (rand.nextInt(100) < density) blocked.set(cell);
+		grid.claimAll(blocked);
+		return grid;
+	}
+
+	/** QUERIES start and goal pairs for dist, each with a path between
+	 *  them, the same every run */
+	static Position[][] queries(OccupancyGrid grid, String dist) {
+		int size = grid.getWidth();
+		int[] component = components(grid);
+		Random rand = new Random(dist.hashCode() * 31L + size);
+		Position[][] queries = new Position[QUERIES][];
+		int found = 0;
+		for (int tries = 0; found < QUERIES; tries++) {
+			if (tries > 1000 * QUERIES)
+				throw new IllegalStateException("can't find " + QUERIES + " " + dist + " queries");
+			int sx, sy = rand.nextInt(size), gx, gy;
+			if (dist.equals("cross")) {
+				int band = Math.max(1, size / 10);
+				sx = rand.nextInt(band);
+				gx = size - 1 - rand.nextInt(band);
+				gy = rand.nextInt(size);
+			} else if (dist.equals("near")) {
+				sx = rand.nextInt(size);
+				gx = Math.min(size - 1, Math.max(0, sx + rand.nextInt(2*NEAR + 1) - NEAR));
+				gy = Math.min(size - 1, Math.max(0, sy + rand.nextInt(2*NEAR + 1) - NEAR));
+			} else {
+				sx = rand.nextInt(size);
+				gx = rand.nextInt(size);
+				gy = rand.nextInt(size);
+			}
+			int s = component[sx*size + sy], g = component[gx*size + gy];
+			if (s == 0 || s != g || (sx == gx && sy == gy)) continue;
+			queries[found++] = new Position[] {new Position(sx, sy), new Position(gx, gy)};
+		}
+		return queries;
+	}
+
+	/** Label the free cells by which 8-connected area they are in, from 1;
+	 *  blocked cells are 0 */
+	static int[] components(OccupancyGrid grid) {
+		int w = grid.getWidth(), h = grid.getHeight();
+		int[] label = new int[w*h];
+		int[] stack = new int[w*h];
+		int next = 0;
+		for (int cell = 0; cell < w*h; cell++) {
+			if (label[cell] != 0 || !grid.isFree(cell / h, cell % h)) continue;
+			label[cell] = ++next;
+			int top = 0;
+			stack[top++] = cell;
+			while (top > 0) {
+				int c = stack[--top];
+				int x = c / h, y = c % h;
+				for (int i = -1; i <= 1; i++)
+					for (int j = -1; j <= 1; j++) {
+						int nx = x + i, ny = y + j;
+						if (nx < 0 || ny < 0 || nx >= w || ny >= h) continue;
+						int n = nx*h + ny;
+						if (label[n] != 0 || !grid.isFree(nx, ny)) continue;
+						label[n] = next;
+						stack[top++] = n;
+					}
+			}
+		}
+		return label;
+	}
+
+	static com.sun.management.ThreadMXBean allocationCounter() {
+		try {
+			com.sun.management.ThreadMXBean threads =
+					(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+			if (!threads.isThreadAllocatedMemorySupported()) return null;
+			threads.setThreadAllocatedMemoryEnabled(true);
+			return threads;
+		} catch (ClassCastException e) { // not a HotSpot JVM
+			return null;
+		}
+	}
+	static long gcCount() {
+		long n = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			n += Math.max(0, gc.getCollectionCount());
+		return n;
+	}
+	static long gcMillis() {
+		long n = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			n += Math.max(0, gc.getCollectionTime());
+		return n;
+	}
+
+	static Map<String, Result> readCsv(String file) throws IOException {
+		Map<String, Result> results = new HashMap<String, Result>();
+		BufferedReader in = new BufferedReader(new FileReader(file));
+		try {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (line.length() == 0 || line.equals(CSV_HEADER)) continue;
+				Result r = Result.parse(line);
+				results.put(r.config.key(), r);
+			}
+		} finally {
+			in.close();
+		}
+		return results;
+	}
+
+	static void check(Config c) {
+		if (c.size < 2 || c.density < 0 || c.density >= 100)
+			usage("bad size or density in " + c.key());
+		if (!Arrays.asList("uniform", "cross", "near").contains(c.dist))
+			usage("don't know -dist " + c.dist);
+		if (!Arrays.asList(MODES.split(",")).contains(c.mode))
+			usage("don't know -mode " + c.mode);
+	}
+	static String get(Map<String, String> opts, String name, String otherwise) {
+		String v = opts.get(name);
+		return v == null ? otherwise : v;
+	}
+	static void usage(String problem) {
+		System.err.println(problem);
+		System.err.println("usage: PathBenchmark [-size 100,300,1000] [-density 0,20] "
+				+ "[-dist uniform,cross,near] [-mode " + MODES + "] "
+				+ "[-wi 3] [-i 5] [-t 1000] [-f 1] [-o file] [-baseline file]");
+		System.exit(2);
+	}
+}
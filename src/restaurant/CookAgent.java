@@ -3,6 +3,7 @@ package restaurant;
 import agent.Agent;
 import restaurant.interfaces.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import restaurant.MarketAgent;
 import restaurant.WaiterAgent.CustomerState;
@@ -19,11 +20,24 @@ public class CookAgent extends Agent implements Cook {
 	// *** DATA ****
 	
 	//The Shared order "revolving stand" for use by certain waiters
-	public List<Order> revolvingStand = Collections.synchronizedList(new ArrayList<Order>());
+	public RevolvingStand revolvingStand = new RevolvingStand(256);
 
-	// List of all the orders and inventory of food items
-	private List<Order> orders = Collections.synchronizedList(new ArrayList<Order>());
-	private Map<String, FoodData> inventory = Collections.synchronizedMap(new HashMap<String, FoodData>());
+	// The kitchen, which keeps our pending orders for us (and lets other
+	// cooks take them), and our number there
+	private Kitchen kitchen;
+	private int kitchenIndex;
+	// The orders we are cooking, at most maxCooking at once, and the
+	// ones done.  An order is in the one for its status.
+	private int maxCooking = 4;
+	private Set<Order> cooking = Collections.newSetFromMap(new ConcurrentHashMap<Order, Boolean>());
+	private Queue<Order> done = new ConcurrentLinkedQueue<Order>();
+	// The kitchen's inventory of food items, and the orders we had no
+	// food left for, whose waiters haven't been told yet
+	private Inventory inventory;
+	private Queue<Order> turnedAway = new ConcurrentLinkedQueue<Order>();
+	// Tables whose waiters cancelled their order (as orders with no
+	// choice), to take out of the kitchen
+	private Queue<Order> cancelled = new ConcurrentLinkedQueue<Order>();
 
 	public enum OrderStatus {
 		pending, cooking, done
@@ -35,59 +49,40 @@ public class CookAgent extends Agent implements Cook {
 	//Agent Connections
 	private Cashier csr;
 
-	// Timer for simulation
-	Timer timer = new Timer();
-	Restaurant restaurant; // Gui layout
+	RestaurantLayout restaurant; // Gui layout
 	Random rand = new Random(); //utility
 	
 	//List of Markets to order from
 	private List<MyMarket> markets = new ArrayList<MyMarket>();
 	
-	private boolean marketOrderIsPlaced; //default false
 
 	/**
-	 * Constructor for CookAgent class
+	 * Constructor for CookAgent class, for a cook with a kitchen of his
+	 * own (Kitchen.standard())
 	 * 
 	 * @param name
 	 *            name of the cook
 	 */
-	public CookAgent(String name, Restaurant restaurant) {
-		super();
-
-		this.name = name;
-		this.restaurant = restaurant;
-		// Create the restaurant's inventory: name, cookTime, amount in inventory
-		inventory.put("Steak", new FoodData("Steak",     5, 0));
-		inventory.put("Chicken", new FoodData("Chicken", 4, 2));
-		inventory.put("Pizza", new FoodData("Pizza",     3, 2));
-		inventory.put("Salad", new FoodData("Salad",     2, 2));
-		
-		marketOrderIsPlaced = false;
+	public CookAgent(String name, RestaurantLayout restaurant) {
+		this(name, restaurant, Kitchen.standard());
 	}
 
 	/**
-	 * Private class to store information about food. Contains the food type,
-	 * its cooking time, and ...
+	 * Constructor for CookAgent class
+	 * 
+	 * @param name
+	 *            name of the cook
+	 * @param kitchen
+	 *            the kitchen he works in, maybe with other cooks
 	 */
-	private class FoodData {
-		public String type; // kind of food
-		public double cookTime;
+	public CookAgent(String name, RestaurantLayout restaurant, Kitchen kitchen) {
+		super();
 
-		// other things ...
-		public int amount;
-		
-		public FoodData(String type, double cookTime, int amount) {
-			this.type = type;
-			this.cookTime = cookTime;
-			this.amount = amount;
-		}
-		//for use when market delivers food
-		public void addToInventory(int amount) {
-			this.amount += amount;
-		}
-		public String getType() {
-			return type;
-		}
+		this.name = name;
+		this.restaurant = restaurant;
+		this.kitchen = kitchen;
+		kitchenIndex = kitchen.join(this);
+		inventory = kitchen.getInventory();
 	}
 
 	/*
@@ -165,14 +160,32 @@ public class CookAgent extends Agent implements Cook {
 	 *            identification number for the table
 	 * @param choice
 	 *            type of food to be cooked
+	 * @param waitingSince
+	 *            simulation time the table started waiting
 	 */
-	public void msgHereIsAnOrder(Waiter waiter, int tableNum, String choice) {
-		orders.add(new Order(waiter, tableNum, choice));
+	public void msgHereIsAnOrder(Waiter waiter, int tableNum, String choice, long waitingSince) {
+		Order order = new Order(waiter, tableNum, choice);
+		order.waitingSince = waitingSince;
+		accept(order);
+		stateChanged();
+	}
+	
+	/** Message from a shared data waiter who put an order on the
+	 *  revolving stand */
+	public void msgOrderOnRevolvingStand() {
+		stateChanged();
+	}
+	
+	/** Message from a waiter whose table won't have the order it gave:
+	 *  if it hasn't been started, its food goes back in stock */
+	public void msgCancelOrder(Waiter waiter, int tableNum) {
+		cancelled.add(new Order(waiter, tableNum, null));
 		stateChanged();
 	}
 	
 	/** Message from Market of food delivery */
 	public void msgFoodDelivery(Market m, String foodType, int amount) {
+		int item = inventory.idOf(foodType);
 		//if order is empty (market is out of stock), change market status
 		if (amount == 0) {
 			for (MyMarket myMarket: markets) {
@@ -181,14 +194,20 @@ public class CookAgent extends Agent implements Cook {
 					break;
 				}
 			}
+			if (item != -1) {
+				inventory.orderFailed(item);
+			}
 		}
 		//add received food to inventory
-		else {
-			synchronized(inventory) {
-				inventory.get(foodType).addToInventory(amount);
-			}
+		else if (item != -1) {
+			inventory.deliver(item, amount);
 		}
-		marketOrderIsPlaced = false;
+		stateChanged();
+	}
+	
+	/** Message from the kitchen: another cook has an order we could take,
+	 *  or a station has room again */
+	void msgKitchenChanged() {
 		stateChanged();
 	}
 	
@@ -196,60 +215,54 @@ public class CookAgent extends Agent implements Cook {
 	//
 	/** Scheduler. Determine what action is called for, and do it. */
 	protected boolean pickAndExecuteAnAction() {
-		//if there exists food in inventory such that the amount is 0, order more
-		FoodData foodTemp = null;
-		synchronized(inventory) {
-			for (FoodData foodData : inventory.values()) {
-				//debug: System.out.println(foodData.amount);
-				if (foodData.amount == 0 && !marketOrderIsPlaced) 
-				{
-					foodTemp = foodData;
-					break;
-				}
+		//if there exists food in inventory such that the amount is 0, and
+		//no cook has ordered more yet, order more
+		if (!markets.isEmpty()) {
+			int out = inventory.claimOut();
+			if (out != -1) {
+				int randomNum = (rand.nextInt(5) + 1);
+				orderMoreFromMarket(inventory.getName(out), randomNum); //order 1-5 more
+				return true;
 			}
 		}
-		if (foodTemp != null) {
-			int randomNum = (rand.nextInt(5) + 1);
-			orderMoreFromMarket(foodTemp.type, randomNum); //order 1-5 more
-			return true;
-		}
 		
 		// If there exists an order o whose status is done, place o.
-		Order temp = null;
-		synchronized(orders) {
-			for (Order o : orders) {
-				if (o.status == OrderStatus.done) {
-					temp = o;
-					break;
-				}
-			}
-		}
+		Order temp = done.poll();
 		if (temp != null) {
 			placeOrder(temp);
 			return true;
 		}
 		
-		// If there exists an order o whose status is pending, cook o.
-		temp = null;
-		synchronized(orders) {
-			for (Order o : orders) {
-				if (o.status == OrderStatus.pending) {
-					temp = o;
-					break;
-				}
-			}
+		// If there exists an order o we had no food for, tell its waiter.
+		temp = turnedAway.poll();
+		if (temp != null) {
+			tellOutOfChoice(temp);
+			return true;
 		}
+		
+		// If a waiter cancelled an order, take it out before it is cooked.
+		temp = cancelled.poll();
 		if (temp != null) {
-			cookOrder(temp);
+			cancelOrder(temp.waiter, temp.tableNum);
 			return true;
 		}
 		
-		// If there exists an order o on the revolving stand, move to orders and remove from stand
-		if (!revolvingStand.isEmpty()) {
-			synchronized(revolvingStand) {
-				moveToOrders(revolvingStand.remove(0));
+		// If we have a free hand and there exists an order o, ours or
+		// another cook's, whose station has room, cook o (and the rest of
+		// its batch) -- the kitchen's policy says which o.
+		if (cooking.size() < maxCooking) {
+			List<Order> batch = kitchen.take(kitchenIndex, maxCooking - cooking.size());
+			if (batch != null) {
+				cookBatch(batch);
+				return true;
 			}
 		}
+		
+		// If there are orders on the revolving stand, move them all to orders
+		if (!revolvingStand.isEmpty()) {
+			moveToOrders();
+			return true;
+		}
 
 		// we have tried all our rules (in this case only one) and found
 		// nothing to do. So return false to main loop of abstract agent
@@ -260,34 +273,75 @@ public class CookAgent extends Agent implements Cook {
 	// *** ACTIONS ***
 	//
 	/**
-	 * Starts a timer for the order that needs to be cooked.
+	 * Starts a timer for the orders that need to be cooked, together.
 	 * 
-	 * @param order
+	 * @param batch
+	 *            orders of one dish, usually just one
 	 */
-	private void cookOrder(Order order) {
-		DoCooking(order); //<< print happens there
-		order.status = OrderStatus.cooking;
+	private void cookBatch(List<Order> batch) {
+		for (Order order : batch) {
+			order.status = OrderStatus.cooking;
+			cooking.add(order);
+		}
+		boolean started = false;
+		try {
+			DoCooking(batch); //<< print happens there
+			started = true;
+		} finally {
+			//orders that can't be cooked give their place, and their
+			//food, back
+			if (!started) {
+				cooking.removeAll(batch);
+				kitchen.done(kitchenIndex, batch.get(0));
+				for (Order order : batch) {
+					inventory.release(order.item);
+				}
+			}
+		}
 	}
 
 	private void placeOrder(Order order) {
 		DoPlacement(order); //<< print happens there
 		order.waiter.msgOrderIsReady(order.tableNum, order.food);
-		orders.remove(order);
+	}
+
+	/** Tell order's waiter we are out of what the customer chose */
+	private void tellOutOfChoice(Order order) {
+		print("Out of " + order.choice + " for table:" + (order.tableNum + 1));
+		order.waiter.msgOutOfChoice(order.choice, order.tableNum);
+	}
+
+	/** Take waiter's order for table tableNum out of the kitchen and put
+	 *  its food back, unless a cook has started it */
+	private void cancelOrder(Waiter waiter, int tableNum) {
+		moveToOrders(); // it may still be on the revolving stand
+		Order order = kitchen.cancel(waiter, tableNum);
+		if (order != null) {
+			print("Cancelled " + order.choice + " for table:" + (tableNum + 1));
+			inventory.release(order.item);
+		}
+	}
+
+	/** Take order if there is food left for it, or else turn it away.
+	 *  The food is the order's from now on. */
+	private void accept(Order order) {
+		order.item = inventory.idOf(order.choice);
+		if (order.item != -1 && inventory.reserve(order.item)) {
+			kitchen.submit(kitchenIndex, order);
+		}
+		else {
+			turnedAway.add(order);
+		}
 	}
 	
 	/** Order more food from market */
 	private void orderMoreFromMarket(String foodType, int amount) {
-		//check that markets have been set
-		if (markets.size()==0) {
-			return;
-		}
 		//find market to order from that has food stocked
 		for (MyMarket market: markets) {
 			//if market is not out of that type of food
 			if (market.inventoryStatus.get(foodType) != MarketInventoryStatus.out) {
 				System.out.println(this+": ordered "+amount+" of "+foodType+" from "+market.mkt);
 				market.mkt.msgOrderFood(foodType, amount, csr, this);
-				marketOrderIsPlaced = true;
 				return;
 			}
 		}
@@ -295,14 +349,16 @@ public class CookAgent extends Agent implements Cook {
 		int randomNum = rand.nextInt(10);
 		System.out.println(this+": ordered "+amount+" of "+foodType+" from random market");
 		markets.get(randomNum).mkt.msgOrderFood(foodType, amount, csr, this);
-		marketOrderIsPlaced = true;
 	}
 	
-	/** Take order off of revolving stand */
-	private void moveToOrders(Order o) {
-		System.out.println(this+": taking order of "+o.choice+" for table "+o.tableNum+" off of revolving stand");
-		orders.add(new Order(o));
-		stateChanged();
+	/** Take every order off of revolving stand */
+	private void moveToOrders() {
+		List<Order> stand = new ArrayList<Order>();
+		revolvingStand.drainTo(stand);
+		for (Order o : stand) {
+			System.out.println(this+": taking order of "+o.choice+" for table "+o.tableNum+" off of revolving stand");
+			accept(new Order(o));
+		}
 	}
 
 	// *** EXTRA -- all the simulation routines***
@@ -316,6 +372,15 @@ public class CookAgent extends Agent implements Cook {
 		return "cook " + name;
 	}
 	
+	/** Set how many orders the cook tends at once (4 to start with) */
+	public void setMaxCooking(int maxCooking) {
+		this.maxCooking = maxCooking;
+	}
+
+	public Kitchen getKitchen() {
+		return kitchen;
+	}
+
 	/** establish connection to cashier agent. */
 	public void setCashier(Cashier c) {
 		this.csr = c;
@@ -328,19 +393,28 @@ public class CookAgent extends Agent implements Cook {
 		}
 	}
 
-	private void DoCooking(final Order order) {
-		print("Cooking: " + order + " for table:" + (order.tableNum + 1));
-		// put it on the grill. gui stuff
-		order.food = new Food(order.choice.substring(0, 2), new Color(0, 255,
-				255), restaurant);
-		order.food.cookFood();
+	private void DoCooking(final List<Order> batch) {
+		for (Order order : batch) {
+			print("Cooking: " + order + " for table:" + (order.tableNum + 1));
+			// put it on the grill. gui stuff
+			order.food = new Food(order.choice.substring(0, 2), new Color(0, 255,
+					255), restaurant);
+			order.food.cookFood();
+		}
 
-		timer.schedule(new TimerTask() {
+		final Order first = batch.get(0);
+		schedule(new TimerTask() {
 			public void run() {// this routine is like a message reception
-				order.status = OrderStatus.done;
+				for (Order order : batch) {
+					cooking.remove(order);
+					inventory.consume(order.item);
+					order.status = OrderStatus.done;
+					done.add(order);
+				}
+				kitchen.done(kitchenIndex, first);
 				stateChanged();
 			}
-		}, (int) (inventory.get(order.choice).cookTime * 1000));
+		}, (int) (first.cookTime * 1000));
 	}
 
 	public void DoPlacement(Order order) {
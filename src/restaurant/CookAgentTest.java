@@ -0,0 +1,79 @@
+package restaurant;
+
+import static org.junit.Assert.*;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.OccupancyGrid;
+import restaurant.layoutGUI.HeadlessRestaurant;
+
+/**
+ * Tests that a cancelled order gives its food back to the kitchen's
+ * inventory.  In package restaurant, to run the cook's scheduler by hand
+ * without starting its thread.
+ */
+public class CookAgentTest extends TestCase {
+
+	private HeadlessRestaurant restaurant = new HeadlessRestaurant(10, 10,
+			new OccupancyGrid(11, 11));
+
+	/** Run the cook's scheduler until it has nothing to do */
+	private void runScheduler(CookAgent cook) {
+		for (int i = 0; i < 100 && cook.pickAndExecuteAnAction(); i++);
+	}
+
+	/**
+	 * An order cancelled before the cook starts it comes out of the
+	 * kitchen and its food goes back in stock.
+	 */
+	@Test
+	public void testCancelGivesFoodBack() {
+		CookAgent cook = new CookAgent("cook", restaurant);
+		Inventory inventory = cook.getKitchen().getInventory();
+		int chicken = inventory.idOf("Chicken");
+		int before = inventory.getAvailable(chicken);
+
+		cook.msgHereIsAnOrder(null, 3, "Chicken", 0);
+		assertEquals("Taking the order should promise a chicken", 1, inventory.getReserved(chicken));
+		assertEquals(before - 1, inventory.getAvailable(chicken));
+
+		cook.msgCancelOrder(null, 3);
+		runScheduler(cook);
+		assertEquals("Cancelling should put the chicken back", before, inventory.getAvailable(chicken));
+		assertEquals("Nothing should be promised", 0, inventory.getReserved(chicken));
+		assertEquals("Nothing should be served", 0, inventory.getServed(chicken));
+	}
+
+	/** An order still on the revolving stand can be cancelled too. */
+	@Test
+	public void testCancelFromRevolvingStand() {
+		CookAgent cook = new CookAgent("cook", restaurant);
+		Inventory inventory = cook.getKitchen().getInventory();
+		int pizza = inventory.idOf("Pizza");
+		int before = inventory.getAvailable(pizza);
+
+		assertTrue(cook.revolvingStand.offer(new Order(null, 2, "Pizza")));
+		cook.msgCancelOrder(null, 2);
+		runScheduler(cook);
+		assertEquals("The pizza should be back in stock", before, inventory.getAvailable(pizza));
+		assertEquals(0, inventory.getReserved(pizza));
+		assertTrue("Nothing should be left on the stand", cook.revolvingStand.isEmpty());
+	}
+
+	/** Cancelling a table with no order waiting changes nothing. */
+	@Test
+	public void testCancelNothing() {
+		CookAgent cook = new CookAgent("cook", restaurant);
+		Inventory inventory = cook.getKitchen().getInventory();
+		int salad = inventory.idOf("Salad");
+		int before = inventory.getAvailable(salad);
+
+		cook.msgHereIsAnOrder(null, 1, "Salad", 0);
+		cook.msgCancelOrder(null, 5);
+		assertTrue("The cook should have the cancel to deal with", cook.pickAndExecuteAnAction());
+		assertEquals("Table 1's salad should still be promised", 1, inventory.getReserved(salad));
+		assertEquals(before - 1, inventory.getAvailable(salad));
+	}
+}
@@ -4,6 +4,7 @@ import restaurant.gui.RestaurantGui;
 import restaurant.interfaces.*;
 import restaurant.layoutGUI.*;
 import agent.Agent;
+import agent.SimulationClock;
 import restaurant.Bill.*;
 import java.util.*;
 import java.util.concurrent.Semaphore;
@@ -17,6 +18,8 @@ import java.awt.Color;
 public class CustomerAgent extends Agent implements Customer {
 	private String name;
 	private int hungerLevel = 5; // Determines length of meal
+	private int partySize = 1; // how many the host needs seats for
+	private boolean vip = false; // seated ahead of the rest of the wait list
 	private RestaurantGui gui;
 	
 	public Semaphore orderingSem = new Semaphore(1,true); //Binary, fair Semaphore
@@ -25,10 +28,9 @@ public class CustomerAgent extends Agent implements Customer {
 	private HostAgent host;
 	private Waiter waiter;
 	private Cashier cashier;
-	Restaurant restaurant;
+	RestaurantLayout restaurant;
 	private Menu menu;
 	// ** utilities **
-	Timer timer = new Timer();
 	Random rand = new Random();
 	GuiCustomer guiCustomer; // for gui
 	// ** Agent state **
@@ -66,7 +68,7 @@ public class CustomerAgent extends Agent implements Customer {
 	 * @param gui
 	 *            reference to the gui so the customer can send it messages
 	 */
-	public CustomerAgent(String name, RestaurantGui gui, Restaurant restaurant) {
+	public CustomerAgent(String name, RestaurantGui gui, RestaurantLayout restaurant) {
 		super();
 		this.gui = gui;
 		this.name = name;
@@ -75,7 +77,7 @@ public class CustomerAgent extends Agent implements Customer {
 				new Color(0, 255, 0), restaurant);
 	}
 
-	public CustomerAgent(String name, Restaurant restaurant) {
+	public CustomerAgent(String name, RestaurantLayout restaurant) {
 		super();
 		this.gui = null;
 		this.name = name;
@@ -296,9 +298,10 @@ public class CustomerAgent extends Agent implements Customer {
 			
 			//gui
 			guiCustomer.leave(); // for the animation
-			gui.setCustomerEnabled(this); // Message to gui to enable hunger button
 			// hack to keep customer getting hungry. Only for non-gui customers
-			if (gui == null)
+			if (gui != null)
+				gui.setCustomerEnabled(this); // Message to gui to enable hunger button
+			else
 				becomeHungryInAWhile();// set a timer to make us hungry
 		}
 		stateChanged();
@@ -307,7 +310,7 @@ public class CustomerAgent extends Agent implements Customer {
 	/** Starts a timer to simulate the customer thinking about the menu */
 	private void makeMenuChoice() {
 		print("Deciding menu choice...(3000 milliseconds)");
-		timer.schedule(new TimerTask() {
+		schedule(new TimerTask() {
 			public void run() {
 				msgDecided();
 			}
@@ -318,18 +321,18 @@ public class CustomerAgent extends Agent implements Customer {
 	private void multiStepOrdering() {
 		//Customer tells waiter he is ready to order.
 		try {
-			orderingSem.acquire();
+			SimulationClock.getClock().acquire(orderingSem);
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
 		callWaiter();
 		orderingSem.release();
 		//wait for waiter to be ready to take order
-		try { Thread.sleep(1000); } catch(InterruptedException ex) { Thread.currentThread().interrupt(); }
+		try { SimulationClock.getClock().sleep(1000); } catch(InterruptedException ex) { Thread.currentThread().interrupt(); }
 		
 		//Customer tells him.
 		try {
-			orderingSem.acquire();
+			SimulationClock.getClock().acquire(orderingSem);
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
@@ -356,7 +359,7 @@ public class CustomerAgent extends Agent implements Customer {
 	/** Starts a timer to simulate eating */
 	private void eatFood() {
 		print("Eating for " + hungerLevel * 1000 + " milliseconds.");
-		timer.schedule(new TimerTask() {
+		schedule(new TimerTask() {
 			public void run() {
 				msgDoneEating();
 			}
@@ -382,10 +385,10 @@ public class CustomerAgent extends Agent implements Customer {
 		cash = (double)rand.nextInt(30);
 		state = AgentState.DoingNothing;
 		stateChanged();
-		gui.setCustomerEnabled(this); // Message to gui to enable hunger button
-
 		// hack to keep customer getting hungry. Only for non-gui customers
-		if (gui == null)
+		if (gui != null)
+			gui.setCustomerEnabled(this); // Message to gui to enable hunger button
+		else
 			becomeHungryInAWhile();// set a timer to make us hungry.
 	}
 	
@@ -400,7 +403,7 @@ public class CustomerAgent extends Agent implements Customer {
 		state = AgentState.Working;
 		cashier.msgWillWorkFor(this, bill, hoursToWork);
 		System.out.println(this+": washing dishes for "+(hoursToWork*1000)+"ms");
-		timer.schedule( new TimerTask() {
+		schedule( new TimerTask() {
 			public void run() {
 				doneWorking();
 			}
@@ -419,7 +422,7 @@ public class CustomerAgent extends Agent implements Customer {
 	 * hack that is used when the GUI is not being used
 	 */
 	private void becomeHungryInAWhile() {
-		timer.schedule(new TimerTask() {
+		schedule(new TimerTask() {
 			public void run() {
 				setHungry();
 			}
@@ -476,6 +479,25 @@ public class CustomerAgent extends Agent implements Customer {
 		this.hungerLevel = hungerLevel;
 	}
 
+	/** @return how many people the customer needs a table for */
+	public int getPartySize() {
+		return partySize;
+	}
+
+	/** Sets how many people the customer needs a table for */
+	public void setPartySize(int partySize) {
+		this.partySize = partySize;
+	}
+
+	/** @return true if the host seats the customer ahead of the others */
+	public boolean isVip() {
+		return vip;
+	}
+
+	public void setVip(boolean vip) {
+		this.vip = vip;
+	}
+
 	public GuiCustomer getGuiCustomer() {
 		return guiCustomer;
 	}
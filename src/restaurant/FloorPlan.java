@@ -0,0 +1,274 @@
+package restaurant;
+
+import astar.FlowFields;
+import astar.OccupancyGrid;
+import restaurant.layoutGUI.*;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A restaurant floor: its size, the wait area, counter and grill, the
+ * tables and any walls, read from and written to a small text file so
+ * floors far bigger than the default 20 x 15 can be tried.  build() lays
+ * the whole floor onto an OccupancyGrid in one claimAll() and the tables
+ * onto a Table[] and the layout.
+ *
+ * Coordinates are 1-based like the layout's; row and column 0 are always
+ * blocked.  The file is lines of
+ * <pre>
+ *   # a comment
+ *   floor 20 15          width and height
+ *   wait 2 2 13          x, y and length of the wait area column
+ *   counter 17 2 13
+ *   grill 19 3 10
+ *   table T1 5 3 3       name, x, y and size of a square table
+ *   rows                 then one line of walls per y from 1, run-length
+ *   4.3#                 encoded: a count (1 if left out) and '.' for a
+ *                        free cell or '#' for a wall, the rest free
+ * </pre>
+ * floor comes first; the rest in any order before rows.
+ */
+public class FloorPlan {
+	private int width, height;
+	private int[] waitArea, counter, grill; // x, y, length
+	private List<Table> tables = new ArrayList<Table>();
+	private BitSet walls = new BitSet(); // numbered like the grid, x*(height+1) + y
+
+	/** An empty floor of width x height cells */
+	public FloorPlan(int width, int height) {
+		if (width < 1 || height < 1)
+			throw new IllegalArgumentException("floor " + width + " x " + height);
+		this.width = width;
+		this.height = height;
+	}
+
+	public int getWidth() {return width;}
+	public int getHeight() {return height;}
+	public int getTableCount() {return tables.size();}
+
+	public void setWaitArea(int x, int y, int length) {
+		waitArea = column(x, y, length);
+	}
+	public void setCounter(int x, int y, int length) {
+		counter = column(x, y, length);
+	}
+	public void setGrill(int x, int y, int length) {
+		grill = column(x, y, length);
+	}
+	public void addTable(String name, int x, int y, int size) {
+		check(x, y);
+		check(x + size - 1, y + size - 1);
+		tables.add(new Table(name, x, y, size));
+	}
+	public void setWall(int x, int y) {
+		check(x, y);
+		walls.set(cell(x, y));
+	}
+
+	/** A grid the size of the floor, with the wasted row and column 0 */
+	public OccupancyGrid newGrid() {
+		return new OccupancyGrid(width + 1, height + 1);
+	}
+
+	/**
+	 * Add the cells the waiters walk to as destinations of fields: beside
+	 * the wait area, in front of the counter and at each table's corner.
+	 */
+	public void addDestinations(FlowFields fields) {
+		for (int i = 0; i < waitArea[2]; i++)
+			fields.addDestination(waitArea[0] + 1, waitArea[1] + i);
+		for (int i = 0; i < counter[2]; i++)
+			fields.addDestination(counter[0] - 1, counter[1] + i);
+		for (Table t : tables)
+			fields.addDestination(t.getX() - 1, t.getY() + 1);
+	}
+
+	/**
+	 * Block the walls, wait area, counter, grill and tables on grid (from
+	 * newGrid()) and put the tables in tables[0..] and on restaurant.
+	 * Tell restaurant about the floor before giving it layout listeners,
+	 * or each table is a layout change.
+	 */
+	public void build(OccupancyGrid grid, Table[] tables, RestaurantLayout restaurant) {
+		if (waitArea == null || counter == null || grill == null)
+			throw new IllegalStateException("floor needs a wait area, counter and grill");
+		int rows = height + 1;
+		BitSet blocked = (BitSet) walls.clone();
+		blocked.set(0, rows); // column 0
+		for (int x = 1; x <= width; x++) blocked.set(x*rows); // row 0
+		for (int[] c : new int[][] {waitArea, counter, grill})
+			blocked.set(cell(c[0], c[1]), cell(c[0], c[1]) + c[2]);
+		for (Table t : this.tables)
+			for (int i = 0; i < t.getSize(); i++)
+				blocked.set(cell(t.getX()+i, t.getY()), cell(t.getX()+i, t.getY()) + t.getSize());
+		grid.claimAll(blocked);
+
+		restaurant.addWaitArea(waitArea[0], waitArea[1], waitArea[2]);
+		restaurant.addCounter(counter[0], counter[1], counter[2]);
+		restaurant.addGrill(grill[0], grill[1], grill[2]);
+		for (int i = 0; i < this.tables.size(); i++) {
+			Table t = this.tables.get(i);
+			tables[i] = new Table(t.getName(), t.getX(), t.getY(), t.getSize());
+			restaurant.addTable(t.getName(), t.getX(), t.getY(), t.getSize());
+		}
+	}
+
+	/**
+	 * The default floor grown to width x height: the wait area down the
+	 * left, the counter and grill down the right and 3 x 3 tables every 5
+	 * cells between, with room to walk round each.  tiled(20, 15) is the
+	 * restaurant's usual floor.
+	 */
+	public static FloorPlan tiled(int width, int height) {
+		if (width < 8 || height < 6)
+			throw new IllegalArgumentException("floor " + width + " x " + height + " is too small");
+		FloorPlan f = new FloorPlan(width, height);
+		f.setWaitArea(2, 2, height - 2);
+		f.setCounter(width - 3, 2, height - 2);
+		f.setGrill(width - 1, 3, height - 5);
+		for (int x = 5; x + 3 <= width - 5; x += 5)
+			for (int y = 3; y + 3 <= height - 1; y += 5)
+				f.addTable("T" + (f.getTableCount()+1), x, y, 3);
+		return f;
+	}
+
+	/** The floor named by -Drestaurant.floor, or tiled(20, 15) if there is
+	 *  none or it won't load. */
+	public static FloorPlan configured() {
+		String file = System.getProperty("restaurant.floor");
+		if (file != null) {
+			try {
+				return load(file);
+			} catch (IOException e) {
+				System.out.println("Couldn't load floor plan " + file + ": " + e.getMessage());
+			}
+		}
+		return tiled(20, 15);
+	}
+
+	public static FloorPlan load(String file) throws IOException {
+		BufferedReader in = new BufferedReader(new FileReader(file), 1 << 16);
+		try {
+			return read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/** Read a floor plan in the format above */
+	public static FloorPlan read(BufferedReader in) throws IOException {
+		FloorPlan f = null;
+		int lineNo = 0;
+		String line;
+		while ((line = in.readLine()) != null) {
+			lineNo++;
+			line = line.trim();
+			if (line.length() == 0 || line.startsWith("#")) continue;
+			String[] w = line.split("\\s+");
+			try {
+				if (f == null) {
+					if (!w[0].equals("floor") || w.length != 3)
+						throw new IOException("line " + lineNo + ": expected floor <width> <height>");
+					f = new FloorPlan(Integer.parseInt(w[1]), Integer.parseInt(w[2]));
+				} else if (w[0].equals("rows") && w.length == 1) {
+					lineNo = f.readRows(in, lineNo);
+				} else if (w[0].equals("table") && w.length == 5) {
+					f.addTable(w[1], Integer.parseInt(w[2]), Integer.parseInt(w[3]), Integer.parseInt(w[4]));
+				} else if (w.length == 4) {
+					int[] a = {Integer.parseInt(w[1]), Integer.parseInt(w[2]), Integer.parseInt(w[3])};
+					if (w[0].equals("wait")) f.setWaitArea(a[0], a[1], a[2]);
+					else if (w[0].equals("counter")) f.setCounter(a[0], a[1], a[2]);
+					else if (w[0].equals("grill")) f.setGrill(a[0], a[1], a[2]);
+					else throw new IOException("line " + lineNo + ": don't know " + w[0]);
+				} else {
+					throw new IOException("line " + lineNo + ": don't know " + line);
+				}
+			} catch (IllegalArgumentException e) { // bad numbers too
+				throw new IOException("line " + lineNo + ": " + e.getMessage());
+			}
+		}
+		if (f == null) throw new IOException("no floor line");
+		return f;
+	}
+
+	/** Write the floor in the format read() reads, walls run-length encoded */
+	public void write(Writer out) throws IOException {
+		out.write("floor " + width + " " + height + "\n");
+		out.write("wait " + waitArea[0] + " " + waitArea[1] + " " + waitArea[2] + "\n");
+		out.write("counter " + counter[0] + " " + counter[1] + " " + counter[2] + "\n");
+		out.write("grill " + grill[0] + " " + grill[1] + " " + grill[2] + "\n");
+		for (Table t : tables)
+			out.write("table " + t.getName() + " " + t.getX() + " " + t.getY() + " " + t.getSize() + "\n");
+		if (walls.isEmpty()) return;
+		out.write("rows\n");
+		StringBuilder row = new StringBuilder();
+		for (int y = 1; y <= height; y++) {
+			row.setLength(0);
+			int x = 1;
+			while (x <= width) {
+				boolean wall = walls.get(cell(x, y));
+				int run = 1;
+				while (x + run <= width && walls.get(cell(x + run, y)) == wall) run++;
+				if (!wall && x + run > width) break; // the rest is free
+				if (run > 1) row.append(run);
+				row.append(wall ? '#' : '.');
+				x += run;
+			}
+			out.write(row.append('\n').toString());
+		}
+	}
+
+	/** Read the walls, one line per y, and return the last line number */
+	private int readRows(BufferedReader in, int lineNo) throws IOException {
+		for (int y = 1; y <= height; y++) {
+			String line = in.readLine();
+			if (line == null) break; // the rest is free
+			lineNo++;
+			int x = 1, run = 0;
+			for (int i = 0; i < line.length(); i++) {
+				char c = line.charAt(i);
+				if (c >= '0' && c <= '9') {
+					run = run*10 + (c - '0');
+					continue;
+				}
+				if (run == 0) run = 1;
+				if (x + run - 1 > width)
+					throw new IOException("line " + lineNo + ": row is wider than the floor");
+				if (c == '#') {
+					for (int j = 0; j < run; j++) walls.set(cell(x + j, y));
+				} else if (c != '.') {
+					throw new IOException("line " + lineNo + ": don't know '" + c + "'");
+				}
+				x += run;
+				run = 0;
+			}
+		}
+		return lineNo;
+	}
+
+	private int[] column(int x, int y, int length) {
+		check(x, y);
+		check(x, y + length - 1);
+		return new int[] {x, y, length};
+	}
+	private void check(int x, int y) {
+		if (x < 1 || y < 1 || x > width || y > height)
+			throw new IllegalArgumentException("(" + x + "," + y + ") is off the " + width + " x " + height + " floor");
+	}
+	private int cell(int x, int y) {
+		return x*(height + 1) + y;
+	}
+
+	/** FloorPlan width height file: write a tiled floor of that size to file */
+	public static void main(String[] args) throws IOException {
+		Writer out = new BufferedWriter(new FileWriter(args[2]));
+		try {
+			tiled(Integer.parseInt(args[0]), Integer.parseInt(args[1])).write(out);
+		} finally {
+			out.close();
+		}
+	}
+}
@@ -11,39 +11,29 @@ import java.util.*;
  */
 public class HostAgent extends Agent {
 
-	/**
-	 * Private class storing all the information for each table, including table
-	 * number and state.
-	 */
-	private class Table {
-		public int tableNum;
-		public boolean occupied;
-
-		/**
-		 * Constructor for table class.
-		 * 
-		 * @param num
-		 *            identification number
-		 */
-		public Table(int num) {
-			tableNum = num;
-			occupied = false;
-		}
-	}
-
 	/** Private class to hold waiter information and state */
 	private class MyWaiter {
 		public WaiterAgent wtr;
 		public WaiterBreakState waiterBreakState;
+		public int customers;  // seated by this waiter and not gone yet
+		public long lastSeated; // when this waiter last got a customer
+		public int number;     // order the waiter was added in
 
 		/**
 		 * Constructor for MyWaiter class
 		 * 
 		 * @param waiter: WaiterAgent
 		 */
-		public MyWaiter(WaiterAgent waiter) {
+		public MyWaiter(WaiterAgent waiter, int number) {
 			wtr = waiter;
 			waiterBreakState = WaiterBreakState.none;
+			this.number = number;
+		}
+		//returns true if waiter would rather not get more customers
+		public boolean wantsBreak() {
+			return waiterBreakState == WaiterBreakState.wantsBreak ||
+					waiterBreakState == WaiterBreakState.needsToWait ||
+					waiterBreakState == WaiterBreakState.toldOkToBreak;
 		}
 		//returns true if waiter is working (aka not onBreak)
 		public boolean working() {
@@ -56,31 +46,41 @@ public class HostAgent extends Agent {
 		}
 	}
 	
-	private class MyCustomer {
-		public CustomerAgent cmr;
-		public boolean knowsAboutWait;
-		
-		public MyCustomer(CustomerAgent c) {
-			this.cmr = c;
-			knowsAboutWait = false;
-		}
-	}
-	
 	//waiter is working in all states except onBreak
 	public enum WaiterBreakState {
 		none, wantsBreak, needsToWait, toldOkToBreak, onBreak
 	};
 	
-	// List of all the customers that need a table
-	private List<MyCustomer> waitList = Collections.synchronizedList(new ArrayList<MyCustomer>());
+	// All the customers that need a table, VIPs first, then in the order
+	// they came, matched to tables by party size
+	private WaitList waitList = new WaitList();
 
-	// List of all waiter that exist.
+	// List of all waiter that exist.  Lock it to use it or any of the
+	// waiter bookkeeping below.
 	private List<MyWaiter> waiters = Collections.synchronizedList(new ArrayList<MyWaiter>());
-	private int nextWaiter = 0; // The next waiter that needs a customer
+	private Map<WaiterAgent, MyWaiter> myWaiters = new IdentityHashMap<WaiterAgent, MyWaiter>();
+	// The waiters not on break, the next one to get a customer first:
+	// those not wanting a break before those that do, then the fewest
+	// customers, then the longest since they got one.  A waiter's
+	// place depends on its fields, so take it out to change them.
+	private TreeSet<MyWaiter> working = new TreeSet<MyWaiter>(new Comparator<MyWaiter>() {
+		public int compare(MyWaiter a, MyWaiter b) {
+			if (a.wantsBreak() != b.wantsBreak()) return a.wantsBreak() ? 1 : -1;
+			if (a.customers != b.customers) return a.customers < b.customers ? -1 : 1;
+			if (a.lastSeated != b.lastSeated) return a.lastSeated < b.lastSeated ? -1 : 1;
+			return a.number - b.number;
+		}
+	});
+	private long seatings = 0; // customers seated so far
+	private Map<Integer, MyWaiter> tableWaiters = new HashMap<Integer, MyWaiter>(); // who seated each table
 
-	// List of all the tables
+	// How many each table seats, by number, and the free tables by how
+	// many they seat: a set bit in freeTables.get(n) is a free table for
+	// n.  Lock freeTables to use any of them.
+	static final int DEFAULT_SEATS = 4;
 	int nTables;
-	private Table tables[];
+	private List<Integer> tableSeats = new ArrayList<Integer>();
+	private TreeMap<Integer, BitSet> freeTables = new TreeMap<Integer, BitSet>();
 
 	// Name of the host
 	private String name;
@@ -93,11 +93,8 @@ public class HostAgent extends Agent {
 	 */
 	public HostAgent(String name, int ntables) {
 		super();
-		this.nTables = ntables;
-		tables = new Table[nTables];
-
-		for (int i = 0; i < nTables; i++) {
-			tables[i] = new Table(i);
+		for (int i = 0; i < ntables; i++) {
+			newTable(DEFAULT_SEATS);
 		}
 		this.name = name;
 	}
@@ -111,7 +108,7 @@ public class HostAgent extends Agent {
 	 *            customer that wants to be added
 	 */
 	public void msgIWantToEat(CustomerAgent customer) {
-		waitList.add(new MyCustomer(customer));
+		waitList.add(customer, customer.getPartySize(), customer.isVip());
 		stateChanged();
 	}
 
@@ -122,75 +119,57 @@ public class HostAgent extends Agent {
 	 *            table identification number
 	 */
 	public void msgTableIsFree(int tableNum) {
-		tables[tableNum].occupied = false;
+		synchronized(freeTables) {
+			freeTables.get(tableSeats.get(tableNum)).set(tableNum);
+		}
+		synchronized(waiters) {
+			MyWaiter myWaiter = tableWaiters.remove(tableNum);
+			if (myWaiter != null) {
+				boolean wasWorking = working.remove(myWaiter);
+				myWaiter.customers--;
+				if (wasWorking) working.add(myWaiter);
+			}
+		}
 		stateChanged();
 	}
 	
 	/** Message from Waiter asking to take a break */
 	public void msgCanITakeBreak(WaiterAgent w) {
-		MyWaiter myWaiter = null;
 		synchronized(waiters) {
-			for (MyWaiter temp: waiters) {
-				if (temp.wtr == w) {
-					myWaiter = temp;
-					break;
-				}
+			MyWaiter myWaiter = myWaiters.get(w);
+			if (myWaiter != null) {
+				setBreakState(myWaiter, WaiterBreakState.wantsBreak);
 			}
 		}
-		if (myWaiter != null) {
-			myWaiter.waiterBreakState = WaiterBreakState.wantsBreak;
-		}
 		stateChanged();
 	}
 	
 	/** Message from Waiter signifying starting break */
 	public void msgGoingOnBreak(WaiterAgent w) {
-		MyWaiter myWaiter = null;
 		synchronized(waiters) {
-			for (MyWaiter temp: waiters) {
-				if (temp.wtr == w) {
-					myWaiter = temp;
-					break;
-				}
+			MyWaiter myWaiter = myWaiters.get(w);
+			if (myWaiter != null) {
+				setBreakState(myWaiter, WaiterBreakState.onBreak);
 			}
 		}
-		if (myWaiter != null) {
-			myWaiter.waiterBreakState = WaiterBreakState.onBreak;
-		}
 		stateChanged();
 	}
 	
 	/** Message from Waiter signifying break is over */
 	public void msgGoingOffBreak(WaiterAgent w) {
-		MyWaiter myWaiter = null;
 		synchronized(waiters) {
-			for (MyWaiter temp: waiters) {
-				if (temp.wtr == w) {
-					myWaiter = temp;
-					break;
-				}
+			MyWaiter myWaiter = myWaiters.get(w);
+			if (myWaiter != null) {
+				setBreakState(myWaiter, WaiterBreakState.none);
 			}
 		}
-		if (myWaiter != null) {
-			myWaiter.waiterBreakState = WaiterBreakState.none;
-		}
 		stateChanged();
 	}
 	
 	/** Message from customer who does not want to wait if there is long wait */
 	public void msgThatIsTooLongIAmLeaving(CustomerAgent c) {
 		//do not sit this customer, remove him from wait list
-		MyCustomer temp = null;
-		synchronized(waitList) {
-			for (MyCustomer mc: waitList) {
-				if (mc.cmr == c) {
-					temp = mc;
-				}
-			}
-		}
-		if (temp != null) {
-			waitList.remove(temp);
-		}
+		waitList.remove(c);
 		stateChanged();
 	}
 	
@@ -207,57 +186,33 @@ public class HostAgent extends Agent {
 		//debug: System.out.println("waitList: "+waitList.toString());
 		//debug: System.out.println("In host scheduler");
 		
-		//tell customer about wait if there is one
 		if (!waitList.isEmpty()) {
-			//check if all tables are occupied
-			boolean allOccupied = true;
-			for (Table t: tables) {
-				if (t.occupied == false) {
-					allOccupied = false; //at least one table is open
-					break;
-				}
+			// Finds the next party that fits a free table, and its table
+			WaitList.Party party;
+			synchronized(freeTables) {
+				party = waitList.next(freeTables);
 			}
-			//if all tables are occupied, tell customers about wait
-			if (allOccupied) {
+			//if no party fits a free table, tell customers about wait
+			if (party == null) {
 				/** Tell the customer that there is a wait (if there is) after customer approaches */
-				MyCustomer temp = null;
-				synchronized(waitList) {
-					for (MyCustomer mc: waitList) {
-						if (!mc.knowsAboutWait) {
-							temp = mc;
-							break;
-						}
-					}
-				}
+				WaitList.Party temp = waitList.tellAboutWait();
 				if (temp != null) {
 					tellCustomerThereIsWait(temp);
 					return true;
 				}
 			}
-		}
-
-		if (!waitList.isEmpty() && !waiters.isEmpty()) {
+			// Finds the working waiter with the fewest customers and
+			// tells them to sit the party at its table
+			MyWaiter waiter = null;
 			synchronized (waiters) {
-				// Finds the next waiter that is working
-				while (!waiters.get(nextWaiter).working()) {
-					nextWaiter = (nextWaiter + 1) % waiters.size();
+				if (!working.isEmpty()) {
+					waiter = working.first();
 				}
 			}
-			print("picking waiter number: " + nextWaiter);
-			// Then runs through the tables and finds the first unoccupied
-			// table and tells the waiter to sit the first customer at that
-			// table
-			for (int i = 0; i < nTables; i++) {
-
-				if (!tables[i].occupied) {
-					synchronized (waitList) {
-						synchronized(waiters) {
-							tellWaiterToSitCustomerAtTable(waiters.get(nextWaiter),
-									waitList.get(0), i);
-						}
-					}
-					return true;
-				}
+			if (party != null && waiter != null) {
+				print("picking " + waiter.wtr + ", who has " + waiter.customers + " customers");
+				tellWaiterToSitCustomerAtTable(waiter, party, party.table);
+				return true;
 			}
 		}
 		
@@ -303,19 +258,25 @@ public class HostAgent extends Agent {
 	 * table to sit them at.
 	 * 
 	 * @param waiter
-	 * @param myCustomer
+	 * @param party
 	 * @param tableNum
 	 */
 	private void tellWaiterToSitCustomerAtTable(MyWaiter waiter,
-			MyCustomer myCustomer, int tableNum) {
-		print("Telling " + waiter.wtr + " to sit " + myCustomer.cmr + " at table "
+			WaitList.Party party, int tableNum) {
+		print("Telling " + waiter.wtr + " to sit " + party.customer + " at table "
 				+ (tableNum + 1));
-		waiter.wtr.msgSitCustomerAtTable(myCustomer.cmr, tableNum, myCustomer.cmr.orderingSem);
-		tables[tableNum].occupied = true;
-		synchronized(waitList) {
-			waitList.remove(myCustomer);
+		waiter.wtr.msgSitCustomerAtTable(party.customer, tableNum, party.customer.orderingSem);
+		synchronized(freeTables) {
+			freeTables.get(tableSeats.get(tableNum)).clear(tableNum);
+		}
+		waitList.remove(party.customer);
+		synchronized(waiters) {
+			boolean wasWorking = working.remove(waiter);
+			waiter.customers++;
+			waiter.lastSeated = ++seatings;
+			if (wasWorking) working.add(waiter);
+			tableWaiters.put(tableNum, waiter);
 		}
-		nextWaiter = (nextWaiter + 1) % waiters.size();
 		stateChanged();
 	}
 	
@@ -325,7 +286,7 @@ public class HostAgent extends Agent {
 		//waiter's break state is not changed to onBreak until message received
 		//for now set state that waiter was told break OK
 		synchronized(waiters) {
-			waiter.waiterBreakState = WaiterBreakState.toldOkToBreak;
+			setBreakState(waiter, WaiterBreakState.toldOkToBreak);
 		}
 		System.out.println(this+": told "+waiter.wtr+" he can go on break");
 		stateChanged();
@@ -336,22 +297,17 @@ public class HostAgent extends Agent {
 		waiter.wtr.msgNotYet();
 		//change waiter break state to waiting for break
 		synchronized(waiters) {
-			waiter.waiterBreakState = WaiterBreakState.needsToWait;
+			setBreakState(waiter, WaiterBreakState.needsToWait);
 		}
 		System.out.println(this+": told "+waiter.wtr+" he needs to wait to take break");
 		stateChanged();
 	}
 	
 	/** Tell the customer that there is a wait (if there is) after customer approaches */
-	private void tellCustomerThereIsWait(MyCustomer mc) {
-		if (!mc.knowsAboutWait) {
-			System.out.println(this+": told "+mc.cmr+" that there is a wait");
-			mc.cmr.msgThereIsWait();
-			synchronized(waitList) {
-				mc.knowsAboutWait = true;
-			}
-			stateChanged();
-		}
+	private void tellCustomerThereIsWait(WaitList.Party party) {
+		System.out.println(this+": told "+party.customer+" that there is a wait");
+		party.customer.msgThereIsWait();
+		stateChanged();
 	}
 
 	// *** EXTRA ***
@@ -375,17 +331,19 @@ public class HostAgent extends Agent {
 	 */
 	private boolean isAtLestOneOtherWorkingWaiter(MyWaiter w) {
 		synchronized(waiters) {
-			for (MyWaiter myWaiter: waiters) {
-				//skip the passed in waiter
-				if (myWaiter == w) {
-					continue;
-				}
-				if (myWaiter.waiterBreakState != WaiterBreakState.onBreak) {
-					return true;
-				}
-			}
+			//skip the passed in waiter
+			return working.size() - (working.contains(w) ? 1 : 0) > 0;
+		}
+	}
+
+	/** Change a waiter's break state, moving it in or out of working or
+	 *  to its new place there.  Hold the waiters lock. */
+	private void setBreakState(MyWaiter w, WaiterBreakState state) {
+		working.remove(w);
+		w.waiterBreakState = state;
+		if (w.working()) {
+			working.add(w);
 		}
-		return false;
 	}
 
 	/**
@@ -395,18 +353,36 @@ public class HostAgent extends Agent {
 	 *            new waiter to be added to list
 	 */
 	public void setWaiter(WaiterAgent waiter) {
-		waiters.add(new MyWaiter(waiter));
+		synchronized(waiters) {
+			MyWaiter myWaiter = new MyWaiter(waiter, waiters.size());
+			waiters.add(myWaiter);
+			myWaiters.put(waiter, myWaiter);
+			working.add(myWaiter);
+		}
 		stateChanged();
 	}
 
 	// Gautam Nayak - Gui calls this when table is created in animation
 	public void addTable() {
-		nTables++;
-		Table[] tempTables = new Table[nTables];
-		for (int i = 0; i < nTables - 1; i++) {
-			tempTables[i] = tables[i];
+		addTable(DEFAULT_SEATS);
+	}
+
+	/** Add a free table for seats people, numbered after the others */
+	public void addTable(int seats) {
+		newTable(seats);
+		stateChanged();
+	}
+
+	private void newTable(int seats) {
+		synchronized(freeTables) {
+			BitSet free = freeTables.get(seats);
+			if (free == null) {
+				free = new BitSet();
+				freeTables.put(seats, free);
+			}
+			free.set(nTables);
+			tableSeats.add(seats);
+			nTables++;
 		}
-		tempTables[nTables - 1] = new Table(nTables - 1);
-		tables = tempTables;
 	}
 }
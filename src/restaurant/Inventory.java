@@ -0,0 +1,165 @@
+package restaurant;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The kitchen's stock of each food, shared by its cooks with no locks.
+ * Foods are numbered densely in the order they are added, and every count
+ * is an atomic kept in an array by that number.
+ *
+ * An order takes its food out of stock when the cook accepts it
+ * (reserve()), so two orders can never be promised the last steak; it
+ * puts it back if it is cancelled before it is started or can't be
+ * cooked after all (release()), and is counted as served once it is
+ * cooked (consume()).  A food that runs out is ordered from a market by
+ * whichever cook claims it first (claimOut()), so the cooks never order
+ * it twice.  Add the foods before the kitchen opens.
+ */
+public class Inventory {
+	private List<String> names = new ArrayList<String>();
+	private Map<String, Integer> ids = new HashMap<String, Integer>();
+	private double[] cookTime = new double[0]; // seconds
+	private AtomicInteger[] available = new AtomicInteger[0]; // in stock, not promised to an order
+	private AtomicInteger[] reserved = new AtomicInteger[0]; // promised to orders not cooked yet
+	private AtomicBoolean[] onOrder = new AtomicBoolean[0]; // a cook has ordered more from a market
+	private LongAdder[] served = new LongAdder[0];
+	private LongAdder[] turnedAway = new LongAdder[0]; // orders there was none left for
+
+	/** Add a food that takes cookTime seconds to cook, with amount in
+	 *  stock */
+	public Inventory addItem(String name, double cookTime, int amount) {
+		if (ids.containsKey(name))
+			throw new IllegalArgumentException(name + " is already in the inventory");
+		int id = names.size();
+		names.add(name);
+		ids.put(name, id);
+		this.cookTime = Arrays.copyOf(this.cookTime, id + 1);
+		this.cookTime[id] = cookTime;
+		available = Arrays.copyOf(available, id + 1);
+		available[id] = new AtomicInteger(amount);
+		reserved = Arrays.copyOf(reserved, id + 1);
+		reserved[id] = new AtomicInteger();
+		onOrder = Arrays.copyOf(onOrder, id + 1);
+		onOrder[id] = new AtomicBoolean();
+		served = Arrays.copyOf(served, id + 1);
+		served[id] = new LongAdder();
+		turnedAway = Arrays.copyOf(turnedAway, id + 1);
+		turnedAway[id] = new LongAdder();
+		return this;
+	}
+
+	/** The cook's menu: Steak (none in stock to start with), Chicken, Pizza
+	 *  and Salad */
+	public static Inventory standard() {
+		return new Inventory()
+				.addItem("Steak",   5, 0)
+				.addItem("Chicken", 4, 2)
+				.addItem("Pizza",   3, 2)
+				.addItem("Salad",   2, 2);
+	}
+
+	/** @return how many foods there are; their ids are 0 up to this */
+	public int size() {
+		return names.size();
+	}
+
+	/** @return food's id, or -1 if it isn't on the menu */
+	public int idOf(String food) {
+		Integer id = food == null ? null : ids.get(food);
+		return id != null ? id : -1;
+	}
+
+	public String getName(int id) {
+		return names.get(id);
+	}
+
+	public double getCookTime(int id) {
+		return cookTime[id];
+	}
+
+	/**
+	 * Promise one of food id to an order.
+	 *
+	 * @return false, and count the order turned away, if there is none
+	 *         left that isn't promised already
+	 */
+	public boolean reserve(int id) {
+		AtomicInteger a = available[id];
+		int n;
+		do {
+			n = a.get();
+			if (n <= 0) {
+				turnedAway[id].increment();
+				return false;
+			}
+		} while (!a.compareAndSet(n, n - 1));
+		reserved[id].incrementAndGet();
+		return true;
+	}
+
+	/** An order holding one of food id won't be cooked: put it back */
+	public void release(int id) {
+		reserved[id].decrementAndGet();
+		available[id].incrementAndGet();
+	}
+
+	/** An order holding one of food id was cooked */
+	public void consume(int id) {
+		reserved[id].decrementAndGet();
+		served[id].increment();
+	}
+
+	/** amount of food id came from a market: it can be ordered again
+	 *  when it runs out */
+	public void deliver(int id, int amount) {
+		available[id].addAndGet(amount);
+		onOrder[id].set(false);
+	}
+
+	/** The market couldn't send food id: it can be ordered again */
+	public void orderFailed(int id) {
+		onOrder[id].set(false);
+	}
+
+	/** @return the first food with none left to promise that no one has
+	 *  ordered more of, now counted as on order, or -1 */
+	public int claimOut() {
+		for (int id = 0; id < available.length; id++) {
+			if (available[id].get() <= 0 && onOrder[id].compareAndSet(false, true)) return id;
+		}
+		return -1;
+	}
+
+	public boolean isOnOrder(int id) {
+		return onOrder[id].get();
+	}
+
+	public int getAvailable(int id) {
+		return available[id].get();
+	}
+
+	public int getReserved(int id) {
+		return reserved[id].get();
+	}
+
+	public long getServed(int id) {
+		return served[id].sum();
+	}
+
+	public long getTurnedAway(int id) {
+		return turnedAway[id].sum();
+	}
+
+	public String toString() {
+		StringBuilder s = new StringBuilder();
+		for (int id = 0; id < names.size(); id++) {
+			if (id > 0) s.append(", ");
+			s.append(names.get(id)).append(' ').append(getAvailable(id))
+					.append(" (+").append(getReserved(id)).append(" promised)");
+		}
+		return s.toString();
+	}
+}
@@ -0,0 +1,320 @@
+package restaurant;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import restaurant.interfaces.Waiter;
+
+/**
+ * The kitchen one or more cooks share: stations (grill, fryer, prep...)
+ * that each cook some of the menu and hold at most so many orders at
+ * once, and the orders waiting for them.
+ *
+ * Orders wait with the cook that was given them, in a queue per food
+ * kept in the order the KitchenPolicy takes them, so the next order for
+ * a food is always at the head of its queue.  A cook looking for work
+ * compares the heads of its own queues for stations with room and starts
+ * the one the policy puts first, looking at another cook's queue for a
+ * food only when its own is empty, so idle cooks take load off busy ones
+ * without any cook's orders sitting behind a shared lock.  A pass looks
+ * at a head per food and cook however many orders are waiting.  The
+ * cooks share the kitchen's Inventory too.  Set the stations and the
+ * policy up before any cook joins.
+ */
+public class Kitchen {
+	/** Somewhere food is cooked, with room for capacity orders at once */
+	public static class Station {
+		private final String name;
+		private final int capacity;
+		private final int index;
+		private final AtomicInteger free;
+
+		Station(String name, int capacity, int index) {
+			this.name = name;
+			this.capacity = capacity;
+			this.index = index;
+			free = new AtomicInteger(capacity);
+		}
+		/** Take a place at the station if there is one. */
+		boolean tryTake() {
+			int f;
+			do {
+				f = free.get();
+				if (f == 0) return false;
+			} while (!free.compareAndSet(f, f - 1));
+			return true;
+		}
+		void release() {
+			free.incrementAndGet();
+		}
+		public String getName() {return name;}
+		public int getCapacity() {return capacity;}
+		/** @return how many orders are cooking there now */
+		public int getInUse() {return capacity - free.get();}
+		public String toString() {return name;}
+	}
+
+	/** The orders for one food waiting with one cook, in the order the
+	 *  policy takes them: a plain queue if that is the order they came
+	 *  in, or else sorted by the policy */
+	private static class Pending {
+		private final Queue<Order> queue;
+		private final NavigableSet<Order> sorted;
+
+		Pending(KitchenPolicy policy) {
+			if (policy.inArrivalOrder()) {
+				queue = new ConcurrentLinkedQueue<Order>();
+				sorted = null;
+			}
+			else {
+				queue = null;
+				sorted = new ConcurrentSkipListSet<Order>(policy);
+			}
+		}
+		void add(Order o) {
+			if (queue != null) queue.add(o);
+			else sorted.add(o);
+		}
+		/** @return the next order, or null */
+		Order peek() {
+			if (queue != null) return queue.peek();
+			Iterator<Order> it = sorted.iterator();
+			return it.hasNext() ? it.next() : null;
+		}
+		/** @return the next order, taken out, or null */
+		Order poll() {
+			return queue != null ? queue.poll() : sorted.pollFirst();
+		}
+		/** @return waiter's order for table tableNum, taken out, or null */
+		Order remove(Waiter waiter, int tableNum) {
+			for (Order o : queue != null ? queue : sorted) {
+				if (o.waiter == waiter && o.tableNum == tableNum
+						&& (queue != null ? queue.remove(o) : sorted.remove(o)))
+					return o;
+			}
+			return null;
+		}
+	}
+
+	/** The orders waiting with one cook, by food (see laneFor) */
+	private static class CookQueue {
+		final CookAgent cook;
+		final Pending[] byFood;
+
+		CookQueue(CookAgent cook, int foods, KitchenPolicy policy) {
+			this.cook = cook;
+			byFood = new Pending[foods];
+			for (int i = 0; i < foods; i++) byFood[i] = new Pending(policy);
+		}
+	}
+
+	private List<Station> stations = new ArrayList<Station>();
+	private Map<String, Station> stationFor = new HashMap<String, Station>(); // by food
+	// Every food a station cooks has a lane, its number in the cooks'
+	// byFood; lane 0 is the first station's, for food no station cooks
+	private Map<String, Integer> laneFor = new HashMap<String, Integer>();
+	private List<Station> laneStation = new ArrayList<Station>();
+	private List<int[]> stationLanes = new ArrayList<int[]>(); // by station index
+	private List<CookQueue> cooks = new CopyOnWriteArrayList<CookQueue>();
+	private final Inventory inventory;
+	private KitchenPolicy policy = KitchenPolicy.fifo();
+	private AtomicLong given = new AtomicLong(); // orders so far, to number them
+
+	/** A kitchen with no stations yet, and no food */
+	public Kitchen() {
+		this(new Inventory());
+	}
+
+	/** A kitchen with no stations yet, and inventory's food */
+	public Kitchen(Inventory inventory) {
+		this.inventory = inventory;
+	}
+
+	/**
+	 * Add a station that cooks foods, capacity orders at a time.  Food no
+	 * station cooks goes to the first one.
+	 */
+	public Kitchen addStation(String name, int capacity, String... foods) {
+		if (!cooks.isEmpty())
+			throw new IllegalStateException("add stations before the cooks");
+		if (capacity < 1)
+			throw new IllegalArgumentException("station " + name + " needs room for an order");
+		Station s = new Station(name, capacity, stations.size());
+		stations.add(s);
+		List<Integer> lanes = new ArrayList<Integer>();
+		if (laneStation.isEmpty()) { // the lane for food no station cooks
+			laneStation.add(s);
+			lanes.add(0);
+		}
+		for (String food : foods) {
+			if (stationFor.containsKey(food))
+				throw new IllegalArgumentException(food + " is cooked at " + stationFor.get(food) + " already");
+			stationFor.put(food, s);
+			laneFor.put(food, laneStation.size());
+			lanes.add(laneStation.size());
+			laneStation.add(s);
+		}
+		int[] l = new int[lanes.size()];
+		for (int i = 0; i < l.length; i++) l[i] = lanes.get(i);
+		stationLanes.add(l);
+		return this;
+	}
+
+	/** A grill for steak, a fryer for chicken, an oven for pizza and a prep
+	 *  counter for salad, and Inventory.standard() */
+	public static Kitchen standard() {
+		return new Kitchen(Inventory.standard())
+				.addStation("grill", 3, "Steak")
+				.addStation("fryer", 2, "Chicken")
+				.addStation("oven", 2, "Pizza")
+				.addStation("prep", 2, "Salad");
+	}
+
+	public List<Station> getStations() {
+		return Collections.unmodifiableList(stations);
+	}
+
+	/** @return the station that cooks food */
+	public Station getStation(String food) {
+		Station s = food == null ? null : stationFor.get(food);
+		return s != null ? s : stations.get(0);
+	}
+
+	/** Set how the cooks pick the next order (KitchenPolicy.fifo() to
+	 *  start with), before any cook joins */
+	public void setPolicy(KitchenPolicy policy) {
+		if (!cooks.isEmpty())
+			throw new IllegalStateException("set the policy before the cooks join");
+		this.policy = policy;
+	}
+
+	public KitchenPolicy getPolicy() {
+		return policy;
+	}
+
+	public Inventory getInventory() {
+		return inventory;
+	}
+
+	/** @return the seconds food takes to cook, 0 if it isn't on the menu */
+	public double getCookTime(String food) {
+		int id = inventory.idOf(food);
+		return id != -1 ? inventory.getCookTime(id) : 0;
+	}
+
+	/** @return how many cooks work here */
+	public int getCookCount() {
+		return cooks.size();
+	}
+
+	/** Add cook to the kitchen; null for a cook that needn't be told
+	 *  when there is work (KitchenSimulation's).
+	 *  @return the cook's number, for the calls below */
+	int join(CookAgent cook) {
+		if (stations.isEmpty())
+			throw new IllegalStateException("a kitchen needs a station");
+		cooks.add(new CookQueue(cook, laneStation.size(), policy));
+		return cooks.size() - 1;
+	}
+
+	/** Cook number cook has been given order to make */
+	void submit(int cook, Order order) {
+		order.number = given.getAndIncrement();
+		order.cookTime = getCookTime(order.choice);
+		cooks.get(cook).byFood[lane(order.choice)].add(order);
+		wakeOthers(cook);
+	}
+
+	/**
+	 * The next orders cook number cook should make, with a place at their
+	 * station taken for them, or null if there is nothing it can start.
+	 * That is the order the policy puts first and, if the policy batches,
+	 * up to hands-1 more of the same dish waiting at the same station.  A
+	 * batch shares the one place, and is done() together.
+	 */
+	List<Order> take(int cook, int hands) {
+		int n = cooks.size();
+		while (true) {
+			Order best = null;
+			Pending from = null;
+			Station at = null;
+			for (Station s : stations) {
+				if (s.free.get() == 0) continue;
+				for (int lane : stationLanes.get(s.index)) {
+					Pending q = cooks.get(cook).byFood[lane];
+					Order o = q.peek();
+					// none of ours: the first of another cook's, starting with
+					// the next cook so no one is always robbed first
+					for (int k = 1; o == null && k < n; k++) {
+						q = cooks.get((cook + k) % n).byFood[lane];
+						o = q.peek();
+					}
+					if (o != null && (best == null || policy.compare(o, best) < 0)) {
+						best = o;
+						from = q;
+						at = s;
+					}
+				}
+			}
+			if (best == null) return null;
+			if (!at.tryTake()) continue; // another cook filled the station
+			// the head of from now: best, or one that came after it if
+			// another cook took best first
+			Order first = from.poll();
+			if (first == null) { // or took them all
+				at.release();
+				continue;
+			}
+			List<Order> batch = new ArrayList<Order>();
+			batch.add(first);
+			int size = Math.min(hands, policy.batchSize(first));
+			// the rest of the batch: the food's next orders, ours first
+			int lane = lane(first.choice);
+			for (int k = 0; k < n && batch.size() < size; k++) {
+				Pending q = cooks.get((cook + k) % n).byFood[lane];
+				Order o;
+				while (batch.size() < size && (o = q.poll()) != null) batch.add(o);
+			}
+			return batch;
+		}
+	}
+
+	/**
+	 * Take waiter's order for table tableNum out of the kitchen if no cook
+	 * has started it.  Looks through every waiting order, so only for the
+	 * odd cancelled one.
+	 *
+	 * @return the order, or null if it was started already or isn't here
+	 */
+	Order cancel(Waiter waiter, int tableNum) {
+		for (CookQueue q : cooks) {
+			for (Pending p : q.byFood) {
+				Order o = p.remove(waiter, tableNum);
+				if (o != null) return o;
+			}
+		}
+		return null;
+	}
+
+	/** @return the lane orders for food wait in */
+	private int lane(String food) {
+		Integer lane = food == null ? null : laneFor.get(food);
+		return lane != null ? lane : 0;
+	}
+
+	/** order (or the batch it led) is cooked: free its place at the station
+	 *  for whoever is waiting */
+	void done(int cook, Order order) {
+		getStation(order.choice).release();
+		wakeOthers(cook);
+	}
+
+	private void wakeOthers(int cook) {
+		for (int k = 0; k < cooks.size(); k++)
+			if (k != cook && cooks.get(k).cook != null) cooks.get(k).cook.msgKitchenChanged();
+	}
+}
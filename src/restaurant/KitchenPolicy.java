@@ -0,0 +1,120 @@
+package restaurant;
+
+import java.util.Comparator;
+
+/**
+ * How a kitchen picks which waiting order a cook starts next: of the
+ * orders whose station has room, the one this comparator puts first.  A
+ * policy can also have a cook start several orders of the same dish
+ * together, sharing one place at the station (see batchSize()).
+ *
+ * The built in policies are fifo (the default), shortestJob, batching
+ * and earliestDeadline; forName() picks one by name, for
+ * -Dkitchen.policy.
+ */
+public abstract class KitchenPolicy implements Comparator<Order> {
+	/** How long a table expects to wait for its food, in ms, for
+	 *  earliestDeadline */
+	public static final long PROMISE = 15000;
+	/** How many orders of a dish batching cooks at once */
+	public static final int BATCH = 3;
+
+	private final String name;
+
+	protected KitchenPolicy(String name) {
+		this.name = name;
+	}
+
+	/** @return how many orders of first's dish to start together with it,
+	 *  first included; 1 to start orders one at a time */
+	public int batchSize(Order first) {
+		return 1;
+	}
+
+	/** @return true if this takes orders in the order the kitchen was
+	 *  given them, so a plain queue keeps them in order */
+	public boolean inArrivalOrder() {
+		return false;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String toString() {
+		return name;
+	}
+
+	/** Oldest order first, as given to the kitchen */
+	public static KitchenPolicy fifo() {
+		return new KitchenPolicy("fifo") {
+			public int compare(Order a, Order b) {
+				return byArrival(a, b);
+			}
+			public boolean inArrivalOrder() {
+				return true;
+			}
+		};
+	}
+
+	/** Quickest dish first, so one steak doesn't hold up the salads;
+	 *  oldest first among dishes as quick */
+	public static KitchenPolicy shortestJob() {
+		return new KitchenPolicy("shortestJob") {
+			public int compare(Order a, Order b) {
+				int c = Double.compare(a.cookTime, b.cookTime);
+				return c != 0 ? c : byArrival(a, b);
+			}
+		};
+	}
+
+	/** Oldest order first, started with up to size-1 more of the same dish
+	 *  waiting at its station */
+	public static KitchenPolicy batching(final int size) {
+		return new KitchenPolicy("batching") {
+			public int compare(Order a, Order b) {
+				return byArrival(a, b);
+			}
+			public int batchSize(Order first) {
+				return size;
+			}
+			public boolean inArrivalOrder() {
+				return true;
+			}
+		};
+	}
+
+	/**
+	 * The order that has to start soonest to reach its table within
+	 * promise ms of the table starting to wait (Order.waitingSince) first,
+	 * so a table that was kept waiting for its waiter, or has a slow dish
+	 * coming, goes ahead of ones that ordered before it.
+	 */
+	public static KitchenPolicy earliestDeadline(final long promise) {
+		return new KitchenPolicy("earliestDeadline") {
+			public int compare(Order a, Order b) {
+				int c = Long.compare(latestStart(a), latestStart(b));
+				return c != 0 ? c : byArrival(a, b);
+			}
+			private long latestStart(Order o) {
+				return o.waitingSince + promise - (long) (o.cookTime * 1000);
+			}
+		};
+	}
+
+	/** @return the built in policy called name, with the default
+	 *  settings */
+	public static KitchenPolicy forName(String name) {
+		if (name.equals("fifo")) return fifo();
+		if (name.equals("shortestJob")) return shortestJob();
+		if (name.equals("batching")) return batching(BATCH);
+		if (name.equals("earliestDeadline")) return earliestDeadline(PROMISE);
+		throw new IllegalArgumentException("no kitchen policy " + name
+				+ "; try fifo, shortestJob, batching or earliestDeadline");
+	}
+
+	/** In the order the kitchen was given them */
+	static int byArrival(Order a, Order b) {
+		return Long.compare(a.number, b.number);
+	}
+}
@@ -0,0 +1,189 @@
+package restaurant;
+
+import java.util.*;
+
+/**
+ * Compares KitchenPolicies on the same stream of orders.  Runs a
+ * Kitchen.standard(), with its menu and cook times, in virtual time,
+ * with no agents or gui: orders come at random (Poisson, dishes equally
+ * likely), are given to the cooks in turn, and each cook starts what the
+ * policy picks whenever it has a free hand.  Every policy sees the same
+ * orders.
+ *
+ * For each policy it reports the ticket times, from an order being given
+ * to the kitchen to it being cooked: the mean, median, 95th and 99th
+ * percentile and worst, in seconds, and the share of tables that waited
+ * longer than the promise from when they started waiting.
+ *
+ * <pre>
+ * java -cp classes restaurant.KitchenSimulation [options]
+ *   -policy fifo,shortestJob,batching,earliestDeadline
+ *   -cooks 1 -hands 4      cooks, and orders each cooks at once
+ *   -load 0.9              share of the kitchen the orders would keep busy
+ *                          cooked one at a time: of the cooks' hands, or
+ *                          of the busiest station, whichever fills first
+ *   -orders 20000 -seed 1  orders per policy, and their random seed
+ *   -promise 15000 -batch 3  ms, for earliestDeadline; size, for batching
+ * </pre>
+ */
+public class KitchenSimulation {
+	static final long MAX_WAIT_FOR_WAITER = 10000; // ms a table may wait before ordering
+
+	/** Something that happens at a time: an order comes (batch null) or
+	 *  a cook's batch is done */
+	static class Event {
+		final long time, seq;
+		final int cook;
+		final List<Order> batch;
+
+		Event(long time, long seq, int cook, List<Order> batch) {
+			this.time = time;
+			this.seq = seq;
+			this.cook = cook;
+			this.batch = batch;
+		}
+	}
+
+	/** What one policy got */
+	static class Result {
+		String policy;
+		double mean, p50, p95, p99, max, late; // seconds, and late a share
+	}
+
+	public static void main(String[] args) {
+		Map<String, String> opts = new HashMap<String, String>();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			if (!args[i].startsWith("-")) usage("don't know " + args[i]);
+			opts.put(args[i].substring(1), args[i+1]);
+		}
+		if (args.length % 2 != 0) usage("no value for " + args[args.length-1]);
+		int cooks = Integer.parseInt(get(opts, "cooks", "1"));
+		int hands = Integer.parseInt(get(opts, "hands", "4"));
+		double load = Double.parseDouble(get(opts, "load", "0.9"));
+		int orders = Integer.parseInt(get(opts, "orders", "20000"));
+		long seed = Long.parseLong(get(opts, "seed", "1"));
+		long promise = Long.parseLong(get(opts, "promise", Long.toString(KitchenPolicy.PROMISE)));
+		int batch = Integer.parseInt(get(opts, "batch", Integer.toString(KitchenPolicy.BATCH)));
+		if (cooks < 1 || hands < 1 || load <= 0 || orders < 1) usage("cooks, hands, load and orders must be positive");
+
+		List<KitchenPolicy> policies = new ArrayList<KitchenPolicy>();
+		for (String name : get(opts, "policy", "fifo,shortestJob,batching,earliestDeadline").split(",")) {
+			try {
+				policies.add(name.equals("batching") ? KitchenPolicy.batching(batch)
+						: name.equals("earliestDeadline") ? KitchenPolicy.earliestDeadline(promise)
+						: KitchenPolicy.forName(name));
+			}
+			catch (IllegalArgumentException e) {
+				usage(e.getMessage());
+			}
+		}
+
+		System.out.printf("%d cook(s) with %d hands, load %.2f, %d orders, promise %.1fs%n",
+				cooks, hands, load, orders, promise / 1000.0);
+		System.out.printf("%-17s %8s %8s %8s %8s %8s %7s%n",
+				"policy", "mean s", "p50 s", "p95 s", "p99 s", "max s", "late");
+		for (KitchenPolicy policy : policies) {
+			Result r = run(policy, cooks, hands, load, orders, seed, promise);
+			System.out.printf("%-17s %8.2f %8.2f %8.2f %8.2f %8.2f %6.1f%%%n",
+					r.policy, r.mean, r.p50, r.p95, r.p99, r.max, 100 * r.late);
+		}
+	}
+
+	/** Run orders orders through a kitchen using policy */
+	static Result run(KitchenPolicy policy, int nCooks, int hands, double load, int orders,
+			long seed, long promise) {
+		Kitchen kitchen = Kitchen.standard();
+		kitchen.setPolicy(policy);
+		// orders a second the kitchen can cook, one at a time: what the
+		// hands can, or the busiest station can
+		// (the stock isn't used: orders here are never reserved)
+		Inventory menu = kitchen.getInventory();
+		double meanCookTime = 0;
+		Map<Kitchen.Station, Double> stationWork = new HashMap<Kitchen.Station, Double>(); // seconds per order
+		for (int i = 0; i < menu.size(); i++) {
+			meanCookTime += menu.getCookTime(i) / menu.size();
+			Kitchen.Station s = kitchen.getStation(menu.getName(i));
+			Double w = stationWork.get(s);
+			stationWork.put(s, (w == null ? 0 : w) + menu.getCookTime(i) / menu.size());
+		}
+		double capacity = nCooks * hands / meanCookTime;
+		for (Map.Entry<Kitchen.Station, Double> e : stationWork.entrySet())
+			capacity = Math.min(capacity, e.getKey().getCapacity() / e.getValue());
+		int[] cook = new int[nCooks];
+		for (int c = 0; c < nCooks; c++) cook[c] = kitchen.join(null);
+		int[] busy = new int[nCooks]; // hands in use
+		double meanGap = 1000 / (load * capacity); // ms between orders
+
+		Random rand = new Random(seed);
+		PriorityQueue<Event> events = new PriorityQueue<Event>(64, new Comparator<Event>() {
+			public int compare(Event a, Event b) {
+				return a.time != b.time ? Long.compare(a.time, b.time) : Long.compare(a.seq, b.seq);
+			}
+		});
+		long seq = 0;
+		events.add(new Event(0, seq++, 0, null));
+		int given = 0, finished = 0, late = 0;
+		double[] ticket = new double[orders];
+		while (finished < orders) {
+			Event e = events.poll();
+			long now = e.time;
+			if (e.batch == null) { // an order comes
+				Order o = new Order(null, 0, menu.getName(rand.nextInt(menu.size())));
+				o.placed = now;
+				o.waitingSince = now - (long) (rand.nextDouble() * MAX_WAIT_FOR_WAITER);
+				kitchen.submit(cook[given % nCooks], o);
+				if (++given < orders) {
+					long gap = (long) (-meanGap * Math.log(1 - rand.nextDouble()));
+					events.add(new Event(now + gap, seq++, 0, null));
+				}
+			}
+			else { // a batch is cooked
+				busy[e.cook] -= e.batch.size();
+				kitchen.done(cook[e.cook], e.batch.get(0));
+				for (Order o : e.batch) {
+					ticket[finished++] = (now - o.placed) / 1000.0;
+					if (now - o.waitingSince > promise) late++;
+				}
+			}
+			// every cook starts what it can
+			for (int c = 0; c < nCooks; c++) {
+				List<Order> b;
+				while (busy[c] < hands && (b = kitchen.take(cook[c], hands - busy[c])) != null) {
+					busy[c] += b.size();
+					events.add(new Event(now + (long) (b.get(0).cookTime * 1000), seq++, c, b));
+				}
+			}
+		}
+
+		Result r = new Result();
+		r.policy = policy.getName();
+		Arrays.sort(ticket);
+		double sum = 0;
+		for (double t : ticket) sum += t;
+		r.mean = sum / orders;
+		r.p50 = percentile(ticket, 50);
+		r.p95 = percentile(ticket, 95);
+		r.p99 = percentile(ticket, 99);
+		r.max = ticket[orders - 1];
+		r.late = (double) late / orders;
+		return r;
+	}
+
+	/** @return the p'th percentile of sorted, nearest rank */
+	static double percentile(double[] sorted, double p) {
+		int rank = (int) Math.ceil(p / 100 * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+
+	static String get(Map<String, String> opts, String name, String otherwise) {
+		String v = opts.get(name);
+		return v == null ? otherwise : v;
+	}
+	static void usage(String problem) {
+		System.err.println(problem);
+		System.err.println("usage: KitchenSimulation [-policy fifo,shortestJob,batching,earliestDeadline] "
+				+ "[-cooks 1] [-hands 4] [-load 0.9] [-orders 20000] [-seed 1] "
+				+ "[-promise 15000] [-batch 3]");
+		System.exit(2);
+	}
+}
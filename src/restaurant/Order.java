@@ -1,5 +1,6 @@
 package restaurant;
 
+import agent.SimulationClock;
 import restaurant.CookAgent.OrderStatus;
 import restaurant.interfaces.Waiter;
 import restaurant.layoutGUI.Food;
@@ -14,6 +15,11 @@ public class Order {
 	public String choice;
 	public OrderStatus status;
 	public Food food; // a gui variable
+	public long placed; // simulation time the order was given
+	public long waitingSince; // when the table started waiting, placed if not known
+	public long number; // the kitchen's count of orders when it was given them
+	public double cookTime; // seconds, filled in by the kitchen
+	public int item = -1; // the Inventory id of its food, once the cook has it
 
 	/**
 	 * Constructor for Order class
@@ -30,6 +36,8 @@ public class Order {
 		this.choice = choice;
 		this.tableNum = tableNum;
 		this.status = OrderStatus.pending;
+		this.placed = SimulationClock.getClock().currentTimeMillis();
+		this.waitingSince = placed;
 	}
 	
 	//Copy constructor
@@ -38,6 +46,8 @@ public class Order {
 		this.choice = o.choice;
 		this.tableNum = o.tableNum;
 		this.status = OrderStatus.pending;
+		this.placed = o.placed;
+		this.waitingSince = o.waitingSince;
 	}
 
 	/** Represents the object as a string */
@@ -0,0 +1,177 @@
+package restaurant;
+
+import agent.*;
+import astar.*;
+import restaurant.layoutGUI.*;
+
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * Headless restaurant. Wires the host, cook, cashier, markets, waiters and
+ * customers the same way RestaurantPanel does, but onto a HeadlessRestaurant
+ * layout that renders nothing, so the simulation runs without a display.
+ */
+public class RestaurantSimulation {
+	FloorPlan floor = FloorPlan.configured();
+	int gridX = floor.getWidth();
+	int gridY = floor.getHeight();
+
+	private int nTables = floor.getTableCount();
+
+	// same 1-based addressing as RestaurantPanel: row and column 0 are wasted
+	OccupancyGrid grid = floor.newGrid();
+	Table[] tables = new Table[gridX * gridY];
+	RestaurantLayout restaurant = new HeadlessRestaurant(gridX, gridY, grid);
+	FlowFields flowFields; // shared by the waiters, made once the floor is built
+	PathCache pathCache; // paths the waiters found, shared by them
+	PathHierarchy hierarchy; // null unless astar.clusterSize is set, for big floors
+	ReservationTable reservations; // null unless waiters plan cooperatively
+	AStarTraversal aStarTraversal; // one planner for all the waiters
+
+	//random int generator
+	Random rand = new Random();
+
+	//Host, cooks and their kitchen, waiters and customers, and markets
+	private Vector<MarketAgent> markets = new Vector<MarketAgent>();
+	private HostAgent host = new HostAgent("Prof. W.", nTables);
+	private Kitchen kitchen = Kitchen.standard();
+	private Vector<CookAgent> cooks = new Vector<CookAgent>();
+	private CashierAgent cashier = new CashierAgent();
+	private Vector<CustomerAgent> customers = new Vector<CustomerAgent>();
+	private Vector<WaiterAgent> waiters = new Vector<WaiterAgent>();
+
+	/** Build the floor (see FloorPlan.configured()).  Agents are not
+	 * started until start(). */
+	public RestaurantSimulation() {
+		floor.build(grid, tables, restaurant);
+		String policy = System.getProperty("kitchen.policy");
+		if (policy != null) {
+			kitchen.setPolicy(KitchenPolicy.forName(policy));
+		}
+		int nCooks = Math.max(1, Integer.getInteger("kitchen.cooks", 1));
+		for (int i = 0; i < nCooks; i++) {
+			cooks.add(new CookAgent(i == 0 ? "W. Puck" : "Cook " + (i+1), restaurant, kitchen));
+		}
+		flowFields = new FlowFields(grid);
+		floor.addDestinations(flowFields);
+		restaurant.addLayoutListener(flowFields);
+		pathCache = new PathCache(grid, 256);
+		restaurant.addLayoutListener(pathCache);
+		int clusterSize = Integer.getInteger("astar.clusterSize", 0);
+		if (clusterSize > 0) {
+			hierarchy = new PathHierarchy(grid, clusterSize);
+			restaurant.addLayoutListener(hierarchy);
+		}
+		restaurant.setAnimDelay(500);
+		if (Boolean.getBoolean("waiter.cooperative")) {
+			// one tick per waiter step
+			reservations = new ReservationTable(grid, 16, 500);
+		}
+		aStarTraversal = new AStarTraversal(grid);
+		aStarTraversal.setFlowFields(flowFields);
+		aStarTraversal.setPathCache(pathCache);
+		aStarTraversal.setPathHierarchy(hierarchy);
+		aStarTraversal.setReservationTable(reservations);
+	}
+
+	/** Start the cashier, host, markets and cooks */
+	public void start() {
+		cashier.startThread();
+		host.startThread();
+
+		for (int i=0; i<10; i++) {
+			markets.add(new MarketAgent(Integer.toString(i+1)));
+			markets.get(i).startThread();
+		}
+
+		for (CookAgent cook : cooks) {
+			cook.setCashier(cashier);
+			cook.setMarkets(markets);
+			cook.startThread();
+		}
+	}
+
+	/** Add and start a waiter, split 50-50 between normal and shared data
+	 * waiters like the gui does.  Name must be at least two characters. */
+	public WaiterAgent addWaiter(String name) {
+		// waiters are shared out between the cooks, who share the kitchen
+		CookAgent cook = cooks.get(waiters.size() % cooks.size());
+		WaiterAgent w;
+		if (rand.nextInt(2) % 2 == 0) {
+			w = new WaiterAgent(name, aStarTraversal, restaurant, tables, null);
+		}
+		else {
+			w = new WaiterAgent(name+"(shared data)", aStarTraversal, restaurant, tables, cook.revolvingStand);
+		}
+		w.setHost(host);
+		w.setCook(cook);
+		w.setCashier(cashier);
+		host.setWaiter(w);
+		waiters.add(w);
+		w.startThread();
+		return w;
+	}
+
+	/** Add and start a customer, who gets hungry right away and again a
+	 * while after each visit. */
+	public CustomerAgent addCustomer(String name) {
+		CustomerAgent c = new CustomerAgent(name, restaurant);
+		c.setHost(host);
+		c.setCashier(cashier);
+		customers.add(c);
+		c.startThread();
+		c.setHungry();
+		return c;
+	}
+
+	/**
+	 * Run a headless simulation:
+	 * RestaurantSimulation [waiters] [customers] [minutes].
+	 * Runs on a DiscreteEventClock unless -Dsimulation.clock=realTime;
+	 * -Dagent.runtime picks the agent runtime as for the gui,
+	 * -Dwaiter.cooperative=true has waiters plan round each other,
+	 * -Dastar.clusterSize=n plans over n x n clusters of the floor,
+	 * -Drestaurant.floor=file lays out the floor from a FloorPlan file,
+	 * -Dkitchen.cooks=n puts n cooks in the kitchen (1 to start with) and
+	 * -Dkitchen.policy=name has them cook by that KitchenPolicy.
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int nWaiters = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+		int nCustomers = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		long minutes = args.length > 2 ? Long.parseLong(args[2]) : 60;
+
+		String runtime = System.getProperty("agent.runtime");
+		if (runtime != null) {
+			Agent.setRuntimeMode(Agent.RuntimeMode.valueOf(runtime));
+		}
+		DiscreteEventClock clock = null;
+		if (!"realTime".equals(System.getProperty("simulation.clock"))) {
+			clock = new DiscreteEventClock();
+			SimulationClock.setClock(clock);
+		}
+
+		RestaurantSimulation sim = new RestaurantSimulation();
+		sim.start();
+		for (int i=0; i<nWaiters; i++) {
+			sim.addWaiter("w" + (i+1));
+		}
+		for (int i=0; i<nCustomers; i++) {
+			sim.addCustomer("c" + (i+1));
+		}
+
+		long start = System.currentTimeMillis();
+		if (clock != null) {
+			clock.runUntil(minutes * Constants.MINUTE);
+			System.out.println("Simulated " + minutes + " minutes ("
+					+ clock.getEventsFired() + " events) in "
+					+ StringUtil.timeIntervalToString(System.currentTimeMillis() - start));
+			System.out.println("Path cache: " + sim.pathCache.getHits() + " hits, "
+					+ sim.pathCache.getMisses() + " misses, "
+					+ sim.pathCache.size() + " paths kept");
+		} else {
+			Thread.sleep(minutes * Constants.MINUTE);
+		}
+		System.exit(0);
+	}
+}
@@ -0,0 +1,86 @@
+package restaurant;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The revolving stand shared data waiters leave orders on for the cook:
+ * a fixed ring of slots any number of waiters can put orders into at
+ * once and only the cook takes them out of, with no locks.  Each slot has
+ * a sequence number saying whose turn it is: a waiter claims the next
+ * slot with a compare-and-set on the tail and then fills it, and the cook
+ * takes orders while the slot at the head has been filled.
+ */
+public class RevolvingStand {
+	private final int capacity, mask;
+	private final AtomicReferenceArray<Order> slots;
+	// slot i is free for the waiter putting order n when it holds n, and
+	// filled for the cook to take order n from when it holds n+1
+	private final AtomicLongArray sequence;
+	private final AtomicLong tail = new AtomicLong(); // the next order put
+	private volatile long head = 0; // the next order taken; only the cook writes it
+
+	/** @param capacity orders the stand holds, rounded up to a power of two */
+	public RevolvingStand(int capacity) {
+		int c = 1;
+		while (c < capacity) c <<= 1;
+		this.capacity = c;
+		mask = c - 1;
+		slots = new AtomicReferenceArray<Order>(c);
+		sequence = new AtomicLongArray(c);
+		for (int i = 0; i < c; i++) sequence.set(i, i);
+	}
+
+	/**
+	 * Put an order on the stand.  Never blocks.
+	 *
+	 * @return false if the stand is full
+	 */
+	public boolean offer(Order order) {
+		while (true) {
+			long t = tail.get();
+			int i = (int) t & mask;
+			long seq = sequence.get(i);
+			if (seq == t) {
+				if (tail.compareAndSet(t, t + 1)) {
+					slots.set(i, order);
+					sequence.set(i, t + 1); // now the cook can have it
+					return true;
+				}
+			}
+			else if (seq < t) {
+				return false; // the cook hasn't taken the order from a lap ago
+			}
+			// else another waiter got slot i first: try the next
+		}
+	}
+
+	/**
+	 * Move every order on the stand to orders, oldest first.  Cook only.
+	 *
+	 * @return how many orders were moved
+	 */
+	public int drainTo(Collection<? super Order> orders) {
+		int n = 0;
+		long h = head;
+		while (true) {
+			int i = (int) h & mask;
+			if (sequence.get(i) != h + 1) break; // empty, or not filled yet
+			orders.add(slots.get(i));
+			slots.set(i, null);
+			sequence.set(i, h + capacity); // free for the waiter a lap on
+			h++;
+			n++;
+		}
+		head = h;
+		return n;
+	}
+
+	/** @return true if there is no order ready for the cook; safe from any thread */
+	public boolean isEmpty() {
+		long h = head;
+		return sequence.get((int) h & mask) != h + 1;
+	}
+}
@@ -0,0 +1,113 @@
+package restaurant;
+
+import java.util.*;
+
+/**
+ * The host's wait list.  Parties are seated VIPs first, then in the
+ * order they came, each at the smallest free table that seats them; a
+ * party no free table fits yet lets the next one that does go ahead of
+ * it.  Each party size has its own queue, so adding or cancelling a
+ * party is O(log n) and finding the next one to seat is O(log n) for
+ * each party size waiting, however long the list gets.
+ */
+class WaitList {
+	/** A customer's party on the list */
+	static class Party {
+		final CustomerAgent customer;
+		final int size;
+		final boolean vip;
+		final long arrival; // order added
+		int table = -1; // the table next() picked for it
+
+		Party(CustomerAgent customer, int size, boolean vip, long arrival) {
+			this.customer = customer;
+			this.size = size;
+			this.vip = vip;
+			this.arrival = arrival;
+		}
+	}
+
+	// VIPs first, then first come first served
+	private static final Comparator<Party> ORDER = new Comparator<Party>() {
+		public int compare(Party a, Party b) {
+			if (a.vip != b.vip) return a.vip ? -1 : 1;
+			return a.arrival < b.arrival ? -1 : a.arrival > b.arrival ? 1 : 0;
+		}
+	};
+
+	private Map<CustomerAgent, Party> parties = new IdentityHashMap<CustomerAgent, Party>();
+	private TreeMap<Integer, TreeSet<Party>> bySize = new TreeMap<Integer, TreeSet<Party>>();
+	// parties not told about the wait yet, in the order they came;
+	// cancelled and seated ones are skipped when they reach the front
+	private ArrayDeque<Party> untold = new ArrayDeque<Party>();
+	private long arrivals = 0;
+
+	/** Put customer's party of size on the list, in place of any party
+	 *  of theirs already on it */
+	synchronized void add(CustomerAgent customer, int size, boolean vip) {
+		remove(customer);
+		Party p = new Party(customer, size, vip, arrivals++);
+		parties.put(customer, p);
+		TreeSet<Party> queue = bySize.get(size);
+		if (queue == null) {
+			queue = new TreeSet<Party>(ORDER);
+			bySize.put(size, queue);
+		}
+		queue.add(p);
+		untold.add(p);
+	}
+
+	/** Take customer's party off the list.
+	 *  @return false if they weren't on it */
+	synchronized boolean remove(CustomerAgent customer) {
+		Party p = parties.remove(customer);
+		if (p == null) return false;
+		TreeSet<Party> queue = bySize.get(p.size);
+		queue.remove(p);
+		if (queue.isEmpty()) bySize.remove(p.size);
+		return true;
+	}
+
+	synchronized boolean isEmpty() {
+		return parties.isEmpty();
+	}
+
+	synchronized int size() {
+		return parties.size();
+	}
+
+	/** @return the first party that hasn't been told there is a wait, now
+	 *  counted as told, or null if they all have */
+	synchronized Party tellAboutWait() {
+		Party p;
+		while ((p = untold.poll()) != null) {
+			if (parties.get(p.customer) == p) return p;
+		}
+		return null;
+	}
+
+	/**
+	 * The party to seat next, with its table set, or null if no party fits
+	 * a free table.  The party stays on the list until it is removed.
+	 *
+	 * @param freeTables for each table size, a set bit for every free
+	 *            table of that size; the caller holds its lock
+	 */
+	synchronized Party next(NavigableMap<Integer, BitSet> freeTables) {
+		Party best = null;
+		for (Map.Entry<Integer, TreeSet<Party>> e : bySize.entrySet()) {
+			Party p = e.getValue().first();
+			if (best != null && ORDER.compare(best, p) < 0) continue;
+			// the smallest free table that is big enough
+			for (BitSet free : freeTables.tailMap(e.getKey(), true).values()) {
+				int table = free.nextSetBit(0);
+				if (table != -1) {
+					p.table = table;
+					best = p;
+					break;
+				}
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,125 @@
+package restaurant;
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.OccupancyGrid;
+import restaurant.layoutGUI.HeadlessRestaurant;
+
+/**
+ * Tests for the host's WaitList: VIPs first, then first come first
+ * served, each party at the smallest free table that seats it, and a
+ * party no free table fits letting the next one go ahead.  In package
+ * restaurant, as the wait list is only the host's.
+ */
+public class WaitListTest extends TestCase {
+
+	private HeadlessRestaurant restaurant = new HeadlessRestaurant(10, 10,
+			new OccupancyGrid(11, 11));
+
+	private CustomerAgent customer(String name) {
+		return new CustomerAgent(name, restaurant);
+	}
+
+	/** Free tables by size: sizesAndTables is size, table, size, table... */
+	private NavigableMap<Integer, BitSet> free(int... sizesAndTables) {
+		NavigableMap<Integer, BitSet> free = new TreeMap<Integer, BitSet>();
+		for (int i = 0; i < sizesAndTables.length; i += 2) {
+			BitSet tables = free.get(sizesAndTables[i]);
+			if (tables == null) {
+				tables = new BitSet();
+				free.put(sizesAndTables[i], tables);
+			}
+			tables.set(sizesAndTables[i+1]);
+		}
+		return free;
+	}
+
+	/** Parties of the same size are seated in the order they came. */
+	@Test
+	public void testFirstComeFirstServed() {
+		WaitList list = new WaitList();
+		CustomerAgent first = customer("c1"), second = customer("c2");
+		list.add(first, 2, false);
+		list.add(second, 2, false);
+
+		WaitList.Party p = list.next(free(2, 0));
+		assertSame("The party that came first should be seated first", first, p.customer);
+		assertEquals("It should get the free table", 0, p.table);
+		assertEquals("It should stay on the list until it is removed", 2, list.size());
+
+		assertTrue("Removing it should say it was on the list", list.remove(first));
+		assertSame("Then the second party should be next", second, list.next(free(2, 0)).customer);
+	}
+
+	/** A VIP is seated ahead of everyone who came before them. */
+	@Test
+	public void testVipFirst() {
+		WaitList list = new WaitList();
+		CustomerAgent early = customer("c1"), bigger = customer("c2"), vip = customer("c3");
+		list.add(early, 2, false);
+		list.add(bigger, 4, false);
+		list.add(vip, 4, true);
+
+		assertSame("The VIP should be seated first", vip, list.next(free(4, 1)).customer);
+		list.remove(vip);
+		assertSame("Then the party that came first", early, list.next(free(4, 1)).customer);
+	}
+
+	/**
+	 * A party no free table fits lets a later party that fits go ahead,
+	 * and a party gets the smallest free table that seats it.
+	 */
+	@Test
+	public void testPartySize() {
+		WaitList list = new WaitList();
+		CustomerAgent four = customer("c1"), two = customer("c2");
+		list.add(four, 4, false);
+		list.add(two, 2, false);
+
+		WaitList.Party p = list.next(free(2, 0));
+		assertSame("The party of 2 should go ahead of the party of 4 no table fits",
+				two, p.customer);
+		assertEquals("It should get the table of 2", 0, p.table);
+
+		list.remove(four);
+		p = list.next(free(6, 3, 2, 5, 4, 1));
+		assertEquals("The party of 2 should get the smallest table that seats it", 5, p.table);
+
+		list.remove(two);
+		assertNull("No party should be next on an empty list", list.next(free(2, 0)));
+		assertTrue("The list should be empty", list.isEmpty());
+	}
+
+	/**
+	 * Adding a customer again replaces their party, and parties are told
+	 * about the wait once each, in the order they came, skipping ones
+	 * that left.
+	 */
+	@Test
+	public void testTellAboutWait() {
+		WaitList list = new WaitList();
+		CustomerAgent c1 = customer("c1"), c2 = customer("c2"), c3 = customer("c3");
+		list.add(c1, 2, false);
+		list.add(c2, 2, false);
+		list.add(c3, 2, false);
+		list.add(c1, 4, false);
+		list.remove(c2);
+
+		assertEquals("Adding c1 again should replace their party", 2, list.size());
+		assertSame("c3 should be told first: c1's first party was replaced and c2 left",
+				c3, list.tellAboutWait().customer);
+		WaitList.Party p = list.tellAboutWait();
+		assertSame("Then c1's new party", c1, p.customer);
+		assertEquals("Of 4", 4, p.size);
+		assertNull("Everyone should have been told", list.tellAboutWait());
+		assertFalse("c2 shouldn't be on the list any more", list.remove(c2));
+	}
+}
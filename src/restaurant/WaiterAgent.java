@@ -6,9 +6,9 @@ import restaurant.gui.RestaurantGui;
 import restaurant.layoutGUI.*;
 import restaurant.Bill.*;
 import agent.Agent;
+import agent.SimulationClock;
 
 import java.util.List;
-import java.util.Timer;
 import java.util.TimerTask;
 import astar.*;
 import java.util.*;
@@ -36,8 +36,6 @@ public class WaiterAgent extends Agent implements Waiter {
 		IS_DONE_EATING, HAS_BILL, IS_COMPLETELY_DONE, NO_ACTION
 	};
 
-	Timer timer = new Timer();
-
 	/**
 	 * Private class to hold information for each customer. Contains a reference
 	 * to the customer, his choice, table number, and state
@@ -52,6 +50,10 @@ public class WaiterAgent extends Agent implements Waiter {
 		public Food food; // gui thing
 		public boolean choiceIsOut; //default false
 		public Semaphore orderingSem; //for multi-step action
+		public long waitingSince; //when the host sent them, for the cook
+		public boolean pickedUp; //we have them, or their food, in hand
+		public int failedMoves; //in a row, getting somewhere for them
+		public long retryAt; //leave them be until then, after a failed move
 
 		/**
 		 * Constructor for MyCustomer class.
@@ -65,6 +67,7 @@ public class WaiterAgent extends Agent implements Waiter {
 			this.cmr = cmr;
 			tableNum = num;
 			orderingSem = s;
+			waitingSince = SimulationClock.getClock().currentTimeMillis();
 			state = CustomerState.NO_ACTION;
 			choiceIsOut = false;
 			askedForBill = false;
@@ -86,15 +89,19 @@ public class WaiterAgent extends Agent implements Waiter {
 	
 	//Access to the revolving stand if it is a shared data waiter
 	boolean useRevolvingStand;
-	protected List<Order> revolvingStand; 
+	protected RevolvingStand revolvingStand; 
 
 	// Animation Variables
 	AStarTraversal aStar;
-	Restaurant restaurant; // the gui layout
+	RestaurantLayout restaurant; // the gui layout
 	GuiWaiter guiWaiter;
 	Position currentPosition;
 	Position originalPosition;
+	int gridOwner; // our id on the occupancy grid
+	DStarLite replanner; // repairs our path when someone is in the way
 	Table[] tables; // the gui tables
+	// how long to leave a customer be after the first move we gave up on
+	private static final long RETRY_MILLIS = 2000;
 
 	/**
 	 * Constructor for WaiterAgent class
@@ -105,7 +112,7 @@ public class WaiterAgent extends Agent implements Waiter {
 	 *            reference to the gui
 	 */
 	public WaiterAgent(String name, AStarTraversal aStar, 
-			Restaurant restaurant, Table[] tables, List<Order> revStand) {
+			RestaurantLayout restaurant, Table[] tables, RevolvingStand revStand) {
 		super();
 
 		this.name = name;
@@ -117,8 +124,12 @@ public class WaiterAgent extends Agent implements Waiter {
 		guiWaiter = new GuiWaiter(name.substring(0, 2), new Color(255, 0, 0),
 				restaurant);
 		currentPosition = new Position(guiWaiter.getX(), guiWaiter.getY());
-		currentPosition.moveInto(aStar.getGrid());
+		gridOwner = aStar.getGrid().newOwner();
+		currentPosition.moveInto(aStar.getGrid(), gridOwner);
+		replanner = new DStarLite(aStar.getGrid());
 		originalPosition = currentPosition;// save this for moving into
+		if (aStar.getFlowFields() != null)
+			aStar.getFlowFields().addDestination(originalPosition);
 		this.tables = tables;
 		
 		if (revStand != null) {
@@ -351,11 +362,28 @@ public class WaiterAgent extends Agent implements Waiter {
 		// the waiter doesn't serve only one customer at a time
 		if (!customers.isEmpty()) {
 			// System.out.println("in scheduler, customers not empty:");
-			// Gives food to customer if the order is ready
+			// Finishes taking a customer, or their food, to the table if
+			// we gave up on the way
 			MyCustomer temp = null;
 			synchronized(customers) {
 				for (MyCustomer c : customers) {
-					if (c.state == CustomerState.ORDER_READY) {
+					if (c.pickedUp && !isBackingOff(c)) {
+						temp = c;
+						break;
+					}
+				}
+			}
+			if (temp != null) {
+				if (temp.state == CustomerState.NEED_SEATED) seatCustomer(temp);
+				else giveFoodToCustomer(temp);
+				return true;
+			}
+
+			// Gives food to customer if the order is ready
+			temp = null;
+			synchronized(customers) {
+				for (MyCustomer c : customers) {
+					if (c.state == CustomerState.ORDER_READY && !isBackingOff(c)) {
 						temp = c;
 						break;
 					}
@@ -385,7 +413,7 @@ public class WaiterAgent extends Agent implements Waiter {
 			temp = null;
 			synchronized(customers) {
 				for (MyCustomer c : customers) {
-					if (c.state == CustomerState.NEED_SEATED) {
+					if (c.state == CustomerState.NEED_SEATED && !isBackingOff(c)) {
 						temp = c;
 						break;
 					}
@@ -425,6 +453,21 @@ public class WaiterAgent extends Agent implements Waiter {
 				return true;
 			}
 
+			// Asks customers whose choice the cook is out of to order again
+			temp = null;
+			synchronized(customers) {
+				for (MyCustomer c : customers) {
+					if (c.choiceIsOut) {
+						temp = c;
+						break;
+					}
+				}
+			}
+			if (temp != null) {
+				askToOrderAgain(temp);
+				return true;
+			}
+
 			// Gives all pending orders to the cook
 			temp = null;
 			synchronized(customers) {
@@ -445,7 +488,7 @@ public class WaiterAgent extends Agent implements Waiter {
 			synchronized(customers) {
 				for (MyCustomer c : customers) {
 					// print("testing for ready to order"+c.state);
-					if (c.state == CustomerState.READY_TO_ORDER) {
+					if (c.state == CustomerState.READY_TO_ORDER && !isBackingOff(c)) {
 						temp = c;
 						break;
 					}
@@ -494,7 +537,11 @@ public class WaiterAgent extends Agent implements Waiter {
 	 *            customer that needs seated
 	 */
 	private void seatCustomer(MyCustomer customer) {
-		DoSeatCustomer(customer); // animation
+		if (!DoSeatCustomer(customer)) { // animation
+			backOff(customer);
+			return;
+		}
+		customer.failedMoves = 0;
 		customer.state = CustomerState.NO_ACTION;
 		customer.cmr.msgFollowMeToTable(this, new Menu());
 		stateChanged();
@@ -504,16 +551,17 @@ public class WaiterAgent extends Agent implements Waiter {
 	private void takeOrderMultiStep(MyCustomer customer) {
 		//Waiter asks customer what he wants.
 		try {
-			customer.orderingSem.acquire();
+			SimulationClock.getClock().acquire(customer.orderingSem);
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
-		takeOrder(customer);
+		boolean tookOrder = takeOrder(customer);
 		customer.orderingSem.release();
+		if (!tookOrder) return;
 		
 		//Waiter gives the cook the order (as before).
 		try {
-			customer.orderingSem.acquire();
+			SimulationClock.getClock().acquire(customer.orderingSem);
 		} catch (InterruptedException e) {
 			e.printStackTrace();
 		}
@@ -526,12 +574,18 @@ public class WaiterAgent extends Agent implements Waiter {
 	 * 
 	 * @param customer
 	 *            customer that is ready to order
+	 * @return false if we couldn't get to the table
 	 */
-	private void takeOrder(MyCustomer customer) {
-		DoTakeOrder(customer); // animation
+	private boolean takeOrder(MyCustomer customer) {
+		if (!DoTakeOrder(customer)) { // animation
+			backOff(customer);
+			return false;
+		}
+		customer.failedMoves = 0;
 		customer.state = CustomerState.NO_ACTION;
 		customer.cmr.msgWhatWouldYouLike();
 		stateChanged();
+		return true;
 	}
 
 	/**
@@ -550,7 +604,7 @@ public class WaiterAgent extends Agent implements Waiter {
 					+ " to cook");
 	
 			customer.state = CustomerState.NO_ACTION;
-			cook.msgHereIsAnOrder(this, customer.tableNum, customer.choice);
+			cook.msgHereIsAnOrder(this, customer.tableNum, customer.choice, customer.waitingSince);
 			stateChanged();
 		}
 		else { //shared data waiter
@@ -558,8 +612,17 @@ public class WaiterAgent extends Agent implements Waiter {
 					+ " on revolving stand");
 			
 			customer.state = CustomerState.NO_ACTION;
-			//add order directly to shared revolving stand
-			revolvingStand.add(new Order(this, customer.tableNum, customer.choice));
+			//add order directly to shared revolving stand, or hand it
+			//to the cook if the stand is full
+			Order order = new Order(this, customer.tableNum, customer.choice);
+			order.waitingSince = customer.waitingSince;
+			if (!revolvingStand.offer(order)) {
+				print("Revolving stand is full, giving order to cook");
+				cook.msgHereIsAnOrder(this, customer.tableNum, customer.choice, customer.waitingSince);
+			}
+			else {
+				cook.msgOrderOnRevolvingStand();
+			}
 			//cook.addToRevolvingStand(this, customer.tableNum, customer.choice);
 			stateChanged();
 		}
@@ -574,6 +637,26 @@ public class WaiterAgent extends Agent implements Waiter {
 				customer.choice.substring(0, 2) + "?");
 	}
 
+	/**
+	 * Tells the customer their choice is out, and has them order something
+	 * else after a moment with the menu
+	 * 
+	 * @param customer
+	 *            customer whose choice is out
+	 */
+	private void askToOrderAgain(final MyCustomer customer) {
+		print("We're out of " + customer.choice + ", asking " + customer.cmr
+				+ " to order again");
+		customer.choiceIsOut = false;
+		// anything still held for the table from before goes back
+		cook.msgCancelOrder(this, customer.tableNum);
+		schedule(new TimerTask() {
+			public void run() {
+				customer.cmr.msgWhatWouldYouLike();
+			}
+		}, 1000);
+	}
+
 	/**
 	 * Gives food to the customer
 	 * 
@@ -581,7 +664,11 @@ public class WaiterAgent extends Agent implements Waiter {
 	 *            customer whose food is ready
 	 */
 	private void giveFoodToCustomer(MyCustomer customer) {
-		DoGiveFoodToCustomer(customer);// Animation
+		if (!DoGiveFoodToCustomer(customer)) {// Animation
+			backOff(customer);
+			return;
+		}
+		customer.failedMoves = 0;
 		customer.state = CustomerState.NO_ACTION;
 		customer.cmr.msgHereIsYourFood(customer.choice);
 		stateChanged();
@@ -599,6 +686,28 @@ public class WaiterAgent extends Agent implements Waiter {
 		stateChanged();
 	}
 	
+	/**
+	 * We gave up getting somewhere for customer. Leaves them be for a
+	 * while, twice as long each time in a row, and gets on with the
+	 * others meanwhile; a timer wakes us to try again.
+	 */
+	private void backOff(MyCustomer customer) {
+		long wait = RETRY_MILLIS << Math.min(customer.failedMoves++, 4);
+		customer.retryAt = SimulationClock.getClock().currentTimeMillis() + wait;
+		print("Trying " + customer.cmr + " again in " + wait + " milliseconds");
+		schedule(new TimerTask() {
+			public void run() {
+				stateChanged();
+			}
+		}, wait);
+		stateChanged();
+	}
+
+	/** @return true if we are leaving customer be after a failed move */
+	private boolean isBackingOff(MyCustomer customer) {
+		return customer.retryAt > SimulationClock.getClock().currentTimeMillis();
+	}
+
 	/** Get bill for customer from cashier */
 	private void getBillFromCashierFor(MyCustomer c) {
 		System.out.println(this+": asked cashier for bill for "+c.cmr);
@@ -627,7 +736,7 @@ public class WaiterAgent extends Agent implements Waiter {
 		host.msgGoingOnBreak(this);
 		breakState = BreakState.onBreak;
 		System.out.println(this+": going on break for 10000ms");
-		timer.schedule(new TimerTask() {
+		schedule(new TimerTask() {
 			public void run() {
 				goOffBreak();
 			}
@@ -644,44 +753,61 @@ public class WaiterAgent extends Agent implements Waiter {
 	}
 
 	// Animation Actions
-	void DoSeatCustomer(MyCustomer customer) {
+	// These return false if we couldn't get somewhere; then the action
+	// leaves the customer's state alone, to be tried again after a while
+	// (see backOff()), and anything picked up stays in hand.
+	boolean DoSeatCustomer(MyCustomer customer) {
 		print("Seating " + customer.cmr + " at table "
 				+ (customer.tableNum + 1));
 		// move to customer first.
-		GuiCustomer guiCustomer = customer.cmr.getGuiCustomer();
-		guiMoveFromCurrentPostionTo(new Position(guiCustomer.getX() + 1,
-				guiCustomer.getY()));
-		guiWaiter.pickUpCustomer(guiCustomer);
+		if (!customer.pickedUp) {
+			GuiCustomer guiCustomer = customer.cmr.getGuiCustomer();
+			if (!guiMoveFromCurrentPostionTo(new Position(guiCustomer.getX() + 1,
+					guiCustomer.getY())))
+				return false;
+			guiWaiter.pickUpCustomer(guiCustomer);
+			customer.pickedUp = true;
+		}
 		Position tablePos = new Position(tables[customer.tableNum].getX() - 1,
 				tables[customer.tableNum].getY() + 1);
-		guiMoveFromCurrentPostionTo(tablePos);
+		if (!guiMoveFromCurrentPostionTo(tablePos))
+			return false;
 		guiWaiter.seatCustomer(tables[customer.tableNum]);
+		customer.pickedUp = false;
+		return true;
 	}
 
-	void DoTakeOrder(MyCustomer customer) {
+	boolean DoTakeOrder(MyCustomer customer) {
 		print("Taking " + customer.cmr + "'s order.");
 		Position tablePos = new Position(tables[customer.tableNum].getX() - 1,
 				tables[customer.tableNum].getY() + 1);
-		guiMoveFromCurrentPostionTo(tablePos);
+		return guiMoveFromCurrentPostionTo(tablePos);
 	}
 
-	void DoGiveFoodToCustomer(MyCustomer customer) {
+	boolean DoGiveFoodToCustomer(MyCustomer customer) {
 		print("Giving finished order of " + customer.choice + " to "
 				+ customer.cmr);
-		Position inFrontOfGrill = new Position(customer.food.getX() - 1,
-				customer.food.getY());
-		guiMoveFromCurrentPostionTo(inFrontOfGrill);// in front of grill
-		guiWaiter.pickUpFood(customer.food);
+		if (!customer.pickedUp) {
+			Position inFrontOfGrill = new Position(customer.food.getX() - 1,
+					customer.food.getY());
+			if (!guiMoveFromCurrentPostionTo(inFrontOfGrill))// in front of grill
+				return false;
+			guiWaiter.pickUpFood(customer.food);
+			customer.pickedUp = true;
+		}
 		Position tablePos = new Position(tables[customer.tableNum].getX() - 1,
 				tables[customer.tableNum].getY() + 1);
-		guiMoveFromCurrentPostionTo(tablePos);
+		if (!guiMoveFromCurrentPostionTo(tablePos))
+			return false;
 		guiWaiter.serveFood(tables[customer.tableNum]);
+		customer.pickedUp = false;
+		return true;
 	}
 
 	void DoClearingTable(final MyCustomer customer) {
 		print("Clearing table " + (customer.tableNum + 1)
 				+ " (1500 milliseconds)");
-		timer.schedule(new TimerTask() {
+		schedule(new TimerTask() {
 			public void run() {
 				endCustomer(customer);
 			}
@@ -709,14 +835,73 @@ public class WaiterAgent extends Agent implements Waiter {
 	}
 
 	// this is just a subroutine for waiter moves. It's not an "Action"
-	// itself, it is called by Actions.
-	void guiMoveFromCurrentPostionTo(Position to) {
+	// itself, it is called by Actions. Returns false if we gave up
+	// getting to to.
+	boolean guiMoveFromCurrentPostionTo(Position to) {
 		// System.out.println("[Gaut] " + guiWaiter.getName() + " moving from "
 		// + currentPosition.toString() + " to " + to.toString());
+		if (aStar.getReservationTable() != null) {
+			return guiMoveCooperativelyTo(to);
+		}
+
+		AStarNode aStarNode = aStar.findPath(currentPosition, to);
+		List<Position> path = aStarNode == null ? null : aStarNode.getPath();
+		Position blocked = null;
+		// The replanner keeps its search to the last goal it was given, so
+		// going back there (a table, the counter, home) only repairs it
+		// for what changed while we were away: rescan() has it look again
+		// where it last saw the others and along its last path.
+		replanner.rescan();
+
+		do {
+			// Boxed in (or someone is standing on to). Look again in a while.
+			for (int looks = 0; path == null; looks++) {
+				if (looks == 10) {
+					print("No path from " + currentPosition + " to " + to + ". Giving up.");
+					return false;
+				}
+				if (!waitATick(1000)) return false;
+				replanner.rescan();
+				path = replanner.plan(currentPosition, to);
+			}
+			blocked = guiFollowPath(path);
+			if (Thread.currentThread().isInterrupted()) return false;
+			// Did not get past a cell after n attempts. So repairing the
+			// path round it, which only redoes the part of the search it
+			// affects.
+			if (blocked != null) {
+				// System.out.println("[Gaut] " + guiWaiter.getName() +
+				// " No Luck getting " + blocked + "! Lets recalculate");
+				replanner.setBlocked(blocked.getX(), blocked.getY());
+				path = replanner.plan(currentPosition, to);
+			}
+		} while (blocked != null);
+		return true;
+		/*
+		 * boolean pathTaken = false; while (!pathTaken) { pathTaken = true;
+		 * //print("A* search from " + currentPosition + "to "+to); AStarNode a
+		 * = (AStarNode)aStar.generalSearch(currentPosition,to); if (a == null)
+		 * {//generally won't happen. A* will run out of space first.
+		 * System.out.println("no path found. What should we do?"); break; //dw
+		 * for now } //dw coming. Get the table position for table 4 from the
+		 * gui //now we have a path. We should try to move there List<Position>
+		 * ps = a.getPath(); Do("Moving to position " + to + " via " + ps); for
+		 * (int i=1; i<ps.size();i++){//i=0 is where we are //we will try to
+		 * move to each position from where we are. //this should work unless
+		 * someone has moved into our way //during our calculation. This could
+		 * easily happen. If it //does we need to recompute another A* on the
+		 * fly. Position next = ps.get(i); if (next.moveInto(aStar.getGrid())){
+		 * //tell the layout gui guiWaiter.move(next.getX(),next.getY());
+		 * currentPosition.release(aStar.getGrid()); currentPosition = next; }
+		 * else { System.out.println("going to break out path-moving");
+		 * pathTaken = false; break; } } }
+		 */
+	}
 
-		AStarNode aStarNode = (AStarNode) aStar.generalSearch(currentPosition,
-				to);
-		List<Position> path = aStarNode.getPath();
+	// Walks path (which starts where we are) one step at a time.
+	// Returns the cell we could not get into, or null if we got to the end.
+	// Stops at the next cell if we are interrupted while waiting for it.
+	private Position guiFollowPath(List<Position> path) {
 		Boolean firstStep = true;
 		Boolean gotPermit = true;
 
@@ -730,7 +915,7 @@ public class WaiterAgent extends Agent implements Waiter {
 			// Try and get lock for the next step.
 			int attempts = 1;
 			gotPermit = new Position(tmpPath.getX(), tmpPath.getY())
-					.moveInto(aStar.getGrid());
+					.moveInto(aStar.getGrid(), gridOwner);
 
 			// Did not get lock. Lets make n attempts.
 			while (!gotPermit && attempts < 3) {
@@ -739,51 +924,83 @@ public class WaiterAgent extends Agent implements Waiter {
 				// attempts);
 
 				// Wait for 1sec and try again to get lock.
-				try {
-					Thread.sleep(1000);
-				} catch (Exception e) {
-				}
+				if (!waitATick(1000)) return tmpPath;
 
 				gotPermit = new Position(tmpPath.getX(), tmpPath.getY())
-						.moveInto(aStar.getGrid());
+						.moveInto(aStar.getGrid(), gridOwner);
 				attempts++;
 			}
 
-			// Did not get lock after trying n attempts. So recalculating path.
+			// Did not get lock after trying n attempts.
 			if (!gotPermit) {
-				// System.out.println("[Gaut] " + guiWaiter.getName() +
-				// " No Luck even after " + attempts +
-				// " attempts! Lets recalculate");
-				guiMoveFromCurrentPostionTo(to);
-				break;
+				return tmpPath;
 			}
 
 			// Got the required lock. Lets move.
 			// System.out.println("[Gaut] " + guiWaiter.getName() +
 			// " got permit for " + tmpPath.toString());
-			currentPosition.release(aStar.getGrid());
+			currentPosition.release(aStar.getGrid(), gridOwner);
 			currentPosition = new Position(tmpPath.getX(), tmpPath.getY());
 			guiWaiter.move(currentPosition.getX(), currentPosition.getY());
 		}
-		/*
-		 * boolean pathTaken = false; while (!pathTaken) { pathTaken = true;
-		 * //print("A* search from " + currentPosition + "to "+to); AStarNode a
-		 * = (AStarNode)aStar.generalSearch(currentPosition,to); if (a == null)
-		 * {//generally won't happen. A* will run out of space first.
-		 * System.out.println("no path found. What should we do?"); break; //dw
-		 * for now } //dw coming. Get the table position for table 4 from the
-		 * gui //now we have a path. We should try to move there List<Position>
-		 * ps = a.getPath(); Do("Moving to position " + to + " via " + ps); for
-		 * (int i=1; i<ps.size();i++){//i=0 is where we are //we will try to
-		 * move to each position from where we are. //this should work unless
-		 * someone has moved into our way //during our calculation. This could
-		 * easily happen. If it //does we need to recompute another A* on the
-		 * fly. Position next = ps.get(i); if (next.moveInto(aStar.getGrid())){
-		 * //tell the layout gui guiWaiter.move(next.getX(),next.getY());
-		 * currentPosition.release(aStar.getGrid()); currentPosition = next; }
-		 * else { System.out.println("going to break out path-moving");
-		 * pathTaken = false; break; } } }
-		 */
+		return null;
+	}
+
+	// Cooperative version of guiMoveFromCurrentPostionTo. Follows a
+	// space-time plan made round the other waiters' reservations, one step
+	// (or wait) per tick, and replans halfway through the window. If the
+	// next cell is taken anyway (by someone outside the table, or a waiter
+	// running behind its plan) it waits one tick and replans, instead of
+	// sleeping and retrying. Gives up, and returns false, after 10 plans
+	// in a row that got us no step further, or if we are interrupted.
+	boolean guiMoveCooperativelyTo(Position to) {
+		ReservationTable reservations = aStar.getReservationTable();
+		long tickMillis = reservations.getTickMillis();
+		int stuck = 0; // plans in a row that didn't move us
+		while (!currentPosition.equals(to)) {
+			if (stuck == 10) {
+				print("No way from " + currentPosition + " to " + to + " round the others. Giving up.");
+				return false;
+			}
+			stuck++;
+			long tick = SimulationClock.getClock().currentTimeMillis() / tickMillis;
+			AStarNode plan = aStar.cooperativeSearch(currentPosition, to, tick,
+					gridOwner);
+			if (plan == null) {
+				if (!waitATick(tickMillis)) return false; // boxed in, let the others move
+				continue;
+			}
+			List<Position> path = plan.getPath();
+			for (int i = 1; i < path.size() && i <= reservations.getWindow() / 2; i++) {
+				Position next = path.get(i);
+				if (next.equals(currentPosition)) {
+					if (!waitATick(tickMillis)) return false; // the plan says wait here
+					continue;
+				}
+				if (!next.moveInto(aStar.getGrid(), gridOwner)) {
+					if (!waitATick(tickMillis)) return false;
+					break; // replan
+				}
+				currentPosition.release(aStar.getGrid(), gridOwner);
+				currentPosition = next;
+				guiWaiter.move(currentPosition.getX(), currentPosition.getY());
+				stuck = 0;
+			}
+		}
+		return true;
+	}
+
+	// Sleeps for tickMillis. Returns false, with the interrupt flag set
+	// again for whoever stops us, if we were interrupted; the moves then
+	// give up.
+	private boolean waitATick(long tickMillis) {
+		try {
+			SimulationClock.getClock().sleep(tickMillis);
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
 	}
 
 	// *** EXTRA ***
@@ -814,7 +1031,7 @@ public class WaiterAgent extends Agent implements Waiter {
 	}
 	
 	/** Hack to set the revolving stand from cook
-	public void setRevolvingStand(List<Order> rs) {
+	public void setRevolvingStand(RevolvingStand rs) {
 		
 	}
 	*/
@@ -0,0 +1,60 @@
+package restaurant;
+
+import static org.junit.Assert.*;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.AStarTraversal;
+import astar.OccupancyGrid;
+import astar.Position;
+import astar.ReservationTable;
+import restaurant.layoutGUI.HeadlessRestaurant;
+import restaurant.layoutGUI.Table;
+
+/**
+ * Tests that a waiter interrupted while waiting to get somewhere gives up
+ * the move at once and leaves the interrupt set.  In package restaurant,
+ * to make the moves without starting the waiter's thread.
+ */
+public class WaiterAgentMoveTest extends TestCase {
+
+	private OccupancyGrid grid = new OccupancyGrid(11, 11);
+	private AStarTraversal aStar = new AStarTraversal(grid);
+	private Position boxedIn = new Position(8, 8);
+
+	/** Make a waiter, and wall in boxedIn so nobody can get there */
+	private WaiterAgent waiter() {
+		WaiterAgent waiter = new WaiterAgent("w1", aStar,
+				new HeadlessRestaurant(10, 10, grid), new Table[0], null);
+		for (int i = -1; i <= 1; i++)
+			for (int j = -1; j <= 1; j++)
+				if (i != 0 || j != 0) grid.claim(boxedIn.getX() + i, boxedIn.getY() + j);
+		return waiter;
+	}
+
+	/** Trying to get to boxedIn with the interrupt set gives up at once */
+	private void assertGivesUp(WaiterAgent waiter) {
+		long start = System.currentTimeMillis();
+		Thread.currentThread().interrupt();
+		boolean got = waiter.guiMoveFromCurrentPostionTo(boxedIn);
+		assertTrue("The interrupt should still be set", Thread.interrupted());
+		assertFalse("The waiter can't have got there", got);
+		assertTrue("The waiter should give up at once, not wait for a way",
+				System.currentTimeMillis() - start < 900);
+	}
+
+	/** Following a plain path. */
+	@Test
+	public void testInterruptedMove() {
+		assertGivesUp(waiter());
+	}
+
+	/** Following a plan round the other waiters' reservations. */
+	@Test
+	public void testInterruptedCooperativeMove() {
+		aStar.setReservationTable(new ReservationTable(grid, 16, 500));
+		assertGivesUp(waiter());
+	}
+}
@@ -1,5 +1,6 @@
 package restaurant.gui;
 
+import agent.Agent;
 import restaurant.CustomerAgent;
 import restaurant.WaiterAgent;
 
@@ -135,8 +136,13 @@ public class RestaurantGui extends JFrame implements ActionListener{
 	}
 
 
-	/** Main routine to get gui started */
+	/** Main routine to get gui started.
+	 * Run with -Dagent.runtime=virtualThreads (or pooled) to pick the agent runtime. */
 	public static void main(String[] args){
+		String runtime = System.getProperty("agent.runtime");
+		if (runtime != null) {
+			Agent.setRuntimeMode(Agent.RuntimeMode.valueOf(runtime));
+		}
 		RestaurantGui gui = new RestaurantGui();
 		gui.setVisible(true);
 		gui.setResizable(false);
@@ -14,22 +14,28 @@ import java.util.Vector;
 /** Panel in frame that contains all the restaurant information,
  * including host, cook, waiters, and customers. */
 public class RestaurantPanel extends JPanel {
-	//create animation
-	static int gridX = 20;
-	static int gridY = 15;
+	//create animation, on the floor from -Drestaurant.floor or the default
+	FloorPlan floor = FloorPlan.configured();
+	int gridX = floor.getWidth();
+	int gridY = floor.getHeight();
 
 	//**Decide how many tables to have
-	private int nTables = 4;
+	private int nTables = floor.getTableCount();
 
 	//I'm going to address the grid using real coordinates, not 0-based
 	//ones. i.e. grid(1,1) has x=1, y=1 and is the "first" square on
 	//the layout. I'll waste a row and column
-	Semaphore[][] grid = new Semaphore[gridX+1][gridY+1]; 
+	OccupancyGrid grid = floor.newGrid();
 	//Table[] tables = new Table[nTables];
 	Table[] tables = new Table[gridX * gridY];
 
 	Restaurant restaurant =  new Restaurant("Welcome to csci201's Restaurant",
 			gridX, gridY, grid, tables);
+	FlowFields flowFields; //shared by the waiters, made once the floor is built
+	PathCache pathCache; //paths the waiters found, shared by them
+	PathHierarchy hierarchy; //null unless astar.clusterSize is set, for big floors
+	ReservationTable reservations; //null unless waiters plan cooperatively
+	AStarTraversal aStarTraversal; //one planner for all the waiters
 	
 	//random int generator
 	Random rand = new Random();
@@ -52,54 +58,28 @@ public class RestaurantPanel extends JPanel {
 	public RestaurantPanel(RestaurantGui gui){
 		this.gui = gui;
 
-		//intialize the semaphore grid
-		for (int i=0; i<gridX+1 ; i++)
-			for (int j = 0; j<gridY+1; j++)
-				grid[i][j]=new Semaphore(1,true);
-		//build the animation areas
-		try {
-			//make the 0-th row and column unavailable
-			System.out.println("making row 0 and col 0 unavailable.");
-			for (int i=0; i<gridY+1; i++) grid[0][0+i].acquire();
-			for (int i=1; i<gridX+1; i++) grid[0+i][0].acquire();
-			System.out.println("adding wait area");
-			restaurant.addWaitArea(2, 2, 13);
-			for (int i=0; i<13; i++) grid[2][2+i].acquire();
-			System.out.println("adding counter area");
-			restaurant.addCounter(17, 2, 13);
-			for (int i=0; i<13; i++) grid[17][2+i].acquire();
-			System.out.println("adding grill area");
-			restaurant.addGrill(19, 3, 10);
-			for (int i=0; i<10; i++) grid[19][3+i].acquire();
-			//Let's just put the four static tables in for now
-			System.out.println("adding table 1");
-			tables[0] = new Table("T1", 5, 3, 3);//, restaurant);
-			restaurant.addTable("T1", 5, 3, 3);
-			for (int i=0; i<3; i++)
-				for (int j=0; j<3; j++)
-					grid[5+i][3+j].acquire();// because grid is 0-based
-			System.out.println("adding table 2");
-			tables[1] = new Table("T2", 5, 8, 3);//, restaurant);
-			restaurant.addTable("T2", 5, 8, 3);
-			for (int i=0; i<3; i++)
-				for (int j=0; j<3; j++)
-					grid[5+i][8+j].acquire();// because grid is 0-based
-			System.out.println("adding table 3");
-			tables[2] = new Table("T3", 10, 3, 3);//,restaurant);
-			restaurant.addTable("T3", 10, 3, 3);
-			for (int i=0; i<3; i++)
-				for (int j=0; j<3; j++)
-					grid[10+i][3+j].acquire();// because grid is 0-based
-			System.out.println("adding table 4");
-			tables[3] = new Table ("T4", 10, 8, 3);//,restaurant);
-			restaurant.addTable("T4", 10, 8, 3);
-			for (int i=0; i<3; i++)
-				for (int j=0; j<3; j++)
-					grid[10+i][8+j].acquire();// because grid is 0-based
-		}catch (Exception e) {
-			System.out.println("Unexpected exception caught in during setup:"+ e);
+		//build the animation areas on the grid
+		floor.build(grid, tables, restaurant);
+		flowFields = new FlowFields(grid);
+		floor.addDestinations(flowFields);
+		restaurant.addLayoutListener(flowFields);
+		pathCache = new PathCache(grid, 256);
+		restaurant.addLayoutListener(pathCache);
+		int clusterSize = Integer.getInteger("astar.clusterSize", 0);
+		if (clusterSize > 0) {
+			hierarchy = new PathHierarchy(grid, clusterSize);
+			restaurant.addLayoutListener(hierarchy);
 		}
 		restaurant.setAnimDelay(500);
+		if (Boolean.getBoolean("waiter.cooperative")) {
+			//one tick per waiter step
+			reservations = new ReservationTable(grid, 16, 500);
+		}
+		aStarTraversal = new AStarTraversal(grid);
+		aStarTraversal.setFlowFields(flowFields);
+		aStarTraversal.setPathCache(pathCache);
+		aStarTraversal.setPathHierarchy(hierarchy);
+		aStarTraversal.setReservationTable(reservations);
 		restaurant.displayRestaurant();
 		
 		//start cashier and host
@@ -180,7 +160,6 @@ public class RestaurantPanel extends JPanel {
 			c.startThread(); //Customer is fsm.
 			c.setHungry();
 		} else if(type.equals("Waiters")){
-			AStarTraversal aStarTraversal = new AStarTraversal(grid);
 			//split 50-50 between normal and shared data waiters
 			WaiterAgent w;
 			if (rand.nextInt(2) % 2 == 0) {
@@ -220,7 +199,7 @@ public class RestaurantPanel extends JPanel {
 			int[][] acqList = new int[9][2];
 			for (int i=0; i<size; i++) {
 				for (int j=0; j<size; j++) {
-					boolean acquired = grid[x+i][y+j].tryAcquire();
+					boolean acquired = grid.claim(x+i, y+j);
 					if(acquired) {
 						acqCnt++;
 						acqList[acqCnt][0] = x+i;
@@ -228,7 +207,7 @@ public class RestaurantPanel extends JPanel {
 					}
 					if(!acquired) {
 						for(int k=0; k<=acqCnt; k++) {
-							grid[acqList[k][0]][acqList[k][1]].release();
+							grid.release(acqList[k][0], acqList[k][1]);
 						}
 						return false;
 					}
@@ -236,6 +215,7 @@ public class RestaurantPanel extends JPanel {
 			}
 			tables[nTables] = new Table ("T" + (nTables+1), x, y, size);//,restaurant);
 			restaurant.addTable("T" + (nTables+1), x, y, size);
+			flowFields.addDestination(x - 1, y + 1);
 			nTables++;
 			host.addTable();
 		}
@@ -16,8 +16,18 @@ public interface Cook {
 	 *            identification number for the table
 	 * @param choice
 	 *            type of food to be cooked
+	 * @param waitingSince
+	 *            simulation time the table started waiting
 	 */
-	public void msgHereIsAnOrder(Waiter waiter, int tableNum, String choice);
+	public void msgHereIsAnOrder(Waiter waiter, int tableNum, String choice, long waitingSince);
+	
+	/** Message from a shared data waiter who put an order on the
+	 *  revolving stand */
+	public void msgOrderOnRevolvingStand();
+	
+	/** Message from a waiter whose table won't have the order it gave:
+	 *  if it hasn't been started, its food goes back in stock */
+	public void msgCancelOrder(Waiter waiter, int tableNum);
 	
 	/** Message from Market of food delivery */
 	public void msgFoodDelivery(Market m, String foodType, int amount);
@@ -6,10 +6,10 @@ public class Food
 {
     private int x, y;
     private Color color;
-    private Restaurant restaurant;
+    private RestaurantLayout restaurant;
     private String name;
     
-    public Food(String name, Color color, Restaurant restaurant)
+    public Food(String name, Color color, RestaurantLayout restaurant)
     {
         this.name       =   name;
         this.color      =   color;
@@ -1,15 +1,16 @@
 package restaurant.layoutGUI;
 
 import java.awt.*;
+import agent.SimulationClock;
 
 public class GuiCustomer
 {
     private int x, y;
     private Color color;
-    private Restaurant restaurant;
+    private RestaurantLayout restaurant;
     private String name;
     
-    public GuiCustomer(String name, Color color, Restaurant restaurant)
+    public GuiCustomer(String name, Color color, RestaurantLayout restaurant)
     {
         this.name       =   name;
         this.color      =   color;
@@ -34,11 +35,11 @@ public class GuiCustomer
     public void appearInWaitingQueue()
     {
 		try  {
-			restaurant.lock.acquire();
+			SimulationClock.getClock().acquire(restaurant.getLock());
 			this.y  =   restaurant.getWaitY();
 			this.x  =   restaurant.getWaitX();
 			this.placeCustomer();	
-			restaurant.lock.release();
+			restaurant.getLock().release();
 		}
 		catch (InterruptedException e) {
 			e.printStackTrace();
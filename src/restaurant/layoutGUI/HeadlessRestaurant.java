@@ -0,0 +1,299 @@
+package restaurant.layoutGUI;
+
+import java.awt.*;
+import java.util.concurrent.*;
+import agent.SimulationClock;
+import astar.LayoutListener;
+import astar.OccupancyGrid;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A restaurant layout with no window.  Keeps the text of every cell, which
+ * is all Restaurant uses to find free grill, counter and wait slots and
+ * waiter start positions, and still waits animDelay (on the simulation
+ * clock) per move, so timing matches the Swing layout.  Nothing is painted.
+ */
+public class HeadlessRestaurant implements RestaurantLayout
+{
+    private long animDelay;
+    private String[][] cells;
+    private int grilX, grilY, grilSize, cntrX, cntrY, cntrSize, waitX, waitY, waitSize, waiterX, waiterY;
+    private String defaultText;
+    private boolean grilFull, cntrFull, waitFull;
+    private int xPos, yPos;
+    private int waiterNum[][], waiterCnt;
+    private OccupancyGrid grid;
+    private Semaphore lock = new Semaphore(1, true);
+    private List<LayoutListener> layoutListeners = new ArrayList<LayoutListener>();
+
+    private int tune_waiter_pos_X, tune_waiter_pos_Y;
+
+    public HeadlessRestaurant(int x, int y, OccupancyGrid grid)
+    {
+        tune_waiter_pos_X   =   3; //same start position as Restaurant
+        tune_waiter_pos_Y   =   1;
+
+        this.grid       =   grid;
+        defaultText     =   "_____";
+        xPos            =   x;
+        yPos            =   y;
+        cells           =   new String[x][y];
+        for (int i  = 0; i < x; i++)
+        {
+            for (int j = 0; j < y; j++)
+            {
+                cells[i][j]    =   defaultText;
+            }
+        }
+        waiterNum   =   new int[x*y][2];
+        animDelay   =   1000;
+    }
+
+    public Semaphore getLock()
+    {
+        return lock;
+    }
+
+    public void setAnimDelay(long animDelay)
+    {
+        this.animDelay  =   animDelay;
+    }
+
+    public void addLayoutListener(LayoutListener listener)
+    {
+        layoutListeners.add(listener);
+    }
+
+    public void addTable(String tableNum, int x, int y, int size)
+    {
+        for (LayoutListener listener : layoutListeners)
+        {
+            listener.layoutChanged(x, y, size, true);
+        }
+        cells[x-1][y-1] =   tableNum;
+    }
+
+    public void addWaitArea(int x, int y, int size)
+    {
+        waitX       =   x;
+        waitY       =   y;
+        waitSize    =   size;
+    }
+
+    public void addCounter(int x, int y, int size)
+    {
+        cntrX       =   x;
+        cntrY       =   y;
+        cntrSize    =   size;
+    }
+
+    public void addGrill(int x, int y, int size)
+    {
+        grilX       =   x;
+        grilY       =   y;
+        grilSize    =   size;
+    }
+
+    public void displayRestaurant()
+    {
+        // nothing to display
+    }
+
+    public int getGrilX()
+    {
+        return grilFull ? firstFreeX() : grilX;
+    }
+
+    public int getGrilY()
+    {
+        grilFull    =   false;
+        int y       =   freeSlot(grilX, grilY, grilSize);
+        if (y != -1)
+        {
+            return y;
+        }
+        grilFull    =   true;
+        return firstFreeY();
+    }
+
+    public int getCntrX()
+    {
+        return cntrFull ? firstFreeX() : cntrX;
+    }
+
+    public int getCntrY()
+    {
+        cntrFull    =   false;
+        int y       =   freeSlot(cntrX, cntrY, cntrSize);
+        if (y != -1)
+        {
+            return y;
+        }
+        cntrFull    =   true;
+        return firstFreeY();
+    }
+
+    public int getWaitX()
+    {
+        return waitFull ? firstFreeX() : waitX;
+    }
+
+    public int getWaitY()
+    {
+        waitFull    =   false;
+        int y       =   freeSlot(waitX, waitY, waitSize);
+        if (y != -1)
+        {
+            return y;
+        }
+        waitFull    =   true;
+        return firstFreeY();
+    }
+
+    public int getWaiterX()
+    {
+        for(int i = tune_waiter_pos_Y; i <= yPos; i++)
+        {
+            for(int j = tune_waiter_pos_X; j <= xPos; j++)
+            {
+                if(cells[i-1][j-1].equals(defaultText) && grid.isFree(j, i))
+                {
+                    boolean occupied = false;
+                    for(int k = 0; k < waiterCnt; k++)
+                    {
+                        if(waiterNum[k][0] == j && waiterNum[k][1] == i)
+                            occupied = true;
+                    }
+                    if(!occupied)
+                    {
+                        waiterX =   j;
+                        waiterY =   i;
+
+                        waiterNum[waiterCnt][0] = j;
+                        waiterNum[waiterCnt][1] = i;
+
+                        waiterCnt++;
+                        return waiterX;
+                    }
+                }
+            }
+        }
+        return waiterX;
+    }
+
+    public int getWaiterY()
+    {
+        return waiterY;
+    }
+
+    public void placeWaiter(int x, int y, Color color, String name)
+    {
+        cells[x-1][y-1] =   shorten(name, 2);
+    }
+
+    public void moveWaiter(int oldx, int oldy, int newx, int newy, Color color, String name)
+    {
+        cells[oldx-1][oldy-1]   =   defaultText;
+        cells[newx-1][newy-1]   =   shorten(name, 2);
+        delay();
+    }
+
+    public void moveWaiterCustomer(int oldx, int oldy, int newx, int newy, Color color, String waiterName, String customerName)
+    {
+        cells[oldx-1][oldy-1]   =   defaultText;
+        cells[newx-1][newy-1]   =   shorten(waiterName, 2) + shorten(customerName, 2);
+        delay();
+    }
+
+    public void moveWaiterFood(int oldx, int oldy, int newx, int newy, Color color, String waiterName, String foodName)
+    {
+        cells[oldx-1][oldy-1]   =   defaultText;
+        cells[newx-1][newy-1]   =   shorten(waiterName, 2) + shorten(foodName, 3);
+        delay();
+    }
+
+    public void placeCustomer(int x, int y, Color color, String name)
+    {
+        cells[x-1][y-1] =   shorten(name, 2);
+        delay();
+    }
+
+    public void removeCustomer(int x, int y)
+    {
+        cells[x-1][y-1] =   defaultText;
+        delay();
+    }
+
+    public void placeFood(int x, int y, Color color, String name)
+    {
+        cells[x-1][y-1] =   name;
+        delay();
+    }
+
+    public void removeFood(int x, int y)
+    {
+        cells[x-1][y-1] =   defaultText;
+        delay();
+    }
+
+    /** @return the first free y in the column x from y to y + size, or -1 */
+    private int freeSlot(int x, int y, int size)
+    {
+        for(int i = y; i < y + size; i++)
+        {
+            if (cells[x-1][i-1].equals(defaultText))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int firstFreeX()
+    {
+        for(int i = 1; i <= xPos; i++)
+        {
+            for(int j = 1; j <= yPos; j++)
+            {
+                if(cells[i-1][j-1].equals(defaultText))
+                {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int firstFreeY()
+    {
+        for(int i = 1; i <= xPos; i++)
+        {
+            for(int j = 1; j <= yPos; j++)
+            {
+                if(cells[i-1][j-1].equals(defaultText))
+                {
+                    return j;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private String shorten(String name, int length)
+    {
+        return name.length() > length ? name.substring(0, length) : name;
+    }
+
+    private void delay()
+    {
+        try
+        {
+            SimulationClock.getClock().sleep(animDelay);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt(); // for the agent moving to see
+        }
+    }
+}
@@ -5,11 +5,16 @@ import java.awt.event.*;
 import javax.swing.*;
 import restaurant.layoutGUI.*;
 import java.util.concurrent.*; 
+import agent.SimulationClock;
+import astar.LayoutListener;
+import astar.OccupancyGrid;
+import java.util.ArrayList;
+import java.util.List;
 
 import java.awt.event.MouseListener;
 import java.awt.event.MouseEvent;
 
-public class Restaurant extends JFrame implements MouseListener
+public class Restaurant extends JFrame implements MouseListener, RestaurantLayout
 {   
     private long animDelay;
     private JLabel[][] buttons;
@@ -19,12 +24,13 @@ public class Restaurant extends JFrame implements MouseListener
     private int xPos, yPos;
     private int waiterNum[][], waiterCnt, defSize, tableCnt;
     private Table tables[], tableSel;
-    private Semaphore[][] grid;
+    private OccupancyGrid grid;
 	public Semaphore lock = new Semaphore(1, true);
+    private List<LayoutListener> layoutListeners = new ArrayList<LayoutListener>();
     
     private	int tune_mouse_X, tune_mouse_Y, tune_waiter_pos_X, tune_waiter_pos_Y;
     
-    public Restaurant(String caption, int x, int y, Semaphore[][] grid, Table[] tables)
+    public Restaurant(String caption, int x, int y, OccupancyGrid grid, Table[] tables)
     {
     	tune_mouse_X		=	1; //tunes the X positioning of mouse. Possible values are -1, 0 and 1.
     	tune_mouse_Y		=	1; //tunes the Y positioning of mouse. Possible values are -1, 0 and 1.
@@ -62,14 +68,31 @@ public class Restaurant extends JFrame implements MouseListener
         addMouseListener(this);    
     }
     
+    public Semaphore getLock()
+    {
+        return lock;
+    }
+    
     public void setAnimDelay(long animDelay)
     {
         this.animDelay  =   animDelay;
     }
     
+    public void addLayoutListener(LayoutListener listener)
+    {
+        layoutListeners.add(listener);
+    }
+    
+    private void layoutChanged(int x, int y, int size, boolean isBlocked)
+    {
+        for (LayoutListener listener : layoutListeners)
+            listener.layoutChanged(x, y, size, isBlocked);
+    }
+    
     public void addTable(String tableNum, int x, int y, int size)
     {
 		tableCnt ++;
+        layoutChanged(x, y, size, true);
         for (int i = (x - 1); i < (x - 1 + size); i++)
         {
             for (int j = (y - 1); j < (y - 1 + size); j++)
@@ -84,6 +107,7 @@ public class Restaurant extends JFrame implements MouseListener
     
     public void addTableAgain(String tableNum, int x, int y, int size)
     {
+        layoutChanged(x, y, size, true);
         for (int i = (x - 1); i < (x - 1 + size); i++)
         {
             for (int j = (y - 1); j < (y - 1 + size); j++)
@@ -138,7 +162,7 @@ public class Restaurant extends JFrame implements MouseListener
         this.setVisible(true);
     }
     
-    protected int getGrilX()
+    public int getGrilX()
     {
         if (!grilFull)
         {
@@ -160,7 +184,7 @@ public class Restaurant extends JFrame implements MouseListener
         return -1;
     }
     
-    protected int getGrilY()
+    public int getGrilY()
     {
         grilFull    =   false;
         for(int i = grilY; i < grilY + grilSize; i++)
@@ -184,7 +208,7 @@ public class Restaurant extends JFrame implements MouseListener
         return -1;
     }
     
-    protected int getCntrX()
+    public int getCntrX()
     {
         if (!cntrFull)
         {
@@ -206,7 +230,7 @@ public class Restaurant extends JFrame implements MouseListener
         return -1;
     }
     
-    protected int getCntrY()
+    public int getCntrY()
     {
         cntrFull    =   false;
         for(int i = cntrY; i < cntrY + cntrSize; i++)
@@ -230,7 +254,7 @@ public class Restaurant extends JFrame implements MouseListener
         return -1;
     }
 
-    protected int getWaitX()
+    public int getWaitX()
     {
         if (!waitFull)
         {
@@ -252,7 +276,7 @@ public class Restaurant extends JFrame implements MouseListener
         return -1;
     }
     
-    protected int getWaitY()
+    public int getWaitY()
     {
         waitFull    =   false;
         for(int i = waitY; i < waitY + waitSize; i++)
@@ -276,15 +300,14 @@ public class Restaurant extends JFrame implements MouseListener
         return -1;
     }
     
-    protected int getWaiterX()
+    public int getWaiterX()
     {
         for(int i = tune_waiter_pos_Y; i <= yPos; i++)
         {
             for(int j = tune_waiter_pos_X; j <= xPos; j++)
             {
-                if(buttons[i-1][j-1].getText().equals(defaultText) && grid[j][i].tryAcquire())
+                if(buttons[i-1][j-1].getText().equals(defaultText) && grid.isFree(j, i))
                 {
-					grid[j][i].release();
                     boolean occupied = false;
                     for(int k = 0; k < waiterCnt; k++)
                     {
@@ -308,12 +331,12 @@ public class Restaurant extends JFrame implements MouseListener
         return waiterX;
     }
     
-    protected int getWaiterY()
+    public int getWaiterY()
     {
         return waiterY;
     }
     
-    protected void placeWaiter(int x, int y, Color color, String name)
+    public void placeWaiter(int x, int y, Color color, String name)
     {
         if (name.length() > 2)
             name = name.substring(0, 2);
@@ -321,7 +344,7 @@ public class Restaurant extends JFrame implements MouseListener
         buttons[x-1][y-1].setText(name);
     }
     
-    protected void moveWaiter(int oldx, int oldy, int newx, int newy, Color color, String name)
+    public void moveWaiter(int oldx, int oldy, int newx, int newy, Color color, String name)
     {
         if (name.length() > 2)
             name = name.substring(0, 2);
@@ -331,12 +354,15 @@ public class Restaurant extends JFrame implements MouseListener
         buttons[newx-1][newy-1].setText(name);
         try
         {
-            Thread.sleep(animDelay);
+            SimulationClock.getClock().sleep(animDelay);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt(); // for the agent moving to see
         }
-        catch(Exception e) {}
     }
   
-    protected void moveWaiterCustomer(int oldx, int oldy, int newx, int newy, Color color, String waiterName, String customerName)
+    public void moveWaiterCustomer(int oldx, int oldy, int newx, int newy, Color color, String waiterName, String customerName)
     {
         if (waiterName.length() > 2)
             waiterName = waiterName.substring(0, 2);
@@ -348,12 +374,15 @@ public class Restaurant extends JFrame implements MouseListener
         buttons[newx-1][newy-1].setText(waiterName + customerName);
         try
         {
-            Thread.sleep(animDelay);
+            SimulationClock.getClock().sleep(animDelay);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt(); // for the agent moving to see
         }
-        catch(Exception e) {}
     }
     
-    protected void moveWaiterFood(int oldx, int oldy, int newx, int newy, Color color, String waiterName, String foodName)
+    public void moveWaiterFood(int oldx, int oldy, int newx, int newy, Color color, String waiterName, String foodName)
     {
         if (waiterName.length() > 2)
             waiterName = waiterName.substring(0, 2);
@@ -365,12 +394,15 @@ public class Restaurant extends JFrame implements MouseListener
         buttons[newx-1][newy-1].setText(waiterName + foodName);
         try
         {
-            Thread.sleep(animDelay);
+            SimulationClock.getClock().sleep(animDelay);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt(); // for the agent moving to see
         }
-        catch(Exception e) {}
     }
 
-    protected void placeCustomer(int x, int y, Color color, String name)
+    public void placeCustomer(int x, int y, Color color, String name)
     {
         if (name.length() > 2)
             name = name.substring(0, 2);
@@ -378,20 +410,26 @@ public class Restaurant extends JFrame implements MouseListener
         buttons[x-1][y-1].setText(name);
         try
         {
-            Thread.sleep(animDelay);
+            SimulationClock.getClock().sleep(animDelay);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt(); // for the agent moving to see
         }
-        catch(Exception e) {}
     }
     
-    protected void removeCustomer(int x, int y)
+    public void removeCustomer(int x, int y)
     {
         buttons[x-1][y-1].setForeground(new Color(0, 0, 0));
         buttons[x-1][y-1].setText(defaultText);
         try
         {
-            Thread.sleep(animDelay);
+            SimulationClock.getClock().sleep(animDelay);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt(); // for the agent moving to see
         }
-        catch(Exception e) {}
     }
     
     public void placeFood(int x, int y, Color color, String name)
@@ -400,20 +438,26 @@ public class Restaurant extends JFrame implements MouseListener
         buttons[x-1][y-1].setText(name);
         try
         {
-            Thread.sleep(animDelay);
+            SimulationClock.getClock().sleep(animDelay);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt(); // for the agent moving to see
         }
-        catch(Exception e) {}
     }
     
-    protected void removeFood(int x, int y)
+    public void removeFood(int x, int y)
     {
         buttons[x-1][y-1].setForeground(buttons[x-1][y-1].getBackground());
         buttons[x-1][y-1].setText(defaultText);
         try
         {
-            Thread.sleep(animDelay);
+            SimulationClock.getClock().sleep(animDelay);
+        }
+        catch(InterruptedException e)
+        {
+            Thread.currentThread().interrupt(); // for the agent moving to see
         }
-        catch(Exception e) {}
     }   
     
     public void mousePressed(MouseEvent e) {
@@ -449,7 +493,7 @@ public class Restaurant extends JFrame implements MouseListener
 		    {
 				for(int j = 0; j < tableSel.getSize(); j++)
 				{
-					if (!grid[newX + i][newY + j].tryAcquire())
+					if (!grid.claim(newX + i, newY + j))
 					{
 						boolean owned	=	false;
 						if((newX + i) >= oldX && ((newX + i) <= (oldX + tableSel.getSize())))
@@ -460,7 +504,7 @@ public class Restaurant extends JFrame implements MouseListener
 							gotPermit	=	false;
 							for(int k = 0; k <= i; k++)
 								for(int l = 0; l < j; l++)
-									grid[newX + k][newY + l].release();
+									grid.release(newX + k, newY + l);
 							break;
 						}
 					}
@@ -479,16 +523,17 @@ public class Restaurant extends JFrame implements MouseListener
 				
 				for(int i = 0; i < tableSel.getSize(); i++)
 					for(int j = 0; j < tableSel.getSize(); j++)
-						grid[oldX + i][oldY + j].release();
+						grid.release(oldX + i, oldY + j);
 				for(int i = 0; i < tableSel.getSize(); i++)
 					for(int j = 0; j < tableSel.getSize(); j++)
-						grid[newX + i][newY + j].tryAcquire();
+						grid.claim(newX + i, newY + j);
 			}
        }
     }
 
     public void removeTable(String tableNum, int x, int y, int size)
     {
+        layoutChanged(x, y, size, false);
         for (int i = (x - 1); i < (x - 1 + size); i++)
         {
             for (int j = (y - 1); j < (y - 1 + size); j++)
@@ -0,0 +1,64 @@
+package restaurant.layoutGUI;
+
+import java.awt.*;
+import java.util.concurrent.*;
+import astar.LayoutListener;
+
+/**
+ * The floor layout the agents and gui objects draw on.  Implemented by the
+ * Swing Restaurant window and by HeadlessRestaurant, which keeps the same
+ * bookkeeping (free grill/counter/wait slots, waiter start positions) but
+ * renders nothing.  Coordinates are 1-based, as in Restaurant.
+ */
+public interface RestaurantLayout
+{
+    public void setAnimDelay(long animDelay);
+    
+    public void addTable(String tableNum, int x, int y, int size);
+    
+    /** Tell listener when a table is added, moved or removed */
+    public void addLayoutListener(LayoutListener listener);
+    
+    public void addWaitArea(int x, int y, int size);
+    
+    public void addCounter(int x, int y, int size);
+    
+    public void addGrill(int x, int y, int size);
+    
+    public void displayRestaurant();
+    
+    /** Lock held while a customer picks and takes a wait area slot */
+    public Semaphore getLock();
+    
+    public int getGrilX();
+    
+    public int getGrilY();
+    
+    public int getCntrX();
+    
+    public int getCntrY();
+    
+    public int getWaitX();
+    
+    public int getWaitY();
+    
+    public int getWaiterX();
+    
+    public int getWaiterY();
+    
+    public void placeWaiter(int x, int y, Color color, String name);
+    
+    public void moveWaiter(int oldx, int oldy, int newx, int newy, Color color, String name);
+    
+    public void moveWaiterCustomer(int oldx, int oldy, int newx, int newy, Color color, String waiterName, String customerName);
+    
+    public void moveWaiterFood(int oldx, int oldy, int newx, int newy, Color color, String waiterName, String foodName);
+    
+    public void placeCustomer(int x, int y, Color color, String name);
+    
+    public void removeCustomer(int x, int y);
+    
+    public void placeFood(int x, int y, Color color, String name);
+    
+    public void removeFood(int x, int y);
+}
@@ -0,0 +1,137 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.AStarNode;
+import astar.AStarTraversal;
+import astar.OccupancyGrid;
+import astar.Position;
+
+/**
+ * Tests that AStarTraversal's A*, with its closed set and parent cells,
+ * finds shortest paths: the same length as a plain Dijkstra over the grid
+ * on seeded random floors, one traversal answering every query.
+ */
+public class AStarTraversalTest extends TestCase {
+
+	/** An n x n grid with about density percent of its cells blocked */
+	private OccupancyGrid randomGrid(Random random, int n, int density) {
+		OccupancyGrid grid = new OccupancyGrid(n, n);
+		for (int x = 0; x < n; x++)
+			for (int y = 0; y < n; y++)
+				if (random.nextInt(100) < density) grid.claim(x, y);
+		return grid;
+	}
+
+	/**
+	 * The shortest distance from from to to by Dijkstra, moving to any of
+	 * the 8 free neighbours, or -1 if there is no way
+	 */
+	private double dijkstra(OccupancyGrid grid, Position from, Position to) {
+		final int w = grid.getWidth(), h = grid.getHeight();
+		final double[] dist = new double[w*h];
+		Arrays.fill(dist, Double.POSITIVE_INFINITY);
+		PriorityQueue<double[]> open = new PriorityQueue<double[]>(64,
+				new java.util.Comparator<double[]>() {
+					public int compare(double[] a, double[] b) {
+						return Double.compare(a[0], b[0]);
+					}
+				});
+		dist[from.getX()*h + from.getY()] = 0;
+		open.add(new double[] {0, from.getX()*h + from.getY()});
+		while (!open.isEmpty()) {
+			double[] top = open.poll();
+			int cell = (int) top[1];
+			if (top[0] > dist[cell]) continue;
+			int x = cell / h, y = cell % h;
+			if (x == to.getX() && y == to.getY()) return top[0];
+			for (int dx = -1; dx <= 1; dx++)
+				for (int dy = -1; dy <= 1; dy++) {
+					int nx = x + dx, ny = y + dy;
+					if (nx < 0 || ny < 0 || nx >= w || ny >= h || !grid.isFree(nx, ny)) continue;
+					double d = top[0] + (dx != 0 && dy != 0 ? Math.sqrt(2) : 1);
+					if (d < dist[nx*h + ny]) {
+						dist[nx*h + ny] = d;
+						open.add(new double[] {d, nx*h + ny});
+					}
+				}
+		}
+		return -1;
+	}
+
+	/**
+	 * path goes from from to to one free neighbouring cell at a time, and
+	 * is as long as the node says
+	 */
+	private void assertPath(OccupancyGrid grid, Position from, Position to, AStarNode node) {
+		List<Position> path = node.getPath();
+		assertTrue("The path should start at " + from, path.get(0).equals(from));
+		assertTrue("The path should end at " + to, path.get(path.size()-1).equals(to));
+		double length = 0;
+		for (int i = 1; i < path.size(); i++) {
+			Position a = path.get(i-1), b = path.get(i);
+			assertTrue("Steps should be to a neighbouring cell",
+					Math.abs(a.getX() - b.getX()) <= 1 && Math.abs(a.getY() - b.getY()) <= 1);
+			assertTrue("Steps should be to a free cell", grid.isFree(b.getX(), b.getY()));
+			length += a.distance(b);
+		}
+		assertEquals("The node should know how long its path is", length, node.getDistTravelled(), 1e-9);
+	}
+
+	/**
+	 * On random floors from empty to a third blocked, every path one
+	 * traversal finds is as short as Dijkstra's, and it finds no path
+	 * exactly when Dijkstra doesn't.
+	 */
+	@Test
+	public void testShortestPaths() {
+		int n = 40;
+		for (int density = 0; density <= 35; density += 5) {
+			Random random = new Random(density);
+			OccupancyGrid grid = randomGrid(random, n, density);
+			AStarTraversal traversal = new AStarTraversal(grid);
+			for (int q = 0; q < 100; q++) {
+				Position from = new Position(random.nextInt(n), random.nextInt(n));
+				Position to = new Position(random.nextInt(n), random.nextInt(n));
+				if (!grid.isFree(to.getX(), to.getY())) continue;
+				double shortest = dijkstra(grid, from, to);
+				AStarNode found = traversal.findPath(from, to);
+				if (shortest < 0) {
+					assertNull("There is no way from " + from + " to " + to, found);
+					continue;
+				}
+				assertNotNull("There is a way from " + from + " to " + to, found);
+				assertPath(grid, from, to, found);
+				assertEquals("From " + from + " to " + to + " at density " + density,
+						shortest, found.getDistTravelled(), 1e-9);
+			}
+		}
+	}
+
+	/** A goal walled in has no path, and the next search is unaffected. */
+	@Test
+	public void testNoPath() {
+		OccupancyGrid grid = new OccupancyGrid(10, 10);
+		for (int x = 5; x <= 7; x++)
+			for (int y = 5; y <= 7; y++)
+				if (x != 6 || y != 6) grid.claim(x, y);
+		AStarTraversal traversal = new AStarTraversal(grid);
+
+		assertNull("The middle of the ring can't be reached",
+				traversal.generalSearch(new Position(1, 1), new Position(6, 6)));
+		assertTrue("The whole grid outside should have been tried", traversal.getNodesExpanded() > 80);
+		AStarNode next = (AStarNode) traversal.generalSearch(new Position(1, 1), new Position(9, 9));
+		assertNotNull("A search after a failed one should still work", next);
+		assertEquals("And go round the ring", dijkstra(grid, new Position(1, 1), new Position(9, 9)),
+				next.getDistTravelled(), 1e-9);
+	}
+}
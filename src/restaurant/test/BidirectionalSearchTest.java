@@ -0,0 +1,126 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.AStarNode;
+import astar.AStarTraversal;
+import astar.AStarTraversal.SearchMode;
+import astar.OccupancyGrid;
+import astar.Position;
+
+/**
+ * Tests that bidirectional search finds paths as short as plain A* on
+ * seeded random floors, walkable one cell at a time, and no path where A*
+ * finds none.
+ */
+public class BidirectionalSearchTest extends TestCase {
+
+	/** An n x n grid with about density percent of its cells blocked */
+	private OccupancyGrid randomGrid(Random random, int n, int density) {
+		OccupancyGrid grid = new OccupancyGrid(n, n);
+		for (int x = 0; x < n; x++)
+			for (int y = 0; y < n; y++)
+				if (random.nextInt(100) < density) grid.claim(x, y);
+		return grid;
+	}
+
+	/** Every step of path is to a free neighbouring cell, from from to to */
+	private void assertWalkable(OccupancyGrid grid, Position from, Position to, List<Position> path) {
+		assertTrue("The path should start at " + from, path.get(0).equals(from));
+		assertTrue("The path should end at " + to, path.get(path.size()-1).equals(to));
+		for (int i = 1; i < path.size(); i++) {
+			Position a = path.get(i-1), b = path.get(i);
+			assertTrue("Steps should be to a neighbouring cell",
+					Math.abs(a.getX() - b.getX()) <= 1 && Math.abs(a.getY() - b.getY()) <= 1);
+			assertTrue("Steps should be to a free cell", grid.isFree(b.getX(), b.getY()));
+		}
+	}
+
+	/**
+	 * On random floors from empty to a third blocked, bidirectional search
+	 * finds a path exactly when A* does, and one just as short.
+	 */
+	@Test
+	public void testSameLengthAsAStar() {
+		int n = 50;
+		for (int density = 0; density <= 35; density += 5) {
+			Random random = new Random(100 + density);
+			OccupancyGrid grid = randomGrid(random, n, density);
+			AStarTraversal aStar = new AStarTraversal(grid);
+			AStarTraversal bidirectional = new AStarTraversal(grid, SearchMode.bidirectional);
+			for (int q = 0; q < 150; q++) {
+				Position from = new Position(random.nextInt(n), random.nextInt(n));
+				Position to = new Position(random.nextInt(n), random.nextInt(n));
+				if (!grid.isFree(to.getX(), to.getY())) continue;
+				AStarNode shortest = aStar.findPath(from, to);
+				AStarNode found = bidirectional.findPath(from, to);
+				if (shortest == null) {
+					assertNull("There is no way from " + from + " to " + to, found);
+					continue;
+				}
+				assertNotNull("There is a way from " + from + " to " + to, found);
+				assertWalkable(grid, from, to, found.getPath());
+				assertEquals("From " + from + " to " + to + " at density " + density,
+						shortest.getDistTravelled(), found.getDistTravelled(), 1e-9);
+			}
+		}
+	}
+
+	/**
+	 * A goal walled in, and a floor cut in two by a wall, have no path;
+	 * the search after them still finds one.
+	 */
+	@Test
+	public void testNoPath() {
+		OccupancyGrid grid = new OccupancyGrid(20, 20);
+		for (int x = 5; x <= 7; x++)
+			for (int y = 5; y <= 7; y++)
+				if (x != 6 || y != 6) grid.claim(x, y);
+		AStarTraversal bidirectional = new AStarTraversal(grid, SearchMode.bidirectional);
+		assertNull("The middle of the ring can't be reached",
+				bidirectional.findPath(new Position(1, 1), new Position(6, 6)));
+
+		for (int y = 0; y < 20; y++) grid.claim(12, y);
+		assertNull("The other side of the wall can't be reached",
+				bidirectional.findPath(new Position(1, 1), new Position(18, 3)));
+		assertNull("Nor from the other side",
+				bidirectional.findPath(new Position(18, 3), new Position(1, 1)));
+
+		AStarNode next = bidirectional.findPath(new Position(1, 1), new Position(10, 18));
+		assertNotNull("A search after a failed one should still work", next);
+		assertEquals(new AStarTraversal(grid).findPath(new Position(1, 1), new Position(10, 18))
+				.getDistTravelled(), next.getDistTravelled(), 1e-9);
+	}
+
+	/**
+	 * The shortest trips, where the two searches meet straight away: staying
+	 * put, and one step in each direction.
+	 */
+	@Test
+	public void testShortTrips() {
+		OccupancyGrid grid = new OccupancyGrid(10, 10);
+		AStarTraversal bidirectional = new AStarTraversal(grid, SearchMode.bidirectional);
+		Position here = new Position(5, 5);
+
+		AStarNode stay = bidirectional.findPath(here, here);
+		assertNotNull("Staying put should be a path", stay);
+		assertEquals(1, stay.getPath().size());
+		assertEquals(0, stay.getDistTravelled(), 1e-9);
+		for (int dx = -1; dx <= 1; dx++)
+			for (int dy = -1; dy <= 1; dy++) {
+				if (dx == 0 && dy == 0) continue;
+				Position next = new Position(5 + dx, 5 + dy);
+				AStarNode step = bidirectional.findPath(here, next);
+				assertNotNull("One step to " + next + " should be a path", step);
+				assertEquals("One step to " + next, 2, step.getPath().size());
+				assertEquals(here.distance(next), step.getDistTravelled(), 1e-9);
+			}
+	}
+}
@@ -0,0 +1,147 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.AStarNode;
+import astar.AStarTraversal;
+import astar.OccupancyGrid;
+import astar.Position;
+import astar.ReservationTable;
+
+/**
+ * Tests that walkers planning with cooperativeSearch round a shared
+ * ReservationTable never stand on the same cell at the same tick and
+ * never swap cells, head on, crossing and on random floors.
+ */
+public class CooperativeSearchTest extends TestCase {
+
+	private static final int WINDOW = 16;
+
+	/** A walker following its plan, one step a tick, replanning halfway */
+	private static class Walker {
+		AStarTraversal traversal;
+		int owner;
+		Position at, goal;
+		List<Position> plan;
+		long planned; // tick the plan starts at
+
+		Walker(OccupancyGrid grid, ReservationTable reservations, Position at, Position goal) {
+			traversal = new AStarTraversal(grid);
+			traversal.setReservationTable(reservations);
+			owner = grid.newOwner();
+			this.at = at;
+			this.goal = goal;
+		}
+
+		/** Replan if need be, as the waiter does */
+		void plan(long tick) {
+			if (plan != null && tick - planned < WINDOW / 2) return;
+			AStarNode n = traversal.cooperativeSearch(at, goal, tick, owner);
+			plan = n == null ? null : n.getPath();
+			planned = tick;
+		}
+
+		/** Where the plan has us at tick, parked on its last cell after it */
+		Position at(long tick) {
+			if (plan == null) return at;
+			return plan.get((int) Math.min(tick - planned, plan.size() - 1));
+		}
+	}
+
+	/**
+	 * Runs walkers for ticks ticks, checking at every step that no two
+	 * are on one cell and no two swapped.  Returns true if all of them
+	 * got to their goals.
+	 */
+	private boolean walk(Walker[] walkers, int ticks) {
+		for (long tick = 0; tick < ticks; tick++) {
+			for (Walker w : walkers) w.plan(tick);
+			Position[] next = new Position[walkers.length];
+			for (int i = 0; i < walkers.length; i++) {
+				next[i] = walkers[i].at(tick + 1);
+				assertTrue("A walker should move at most one cell a tick",
+						Math.abs(next[i].getX() - walkers[i].at.getX()) <= 1
+						&& Math.abs(next[i].getY() - walkers[i].at.getY()) <= 1);
+			}
+			for (int i = 0; i < walkers.length; i++)
+				for (int j = i + 1; j < walkers.length; j++) {
+					assertFalse("Tick " + (tick + 1) + ": two walkers on " + next[i],
+							next[i].equals(next[j]));
+					assertFalse("Tick " + tick + ": two walkers swapped "
+							+ walkers[i].at + " and " + walkers[j].at,
+							next[i].equals(walkers[j].at) && next[j].equals(walkers[i].at));
+				}
+			boolean arrived = true;
+			for (int i = 0; i < walkers.length; i++) {
+				walkers[i].at = next[i];
+				arrived &= next[i].equals(walkers[i].goal);
+			}
+			if (arrived) return true;
+		}
+		return false;
+	}
+
+	/** Two walkers head on along the same row get past each other. */
+	@Test
+	public void testHeadOn() {
+		OccupancyGrid grid = new OccupancyGrid(12, 5);
+		ReservationTable reservations = new ReservationTable(grid, WINDOW, 500);
+		Walker[] walkers = {
+			new Walker(grid, reservations, new Position(0, 2), new Position(11, 2)),
+			new Walker(grid, reservations, new Position(11, 2), new Position(0, 2)),
+		};
+		assertTrue("Both should get where they are going", walk(walkers, 60));
+	}
+
+	/** Two walkers whose shortest paths cross in the middle. */
+	@Test
+	public void testCrossing() {
+		OccupancyGrid grid = new OccupancyGrid(9, 9);
+		ReservationTable reservations = new ReservationTable(grid, WINDOW, 500);
+		Walker[] walkers = {
+			new Walker(grid, reservations, new Position(0, 4), new Position(8, 4)),
+			new Walker(grid, reservations, new Position(4, 0), new Position(4, 8)),
+		};
+		assertTrue("Both should get where they are going", walk(walkers, 60));
+	}
+
+	/**
+	 * Pairs of walkers with random ends on seeded random floors: whether
+	 * or not they get there, they never meet on a cell or swap.
+	 */
+	@Test
+	public void testRandomFloors() {
+		int n = 20, arrived = 0, runs = 0;
+		for (int seed = 0; seed < 30; seed++) {
+			Random random = new Random(400 + seed);
+			OccupancyGrid grid = new OccupancyGrid(n, n);
+			for (int x = 0; x < n; x++)
+				for (int y = 0; y < n; y++)
+					if (random.nextInt(100) < 15) grid.claim(x, y);
+			Position[] ends = new Position[4];
+			for (int i = 0; i < ends.length; i++) {
+				do {
+					ends[i] = new Position(random.nextInt(n), random.nextInt(n));
+				} while (!grid.isFree(ends[i].getX(), ends[i].getY()));
+				grid.claim(ends[i].getX(), ends[i].getY()); // no two ends the same
+			}
+			for (Position p : ends) grid.release(p.getX(), p.getY());
+			ReservationTable reservations = new ReservationTable(grid, WINDOW, 500);
+			Walker[] walkers = {
+				new Walker(grid, reservations, ends[0], ends[1]),
+				new Walker(grid, reservations, ends[2], ends[3]),
+			};
+			runs++;
+			if (walk(walkers, 120)) arrived++;
+		}
+		assertTrue("Most pairs should get where they are going, not " + arrived
+				+ " of " + runs, arrived * 2 > runs);
+	}
+}
@@ -0,0 +1,129 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.AStarNode;
+import astar.AStarTraversal;
+import astar.DStarLite;
+import astar.OccupancyGrid;
+import astar.Position;
+
+/**
+ * Tests for the D* Lite replanner: replans as short as a fresh A* as the
+ * walker moves and cells get blocked and freed, and what rescan() picks
+ * up, walkers that left and walkers that stepped onto the path.
+ */
+public class DStarLiteTest extends TestCase {
+
+	/** The length of path, step by step */
+	private double length(List<Position> path) {
+		double d = 0;
+		for (int i = 1; i < path.size(); i++) d += path.get(i-1).distance(path.get(i));
+		return d;
+	}
+
+	/** The length of a fresh A* from from to to on grid, which has a way */
+	private double aStar(OccupancyGrid grid, Position from, Position to) {
+		return length(new AStarTraversal(grid).findPath(from, to).getPath());
+	}
+
+	/**
+	 * On seeded random floors, a walker heads for a goal, a few steps at
+	 * a time.  Between moves others step onto its path and off it again.
+	 * Every replan, told of the cells with setBlocked() or left to find
+	 * them with rescan(), is as long as a fresh A* on the grid as it is,
+	 * and there is no plan exactly when A* finds none.
+	 */
+	@Test
+	public void testReplansMatchAStar() {
+		int n = 30, replans = 0;
+		for (int seed = 0; seed < 8; seed++) {
+			Random random = new Random(300 + seed);
+			OccupancyGrid grid = new OccupancyGrid(n, n);
+			for (int x = 0; x < n; x++)
+				for (int y = 0; y < n; y++)
+					if (random.nextInt(100) < 15) grid.claim(x, y);
+			Position from = new Position(0, 0), to = new Position(n-1, n-1);
+			grid.release(0, 0);
+			grid.release(n-1, n-1);
+			AStarTraversal aStar = new AStarTraversal(grid);
+			if (aStar.findPath(from, to) == null) continue;
+			DStarLite planner = new DStarLite(grid);
+			int[] others = new int[6];
+			Position[] standing = new Position[others.length];
+			for (int i = 0; i < others.length; i++) others[i] = grid.newOwner();
+
+			List<Position> path = planner.plan(from, to);
+			for (int round = 0; round < 10 && path != null && path.size() > 2; round++) {
+				// walk a few steps
+				from = path.get(Math.min(3, path.size() - 2));
+				// the others move: onto cells ahead on the path, or away
+				boolean tell = round % 2 == 0;
+				for (int i = 0; i < others.length; i++) {
+					if (standing[i] != null) {
+						grid.release(standing[i].getX(), standing[i].getY(), others[i]);
+						standing[i] = null;
+					}
+					if (random.nextBoolean() || path.size() <= 4) continue;
+					Position p = path.get(4 + random.nextInt(path.size() - 4));
+					if (p.equals(from) || p.equals(to)) continue;
+					if (grid.claim(p.getX(), p.getY(), others[i])) {
+						standing[i] = p;
+						if (tell) planner.setBlocked(p.getX(), p.getY());
+					}
+				}
+				planner.rescan(); // for the cells they left, and the rounds we don't tell
+				path = planner.plan(from, to);
+				replans++;
+				AStarNode shortest = aStar.findPath(from, to);
+				if (shortest == null) {
+					assertNull("Seed " + seed + " round " + round + ": there is no way", path);
+					break;
+				}
+				assertNotNull("Seed " + seed + " round " + round + ": there is a way", path);
+				assertEquals("Seed " + seed + " round " + round + " from " + from,
+						shortest.getDistTravelled(), length(path), 1e-9);
+				for (Position p : path.subList(1, path.size()))
+					assertTrue("The plan shouldn't go through " + p, grid.isFree(p.getX(), p.getY()));
+			}
+		}
+		assertTrue("There should have been plenty of replans, not " + replans, replans > 30);
+	}
+
+	/**
+	 * After rescan(), a walker that has left is no longer in the way, and
+	 * one that stepped onto the last path far from us is gone round.
+	 */
+	@Test
+	public void testRescan() {
+		OccupancyGrid grid = new OccupancyGrid(20, 20);
+		int other = grid.newOwner();
+		for (int x = 5; x < 20; x++) if (x != 10) grid.claim(x, 10); // a wall with a gap
+		grid.claim(10, 10, other); // someone standing in the gap
+		DStarLite planner = new DStarLite(grid);
+		Position from = new Position(15, 2), to = new Position(15, 18);
+
+		List<Position> round = planner.plan(from, to);
+		assertNotNull(round);
+		assertEquals("Round the end of the wall", aStar(grid, from, to), length(round), 1e-9);
+
+		grid.release(10, 10, other);
+		planner.rescan();
+		List<Position> through = planner.plan(from, to);
+		assertEquals("Through the gap once they've gone", aStar(grid, from, to), length(through), 1e-9);
+		assertTrue(length(through) < length(round));
+
+		grid.claim(10, 10, other); // back in the gap, far from us
+		assertEquals("Without a rescan they aren't seen", length(through),
+				length(planner.plan(from, to)), 1e-9);
+		planner.rescan();
+		assertEquals("With one they are", length(round), length(planner.plan(from, to)), 1e-9);
+	}
+}
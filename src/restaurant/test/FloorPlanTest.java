@@ -0,0 +1,129 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.FlowFields;
+import astar.OccupancyGrid;
+import restaurant.FloorPlan;
+import restaurant.layoutGUI.HeadlessRestaurant;
+import restaurant.layoutGUI.Table;
+
+/**
+ * Tests for FloorPlan: the tiled floor, building it onto a grid, writing
+ * and reading it back, and the destinations it gives FlowFields.
+ */
+public class FloorPlanTest extends TestCase {
+
+	/** Build plan onto a grid from it, and return the grid */
+	private OccupancyGrid build(FloorPlan plan, Table[] tables) {
+		OccupancyGrid grid = plan.newGrid();
+		plan.build(grid, tables, new HeadlessRestaurant(plan.getWidth(), plan.getHeight(), grid));
+		return grid;
+	}
+
+	/**
+	 * The usual floor: its tables are blocked on the grid with room to
+	 * walk round them, and the wasted row and column 0 are blocked.
+	 */
+	@Test
+	public void testTiledFloor() {
+		FloorPlan plan = FloorPlan.tiled(20, 15);
+		Table[] tables = new Table[plan.getTableCount()];
+		OccupancyGrid grid = build(plan, tables);
+
+		assertEquals("The usual floor has 4 tables", 4, plan.getTableCount());
+		assertEquals("The grid has the wasted row and column", 21, grid.getWidth());
+		assertEquals(16, grid.getHeight());
+		assertEquals("T1", tables[0].getName());
+		for (Table t : tables) {
+			for (int i = 0; i < t.getSize(); i++)
+				for (int j = 0; j < t.getSize(); j++)
+					assertFalse(t.getName() + " should be blocked",
+							grid.isFree(t.getX() + i, t.getY() + j));
+			assertTrue("The cell a waiter serves " + t.getName() + " from should be free",
+					grid.isFree(t.getX() - 1, t.getY() + 1));
+		}
+		assertFalse("The wait area should be blocked", grid.isFree(2, 2));
+		assertFalse("Column 0 should be blocked", grid.isFree(0, 5));
+		assertFalse("Row 0 should be blocked", grid.isFree(5, 0));
+		assertTrue("The waiters' start should be free", grid.isFree(3, 1));
+
+		try {
+			FloorPlan.tiled(5, 5);
+			fail("A floor too small for anything should be refused");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/** A floor written out reads back the same, walls and all. */
+	@Test
+	public void testWriteAndRead() throws IOException {
+		FloorPlan plan = FloorPlan.tiled(30, 20);
+		plan.setWall(4, 10);
+		plan.setWall(5, 10);
+		plan.setWall(12, 1);
+		StringWriter written = new StringWriter();
+		plan.write(written);
+
+		FloorPlan read = FloorPlan.read(new BufferedReader(new StringReader(written.toString())));
+		StringWriter again = new StringWriter();
+		read.write(again);
+		assertEquals("Reading a floor back should give the same floor", written.toString(), again.toString());
+		assertEquals(plan.getTableCount(), read.getTableCount());
+
+		Table[] tables = new Table[read.getTableCount()];
+		OccupancyGrid grid = build(read, tables);
+		assertFalse("The walls should be blocked", grid.isFree(4, 10));
+		assertFalse(grid.isFree(12, 1));
+		assertTrue("The cells round them shouldn't", grid.isFree(4, 11));
+	}
+
+	/** A bad floor file is an IOException saying which line. */
+	@Test
+	public void testBadFloor() {
+		String[] bad = {
+			"", // no floor line
+			"table T1 5 3 3\n", // no floor line first
+			"floor 20 15\nsofa 1 2 3\n",
+			"floor 20 15\ntable T1 19 14 3\n", // off the floor
+		};
+		for (String floor : bad) {
+			try {
+				FloorPlan.read(new BufferedReader(new StringReader(floor)));
+				fail("Should refuse \"" + floor + "\"");
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * The floor gives FlowFields the cells the waiters walk to, and no
+	 * others.
+	 */
+	@Test
+	public void testDestinations() {
+		FloorPlan plan = FloorPlan.tiled(20, 15);
+		Table[] tables = new Table[plan.getTableCount()];
+		OccupancyGrid grid = build(plan, tables);
+		FlowFields fields = new FlowFields(grid);
+		plan.addDestinations(fields);
+
+		Table t = tables[0];
+		assertTrue("There should be a field to the cell T1 is served from",
+				fields.distance(3, 1, t.getX() - 1, t.getY() + 1) > 0);
+		assertTrue("And to the cells beside the wait area",
+				fields.distance(3, 1, 3, 5) > 0);
+		assertTrue("And in front of the counter",
+				fields.distance(3, 1, 16, 7) > 0);
+		assertEquals("But not to anywhere else", -1, fields.distance(3, 1, 9, 1), 0);
+	}
+}
@@ -0,0 +1,137 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.AStarNode;
+import astar.AStarTraversal;
+import astar.FlowFields;
+import astar.OccupancyGrid;
+import astar.Position;
+
+/**
+ * Tests for FlowFields: distances down a field are A*'s, a field is built
+ * again when a table is put down or taken away, and a path with someone
+ * standing on it is given up.
+ */
+public class FlowFieldsTest extends TestCase {
+
+	/** An n x n grid with about density percent of its cells blocked */
+	private OccupancyGrid randomGrid(Random random, int n, int density) {
+		OccupancyGrid grid = new OccupancyGrid(n, n);
+		for (int x = 0; x < n; x++)
+			for (int y = 0; y < n; y++)
+				if (random.nextInt(100) < density) grid.claim(x, y);
+		return grid;
+	}
+
+	/** The length of path, step by step */
+	private double length(List<Position> path) {
+		double d = 0;
+		for (int i = 1; i < path.size(); i++) d += path.get(i-1).distance(path.get(i));
+		return d;
+	}
+
+	/** A size x size table put down at (x,y), or taken away */
+	private void table(OccupancyGrid grid, FlowFields fields, int x, int y, int size, boolean down) {
+		for (int i = x; i < x + size; i++)
+			for (int j = y; j < y + size; j++)
+				if (down) grid.claim(i, j); else grid.release(i, j);
+		fields.layoutChanged(x, y, size, down);
+	}
+
+	/**
+	 * On random floors, the distance from any free cell to a destination,
+	 * and the path down its field, are as long as A*'s, and there is no
+	 * way exactly when A* finds none.
+	 */
+	@Test
+	public void testDistanceMatchesAStar() {
+		int n = 40;
+		for (int density = 0; density <= 30; density += 10) {
+			Random random = new Random(200 + density);
+			OccupancyGrid grid = randomGrid(random, n, density);
+			FlowFields fields = new FlowFields(grid);
+			AStarTraversal aStar = new AStarTraversal(grid);
+			Position[] destinations = new Position[4];
+			for (int d = 0; d < destinations.length; d++) {
+				destinations[d] = new Position(random.nextInt(n), random.nextInt(n));
+				grid.release(destinations[d].getX(), destinations[d].getY());
+				fields.layoutChanged(destinations[d].getX(), destinations[d].getY(), 1, false);
+				fields.addDestination(destinations[d]);
+			}
+			for (int q = 0; q < 100; q++) {
+				Position from = new Position(random.nextInt(n), random.nextInt(n));
+				if (!grid.isFree(from.getX(), from.getY())) continue;
+				Position to = destinations[q % destinations.length];
+				AStarNode shortest = aStar.findPath(from, to);
+				double distance = fields.distance(from.getX(), from.getY(), to.getX(), to.getY());
+				List<Position> path = fields.path(from, to);
+				if (shortest == null) {
+					assertEquals("There is no way from " + from + " to " + to,
+							Double.POSITIVE_INFINITY, distance, 0);
+					assertNull(path);
+					continue;
+				}
+				assertEquals("From " + from + " to " + to + " at density " + density,
+						shortest.getDistTravelled(), distance, 1e-9);
+				assertNotNull("The field should give a path from " + from, path);
+				assertEquals("The path down the field should be as long",
+						shortest.getDistTravelled(), length(path), 1e-9);
+			}
+		}
+	}
+
+	/**
+	 * A table put down in the way is walked round once the field is told,
+	 * and taking it away again gives the straight way back.
+	 */
+	@Test
+	public void testLayoutChanged() {
+		OccupancyGrid grid = new OccupancyGrid(20, 20);
+		FlowFields fields = new FlowFields(grid);
+		fields.addDestination(15, 10);
+		assertEquals("Straight along the row", 10, fields.distance(5, 10, 15, 10), 1e-9);
+		int built = fields.getFieldsBuilt();
+
+		table(grid, fields, 9, 9, 3, true);
+		double round = fields.distance(5, 10, 15, 10);
+		assertEquals("Round the table, as A* goes",
+				new AStarTraversal(grid).findPath(new Position(5, 10), new Position(15, 10)).getDistTravelled(),
+				round, 1e-9);
+		assertTrue("Round the table should be further", round > 10);
+		assertTrue("The field should have been built again", fields.getFieldsBuilt() > built);
+		for (Position p : fields.path(new Position(5, 10), new Position(15, 10)))
+			assertTrue("The path shouldn't go through the table at " + p, grid.isFree(p.getX(), p.getY()));
+
+		table(grid, fields, 9, 9, 3, false);
+		assertEquals("Straight along the row again", 10, fields.distance(5, 10, 15, 10), 1e-9);
+	}
+
+	/**
+	 * Someone standing on the way makes path() give up but not the
+	 * distance, which goes by the layout; other cells are no destination.
+	 */
+	@Test
+	public void testTakenCellAndNoField() {
+		OccupancyGrid grid = new OccupancyGrid(20, 20);
+		FlowFields fields = new FlowFields(grid);
+		fields.addDestination(15, 10);
+		grid.claim(10, 10);
+
+		assertNull("Someone in the way should make path() give up",
+				fields.path(new Position(5, 10), new Position(15, 10)));
+		assertEquals("The distance shouldn't change", 10, fields.distance(5, 10, 15, 10), 1e-9);
+		grid.release(10, 10);
+		assertNotNull(fields.path(new Position(5, 10), new Position(15, 10)));
+
+		assertNull("(3,3) has no field", fields.path(new Position(5, 10), new Position(3, 3)));
+		assertEquals(-1, fields.distance(5, 10, 3, 3), 0);
+	}
+}
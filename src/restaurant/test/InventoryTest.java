@@ -0,0 +1,150 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import restaurant.Inventory;
+
+/**
+ * Tests for the kitchen's Inventory: the counts reserve(), consume() and
+ * release() leave, many cooks reserving the same food at once, stock
+ * adding up whatever the cooks do, and only one cook ordering a food
+ * that ran out.
+ */
+public class InventoryTest extends TestCase {
+
+	/** Reserving, cooking and putting back food keeps the counts right. */
+	@Test
+	public void testReserveConsumeRelease() {
+		Inventory inventory = new Inventory().addItem("Pizza", 3, 2);
+		int pizza = inventory.idOf("Pizza");
+
+		assertTrue("The first pizza should be promised", inventory.reserve(pizza));
+		assertTrue("The second pizza should be promised", inventory.reserve(pizza));
+		assertFalse("There is no third pizza", inventory.reserve(pizza));
+		assertEquals("None should be left to promise", 0, inventory.getAvailable(pizza));
+		assertEquals("Both should be promised", 2, inventory.getReserved(pizza));
+		assertEquals("The third order should count as turned away", 1, inventory.getTurnedAway(pizza));
+
+		inventory.consume(pizza);
+		assertEquals("One should still be promised", 1, inventory.getReserved(pizza));
+		assertEquals("One should be served", 1, inventory.getServed(pizza));
+
+		inventory.release(pizza);
+		assertEquals("None should be promised", 0, inventory.getReserved(pizza));
+		assertEquals("The one put back should be in stock", 1, inventory.getAvailable(pizza));
+		assertEquals("Putting it back shouldn't count as served", 1, inventory.getServed(pizza));
+	}
+
+	/** Foods are numbered in the order they were added, once each. */
+	@Test
+	public void testMenu() {
+		Inventory inventory = Inventory.standard();
+
+		assertEquals("The standard menu has 4 foods", 4, inventory.size());
+		assertEquals("Steak is added first", 0, inventory.idOf("Steak"));
+		assertEquals("Salad", inventory.getName(inventory.idOf("Salad")));
+		assertEquals("A food not on the menu has no id", -1, inventory.idOf("Soup"));
+		assertEquals("Nor does no food", -1, inventory.idOf(null));
+		try {
+			inventory.addItem("Steak", 5, 1);
+			fail("Adding Steak twice should fail");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/**
+	 * 8 cooks reserve the same food at once: exactly the stock is
+	 * promised, and every other try is turned away.
+	 */
+	@Test
+	public void testManyCooksReserving() throws InterruptedException {
+		final int cooks = 8, triesEach = 10000, stock = 30000;
+		final Inventory inventory = new Inventory().addItem("Chicken", 4, stock);
+		final int chicken = inventory.idOf("Chicken");
+		final AtomicInteger promised = new AtomicInteger();
+		Thread[] threads = new Thread[cooks];
+		for (int c = 0; c < cooks; c++) {
+			threads[c] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < triesEach; i++) {
+						if (inventory.reserve(chicken)) {
+							promised.incrementAndGet();
+							if (i % 2 == 0) inventory.consume(chicken);
+						}
+					}
+				}
+			});
+			threads[c].start();
+		}
+		for (Thread t : threads) t.join();
+
+		assertEquals("Exactly the stock should be promised", stock, promised.get());
+		assertEquals("Nothing should be left", 0, inventory.getAvailable(chicken));
+		assertEquals("The rest should be turned away", cooks * triesEach - stock,
+				inventory.getTurnedAway(chicken));
+		assertEquals("Promised is served plus still promised", stock,
+				inventory.getServed(chicken) + inventory.getReserved(chicken));
+	}
+
+	/**
+	 * 8 cooks reserving, putting back and cooking the same food at once
+	 * never make or lose any: what is in stock, promised and served
+	 * always adds up to what there was.
+	 */
+	@Test
+	public void testStockIsConserved() throws InterruptedException {
+		final int cooks = 8, stock = 50;
+		final Inventory inventory = new Inventory().addItem("Salad", 2, stock);
+		final int salad = inventory.idOf("Salad");
+		Thread[] threads = new Thread[cooks];
+		for (int c = 0; c < cooks; c++) {
+			final int cook = c;
+			threads[c] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < 20000; i++) {
+						if (!inventory.reserve(salad)) continue;
+						// most orders are cancelled; now and then one is cooked
+						if ((i + cook) % 10 == 0) inventory.consume(salad);
+						else inventory.release(salad);
+					}
+				}
+			});
+			threads[c].start();
+		}
+		for (Thread t : threads) t.join();
+
+		assertEquals("Nothing should still be promised", 0, inventory.getReserved(salad));
+		assertEquals("In stock plus served should be what there was", stock,
+				inventory.getAvailable(salad) + inventory.getServed(salad));
+		assertTrue("Some should have been cooked", inventory.getServed(salad) > 0);
+	}
+
+	/**
+	 * A food that runs out is claimed for ordering once, until the market
+	 * delivers or the order fails.
+	 */
+	@Test
+	public void testClaimOut() {
+		Inventory inventory = Inventory.standard();
+		int steak = inventory.idOf("Steak");
+
+		assertEquals("Steak starts out of stock", steak, inventory.claimOut());
+		assertTrue("It should be on order", inventory.isOnOrder(steak));
+		assertEquals("No other cook should order it again", -1, inventory.claimOut());
+
+		inventory.orderFailed(steak);
+		assertFalse("A failed order shouldn't leave it on order", inventory.isOnOrder(steak));
+		assertEquals("So it can be claimed again", steak, inventory.claimOut());
+
+		inventory.deliver(steak, 3);
+		assertFalse("A delivery should take it off order", inventory.isOnOrder(steak));
+		assertEquals("The delivery should be in stock", 3, inventory.getAvailable(steak));
+		assertEquals("Nothing should be out now", -1, inventory.claimOut());
+	}
+}
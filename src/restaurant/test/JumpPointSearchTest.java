@@ -0,0 +1,101 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.AStarNode;
+import astar.AStarTraversal;
+import astar.AStarTraversal.SearchMode;
+import astar.OccupancyGrid;
+import astar.Position;
+
+/**
+ * Tests that jump point search finds paths as short as plain A* on
+ * seeded random floors, walkable one cell at a time, and no path where A*
+ * finds none.
+ */
+public class JumpPointSearchTest extends TestCase {
+
+	/** An n x n grid with about density percent of its cells blocked */
+	private OccupancyGrid randomGrid(Random random, int n, int density) {
+		OccupancyGrid grid = new OccupancyGrid(n, n);
+		for (int x = 0; x < n; x++)
+			for (int y = 0; y < n; y++)
+				if (random.nextInt(100) < density) grid.claim(x, y);
+		return grid;
+	}
+
+	/** Every step of path is to a free neighbouring cell, from from to to */
+	private void assertWalkable(OccupancyGrid grid, Position from, Position to, List<Position> path) {
+		assertTrue("The path should start at " + from, path.get(0).equals(from));
+		assertTrue("The path should end at " + to, path.get(path.size()-1).equals(to));
+		for (int i = 1; i < path.size(); i++) {
+			Position a = path.get(i-1), b = path.get(i);
+			assertTrue("Steps should be to a neighbouring cell",
+					Math.abs(a.getX() - b.getX()) <= 1 && Math.abs(a.getY() - b.getY()) <= 1);
+			assertTrue("Steps should be to a free cell", grid.isFree(b.getX(), b.getY()));
+		}
+	}
+
+	/**
+	 * On random floors from empty to a third blocked, jump point search
+	 * finds a path exactly when A* does, and one just as short.
+	 */
+	@Test
+	public void testSameLengthAsAStar() {
+		int n = 50;
+		for (int density = 0; density <= 35; density += 5) {
+			Random random = new Random(100 + density);
+			OccupancyGrid grid = randomGrid(random, n, density);
+			AStarTraversal aStar = new AStarTraversal(grid);
+			AStarTraversal jumpPoint = new AStarTraversal(grid, SearchMode.jumpPoint);
+			for (int q = 0; q < 150; q++) {
+				Position from = new Position(random.nextInt(n), random.nextInt(n));
+				Position to = new Position(random.nextInt(n), random.nextInt(n));
+				if (!grid.isFree(to.getX(), to.getY())) continue;
+				AStarNode shortest = aStar.findPath(from, to);
+				AStarNode found = jumpPoint.findPath(from, to);
+				if (shortest == null) {
+					assertNull("There is no way from " + from + " to " + to, found);
+					continue;
+				}
+				assertNotNull("There is a way from " + from + " to " + to, found);
+				assertWalkable(grid, from, to, found.getPath());
+				assertEquals("From " + from + " to " + to + " at density " + density,
+						shortest.getDistTravelled(), found.getDistTravelled(), 1e-9);
+			}
+		}
+	}
+
+	/**
+	 * A goal walled in, and a floor cut in two by a wall, have no path;
+	 * the search after them still finds one.
+	 */
+	@Test
+	public void testNoPath() {
+		OccupancyGrid grid = new OccupancyGrid(20, 20);
+		for (int x = 5; x <= 7; x++)
+			for (int y = 5; y <= 7; y++)
+				if (x != 6 || y != 6) grid.claim(x, y);
+		AStarTraversal jumpPoint = new AStarTraversal(grid, SearchMode.jumpPoint);
+		assertNull("The middle of the ring can't be reached",
+				jumpPoint.findPath(new Position(1, 1), new Position(6, 6)));
+
+		for (int y = 0; y < 20; y++) grid.claim(12, y);
+		assertNull("The other side of the wall can't be reached",
+				jumpPoint.findPath(new Position(1, 1), new Position(18, 3)));
+		assertNull("Nor from the other side",
+				jumpPoint.findPath(new Position(18, 3), new Position(1, 1)));
+
+		AStarNode next = jumpPoint.findPath(new Position(1, 1), new Position(10, 18));
+		assertNotNull("A search after a failed one should still work", next);
+		assertEquals(new AStarTraversal(grid).findPath(new Position(1, 1), new Position(10, 18))
+				.getDistTravelled(), next.getDistTravelled(), 1e-9);
+	}
+}
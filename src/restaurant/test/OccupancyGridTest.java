@@ -0,0 +1,152 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.OccupancyGrid;
+
+/**
+ * Tests for the OccupancyGrid the waiters walk on: claiming and
+ * releasing cells, owners, laying out a whole floor at once, and only
+ * one of many walkers getting a cell.
+ */
+public class OccupancyGridTest extends TestCase {
+
+	/** A claimed cell is taken until it is released. */
+	@Test
+	public void testClaimAndRelease() {
+		OccupancyGrid grid = new OccupancyGrid(5, 4);
+
+		assertTrue("A new grid should be free", grid.isFree(2, 3));
+		assertTrue("The first claim should get the cell", grid.claim(2, 3));
+		assertFalse("The cell should be taken", grid.isFree(2, 3));
+		assertFalse("A second claim shouldn't get it", grid.claim(2, 3));
+		assertTrue("Its neighbour should still be free", grid.isFree(2, 2));
+
+		grid.release(2, 3);
+		assertTrue("A released cell should be free", grid.isFree(2, 3));
+	}
+
+	/** Only the owner that claimed a cell can release it with its id. */
+	@Test
+	public void testOwners() {
+		OccupancyGrid grid = new OccupancyGrid(5, 5);
+		int me = grid.newOwner(), you = grid.newOwner();
+
+		assertTrue("Owner ids should differ", me != you);
+		assertTrue("Owner ids should never be NO_OWNER",
+				me != OccupancyGrid.NO_OWNER && you != OccupancyGrid.NO_OWNER);
+		assertTrue(grid.claim(1, 1, me));
+		assertEquals("The cell should be mine", me, grid.getOwner(1, 1));
+		assertFalse("You shouldn't be able to release my cell", grid.release(1, 1, you));
+		assertFalse("It should still be taken", grid.isFree(1, 1));
+		assertTrue("I should be able to release it", grid.release(1, 1, me));
+		assertEquals("A free cell has no owner", OccupancyGrid.NO_OWNER, grid.getOwner(1, 1));
+		assertFalse("Releasing a free cell should fail", grid.release(1, 1, me));
+	}
+
+	/**
+	 * A cell claimed without an owner (the layout) can't be freed or
+	 * taken over by owner id, not even NO_OWNER's.
+	 */
+	@Test
+	public void testLayoutCells() {
+		OccupancyGrid grid = new OccupancyGrid(5, 5);
+		int me = grid.newOwner();
+		assertTrue(grid.claim(2, 2));
+
+		assertFalse("Releasing as NO_OWNER shouldn't free a layout cell",
+				grid.release(2, 2, OccupancyGrid.NO_OWNER));
+		assertFalse("Nor should releasing as someone", grid.release(2, 2, me));
+		assertFalse("The layout cell should still be taken", grid.isFree(2, 2));
+		assertFalse("A walker shouldn't get it", grid.claim(2, 2, me));
+		assertEquals("It should still have no owner", OccupancyGrid.NO_OWNER, grid.getOwner(2, 2));
+
+		grid.release(2, 2);
+		assertTrue("Releasing it outright should free it", grid.claim(2, 2, me));
+		assertEquals(me, grid.getOwner(2, 2));
+	}
+
+	/**
+	 * 8 walkers claim and leave the same cell over and over: only one
+	 * has it at a time, it always carries that walker's id, and it ends
+	 * up free with no owner.
+	 */
+	@Test
+	public void testWalkersTakeTurns() throws InterruptedException {
+		final OccupancyGrid grid = new OccupancyGrid(4, 4);
+		final AtomicInteger holders = new AtomicInteger();
+		final AtomicInteger problems = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					int me = grid.newOwner();
+					for (int n = 0; n < 20000; n++) {
+						if (!grid.claim(1, 2, me)) continue;
+						if (holders.incrementAndGet() != 1) problems.incrementAndGet();
+						if (grid.getOwner(1, 2) != me) problems.incrementAndGet();
+						holders.decrementAndGet();
+						if (!grid.release(1, 2, me)) problems.incrementAndGet();
+					}
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread t : threads) t.join();
+
+		assertEquals("Only the walker holding the cell should see its id on it", 0, problems.get());
+		assertTrue("The cell should end up free", grid.isFree(1, 2));
+		assertEquals(OccupancyGrid.NO_OWNER, grid.getOwner(1, 2));
+	}
+
+	/** claimAll() takes every cell set, across words, and no others. */
+	@Test
+	public void testClaimAll() {
+		OccupancyGrid grid = new OccupancyGrid(20, 10);
+		BitSet cells = new BitSet();
+		cells.set(0);
+		cells.set(63, 66); // across a word
+		cells.set(199);
+
+		grid.claimAll(cells);
+		for (int x = 0; x < 20; x++)
+			for (int y = 0; y < 10; y++)
+				assertEquals("Cell (" + x + "," + y + ")", cells.get(x*10 + y), !grid.isFree(x, y));
+
+		cells.set(200);
+		try {
+			grid.claimAll(cells);
+			fail("A cell off the floor should be refused");
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	/** 8 walkers going for the same cells: each cell goes to one of them. */
+	@Test
+	public void testOneWalkerGetsEachCell() throws InterruptedException {
+		final OccupancyGrid grid = new OccupancyGrid(64, 64);
+		final AtomicInteger claimed = new AtomicInteger();
+		Thread[] threads = new Thread[8];
+		for (int i = 0; i < threads.length; i++) {
+			threads[i] = new Thread(new Runnable() {
+				public void run() {
+					int me = grid.newOwner();
+					for (int x = 0; x < 64; x++)
+						for (int y = 0; y < 64; y++)
+							if (grid.claim(x, y, me)) claimed.incrementAndGet();
+				}
+			});
+			threads[i].start();
+		}
+		for (Thread t : threads) t.join();
+
+		assertEquals("Every cell should be claimed once", 64 * 64, claimed.get());
+	}
+}
@@ -0,0 +1,127 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.AStarNode;
+import astar.AStarTraversal;
+import astar.OccupancyGrid;
+import astar.PathCache;
+import astar.Position;
+
+/**
+ * Tests for the PathCache: hits and misses, paths with someone standing
+ * on them, the capacity, throwing everything away when the layout
+ * changes, and a traversal filling it from its own searches.
+ */
+public class PathCacheTest extends TestCase {
+
+	/** A straight path along row y from x0 to x1 */
+	private List<Position> row(int y, int x0, int x1) {
+		List<Position> path = new ArrayList<Position>();
+		for (int x = x0; x <= x1; x++) path.add(new Position(x, y));
+		return path;
+	}
+
+	/** A path that was put is handed out, as a copy, and counted. */
+	@Test
+	public void testHitAndMiss() {
+		OccupancyGrid grid = new OccupancyGrid(10, 10);
+		PathCache cache = new PathCache(grid, 4);
+		Position from = new Position(1, 1), to = new Position(5, 1);
+
+		assertNull("Nothing should be kept yet", cache.get(from, to));
+		cache.put(from, to, row(1, 1, 5));
+		List<Position> path = cache.get(from, to);
+		assertNotNull("The path put should be found", path);
+		assertEquals("All of it", 5, path.size());
+		assertNull("Not the other way round", cache.get(to, from));
+		assertEquals(1, cache.getHits());
+		assertEquals(2, cache.getMisses());
+
+		path.clear();
+		assertEquals("Changing a path handed out shouldn't change the one kept",
+				5, cache.get(from, to).size());
+	}
+
+	/**
+	 * A path with someone standing on it is a miss but is kept; the start
+	 * cell doesn't count, as the walker is standing there.
+	 */
+	@Test
+	public void testTakenCell() {
+		OccupancyGrid grid = new OccupancyGrid(10, 10);
+		PathCache cache = new PathCache(grid, 4);
+		Position from = new Position(1, 1), to = new Position(5, 1);
+		cache.put(from, to, row(1, 1, 5));
+
+		grid.claim(1, 1);
+		assertNotNull("The walker on the start cell shouldn't matter", cache.get(from, to));
+		grid.claim(3, 1);
+		assertNull("Someone on the path should make it a miss", cache.get(from, to));
+		assertEquals("The path should still be kept", 1, cache.size());
+		grid.release(3, 1);
+		assertNotNull("Once they move it should be handed out again", cache.get(from, to));
+	}
+
+	/** At most capacity paths are kept, the least recently used going. */
+	@Test
+	public void testCapacity() {
+		PathCache cache = new PathCache(new OccupancyGrid(10, 10), 2);
+		Position a = new Position(1, 1), b = new Position(1, 2), c = new Position(1, 3);
+		Position to = new Position(5, 5);
+		cache.put(a, to, row(1, 1, 5));
+		cache.put(b, to, row(2, 1, 5));
+		cache.get(a, to); // a is now used more recently than b
+		cache.put(c, to, row(3, 1, 5));
+
+		assertEquals("Only 2 paths should be kept", 2, cache.size());
+		assertNotNull("a was used recently and should be kept", cache.get(a, to));
+		assertNull("b was least recently used and should go", cache.get(b, to));
+		assertNotNull("c was put last and should be kept", cache.get(c, to));
+	}
+
+	/** A table put down or taken away throws every path away. */
+	@Test
+	public void testLayoutChanged() {
+		PathCache cache = new PathCache(new OccupancyGrid(10, 10), 4);
+		Position from = new Position(1, 1), to = new Position(5, 1);
+		cache.put(from, to, row(1, 1, 5));
+		long version = cache.getLayoutVersion();
+
+		cache.layoutChanged(7, 7, 2, true);
+		assertEquals("Nothing should be kept", 0, cache.size());
+		assertNull("The old path shouldn't be handed out", cache.get(from, to));
+		assertTrue("The layout version should go up", cache.getLayoutVersion() > version);
+	}
+
+	/**
+	 * A traversal with no flow fields or hierarchy keeps the paths it
+	 * searches for, so asking for the same trip again is a hit.
+	 */
+	@Test
+	public void testSearchFillsCache() {
+		OccupancyGrid grid = new OccupancyGrid(10, 10);
+		for (int y = 0; y < 8; y++) grid.claim(5, y); // a wall
+		PathCache cache = new PathCache(grid, 4);
+		AStarTraversal traversal = new AStarTraversal(grid);
+		traversal.setPathCache(cache);
+		Position from = new Position(1, 1), to = new Position(8, 1);
+
+		AStarNode first = traversal.findPath(from, to);
+		assertNotNull("There should be a way round the wall", first);
+		assertEquals("The first query should be a miss", 0, cache.getHits());
+		AStarNode second = traversal.findPath(from, to);
+		assertEquals("The same query again should be a hit", 1, cache.getHits());
+		assertEquals("And give the same path", first.getPath().size(), second.getPath().size());
+		for (int i = 0; i < first.getPath().size(); i++)
+			assertTrue(first.getPath().get(i).equals(second.getPath().get(i)));
+		assertEquals(first.getDistTravelled(), second.getDistTravelled(), 1e-9);
+	}
+}
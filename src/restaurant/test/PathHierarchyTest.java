@@ -0,0 +1,102 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import astar.AStarNode;
+import astar.AStarTraversal;
+import astar.OccupancyGrid;
+import astar.PathHierarchy;
+import astar.Position;
+
+/**
+ * Tests that planning over a PathHierarchy's clusters finds paths not
+ * much longer than plain A*, on random floors.
+ */
+public class PathHierarchyTest extends TestCase {
+
+	/** An n x n grid with about density percent of its cells blocked */
+	private OccupancyGrid randomGrid(Random random, int n, int density) {
+		OccupancyGrid grid = new OccupancyGrid(n, n);
+		for (int x = 0; x < n; x++)
+			for (int y = 0; y < n; y++)
+				if (random.nextInt(100) < density) grid.claim(x, y);
+		return grid;
+	}
+
+	/** Every step of path is to a free neighbouring cell */
+	private void assertWalkable(OccupancyGrid grid, List<Position> path) {
+		for (int i = 1; i < path.size(); i++) {
+			Position a = path.get(i-1), b = path.get(i);
+			assertTrue("Steps should be to a neighbouring cell",
+					Math.abs(a.getX() - b.getX()) <= 1 && Math.abs(a.getY() - b.getY()) <= 1);
+			assertTrue("Steps should be to a free cell", grid.isFree(b.getX(), b.getY()));
+		}
+	}
+
+	/**
+	 * On random floors, a trip planned over clusters is at most a quarter
+	 * longer than the shortest and only a few percent longer on average;
+	 * trips a couple of clusters across or less are the shortest.
+	 */
+	@Test
+	public void testCloseToShortest() {
+		int n = 80, clusterSize = 10;
+		for (int density = 0; density <= 30; density += 10) {
+			Random random = new Random(density);
+			OccupancyGrid grid = randomGrid(random, n, density);
+			PathHierarchy hierarchy = new PathHierarchy(grid, clusterSize);
+			AStarTraversal plain = new AStarTraversal(grid);
+			AStarTraversal clustered = new AStarTraversal(grid);
+			clustered.setPathHierarchy(hierarchy);
+
+			double total = 0;
+			int trips = 0;
+			for (int q = 0; q < 200; q++) {
+				Position from = new Position(random.nextInt(n), random.nextInt(n));
+				Position to = new Position(random.nextInt(n), random.nextInt(n));
+				if (!grid.isFree(from.getX(), from.getY()) || !grid.isFree(to.getX(), to.getY()))
+					continue;
+				AStarNode shortest = plain.findPath(from, to);
+				AStarNode found = clustered.findPath(from, to);
+				if (shortest == null) {
+					assertNull("There is no way from " + from + " to " + to, found);
+					continue;
+				}
+				assertNotNull("There is a way from " + from + " to " + to, found);
+				assertWalkable(grid, found.getPath());
+				double ratio = shortest.getDistTravelled() == 0 ? 1
+						: found.getDistTravelled() / shortest.getDistTravelled();
+				if (!hierarchy.isFar(from, to)) {
+					assertEquals("A short trip from " + from + " to " + to + " should be the shortest",
+							1, ratio, 1e-9);
+				}
+				assertTrue("From " + from + " to " + to + " at density " + density
+						+ " is " + ratio + " times the shortest", ratio <= 1.25);
+				total += ratio;
+				trips++;
+			}
+			assertTrue("At density " + density + " paths should be close to the shortest on average",
+					total / trips <= 1.03);
+		}
+	}
+
+	/** isFar() goes by how many clusters apart the ends are. */
+	@Test
+	public void testIsFar() {
+		PathHierarchy hierarchy = new PathHierarchy(new OccupancyGrid(60, 60), 10);
+		assertFalse("The same cluster is near",
+				hierarchy.isFar(new Position(1, 1), new Position(8, 8)));
+		assertFalse("Two clusters across is near",
+				hierarchy.isFar(new Position(1, 1), new Position(21, 5)));
+		assertTrue("Further is far",
+				hierarchy.isFar(new Position(1, 1), new Position(40, 5)));
+		assertTrue(hierarchy.isFar(new Position(5, 1), new Position(5, 40)));
+	}
+}
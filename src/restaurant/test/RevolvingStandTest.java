@@ -0,0 +1,124 @@
+package restaurant.test;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import org.junit.Test;
+
+import restaurant.Order;
+import restaurant.RevolvingStand;
+
+/**
+ * Tests for the lock free RevolvingStand: what a full stand does, going
+ * round the ring many times, and many waiters putting orders on at once
+ * with the cook taking them off.
+ */
+public class RevolvingStandTest extends TestCase {
+
+	/**
+	 * A stand holds its capacity, rounded up to a power of two, and turns
+	 * the next order away until the cook takes one.
+	 */
+	@Test
+	public void testFullStandTurnsOrdersAway() {
+		RevolvingStand stand = new RevolvingStand(3); // holds 4
+
+		assertTrue("A new stand should be empty", stand.isEmpty());
+		for (int i = 0; i < 4; i++) {
+			assertTrue("Order " + i + " should fit on the stand",
+					stand.offer(new Order(null, i, "Steak")));
+		}
+		assertFalse("A full stand should turn the order away",
+				stand.offer(new Order(null, 4, "Steak")));
+
+		List<Order> taken = new ArrayList<Order>();
+		assertEquals("The cook should take all 4 orders", 4, stand.drainTo(taken));
+		assertTrue("The stand should be empty once the cook took them", stand.isEmpty());
+		assertTrue("An emptied stand should take orders again",
+				stand.offer(new Order(null, 5, "Steak")));
+	}
+
+	/**
+	 * Going round the ring many times, the cook gets every order once, in
+	 * the order they were put on.
+	 */
+	@Test
+	public void testWrapAround() {
+		RevolvingStand stand = new RevolvingStand(4);
+		List<Order> taken = new ArrayList<Order>();
+		int next = 0;
+
+		for (int lap = 0; lap < 10; lap++) {
+			for (int i = 0; i < 3; i++) {
+				assertTrue("Lap " + lap + ": order should fit on the stand",
+						stand.offer(new Order(null, next++, "Salad")));
+			}
+			taken.clear();
+			assertEquals("Lap " + lap + ": the cook should take 3 orders", 3, stand.drainTo(taken));
+			for (int i = 0; i < 3; i++) {
+				assertEquals("Lap " + lap + ": orders should come off oldest first",
+						next - 3 + i, taken.get(i).tableNum);
+			}
+		}
+		assertEquals("Nothing should be left on the stand", 0, stand.drainTo(taken));
+	}
+
+	/**
+	 * 8 waiters put orders on a small stand at once, trying again when it
+	 * is full, while the cook takes them off. The cook should get every
+	 * order exactly once, and each waiter's orders in the order that
+	 * waiter put them on.
+	 */
+	@Test
+	public void testManyWaitersOneCook() throws InterruptedException {
+		final int waiters = 8, ordersEach = 2000;
+		final RevolvingStand stand = new RevolvingStand(16);
+		Thread[] threads = new Thread[waiters];
+		for (int w = 0; w < waiters; w++) {
+			final int waiter = w;
+			threads[w] = new Thread(new Runnable() {
+				public void run() {
+					for (int i = 0; i < ordersEach; i++) {
+						Order order = new Order(null, waiter, "Pizza");
+						order.number = i;
+						while (!stand.offer(order)) {
+							Thread.yield(); // full, wait for the cook
+						}
+					}
+				}
+			});
+			threads[w].start();
+		}
+
+		long[] nextFrom = new long[waiters];
+		List<Order> taken = new ArrayList<Order>();
+		int total = 0;
+		long giveUp = System.currentTimeMillis() + 60000;
+		while (total < waiters * ordersEach && System.currentTimeMillis() < giveUp) {
+			taken.clear();
+			if (stand.drainTo(taken) == 0) {
+				Thread.yield(); // let the waiters have a go
+				continue;
+			}
+			total += taken.size();
+			for (Order o : taken) {
+				assertNotNull("The cook should never take an empty slot", o);
+				assertEquals("Waiter " + o.tableNum + "'s orders should come off in order",
+						nextFrom[o.tableNum], o.number);
+				nextFrom[o.tableNum]++;
+			}
+		}
+		for (Thread t : threads) t.join(1000);
+
+		assertEquals("The cook should get every order", waiters * ordersEach, total);
+		for (int w = 0; w < waiters; w++) {
+			assertEquals("The cook should get all of waiter " + w + "'s orders",
+					ordersEach, nextFrom[w]);
+		}
+		assertTrue("Nothing should be left on the stand", stand.isEmpty());
+	}
+}
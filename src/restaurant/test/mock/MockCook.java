@@ -24,7 +24,7 @@ public class MockCook extends MockAgent implements Cook {
 
 	public EventLog log = new EventLog();
 
-	public void msgHereIsAnOrder(Waiter waiter, int tableNum, String choice) {
+	public void msgHereIsAnOrder(Waiter waiter, int tableNum, String choice, long waitingSince) {
 		log.add(new LoggedEvent(
 				"Received message msgHereIsAnOrder from waiter "
 						+ waiter.toString() + " for table number " + tableNum
@@ -32,6 +32,15 @@ public class MockCook extends MockAgent implements Cook {
 
 	}
 	
+	public void msgOrderOnRevolvingStand() {
+		log.add(new LoggedEvent("Received message msgOrderOnRevolvingStand."));
+	}
+	
+	public void msgCancelOrder(Waiter waiter, int tableNum) {
+		log.add(new LoggedEvent("Received message msgCancelOrder from waiter "
+				+ waiter.toString() + " for table number " + tableNum + "."));
+	}
+	
 	public void order(String type, int amount) {
 		market.msgOrderFood(type, amount, cashier, this);
 	}